@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.github.divinespear.maven.plugin;
+
+import java.io.Writer;
+
+/**
+ * Writer discards everything, so benchmarks only measure processing.
+ */
+final class NullWriter
+    extends Writer {
+
+  private long length;
+
+  @Override
+  public void write(int c) {
+    length++;
+  }
+
+  @Override
+  public void write(char[] cbuf, int off, int len) {
+    length += len;
+  }
+
+  @Override
+  public void write(String str) {
+    length += str.length();
+  }
+
+  @Override
+  public void write(String str, int off, int len) {
+    length += len;
+  }
+
+  @Override
+  public void flush() {
+  }
+
+  @Override
+  public void close() {
+  }
+
+  long length() {
+    return length;
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.github.divinespear.maven.plugin;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Generation and post-processing of whole script, one after another through buffer or overlapped by
+ * {@link ScriptPipe}.
+ * <p>
+ * Provider is simulated by formatting statements while writing. {@code pipelined} is faster than {@code sequential}
+ * only on multi-core machine.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PipeBenchmark {
+
+  @Param({"1000", "5000"})
+  private int tables;
+
+  /**
+   * script like provider writes, statement by statement.
+   */
+  private void provide(Writer writer) throws IOException {
+    for (int table = 0; table < tables; table++) {
+      final StringBuilder builder = new StringBuilder();
+      builder.append(String.format(Locale.ROOT, "create table MANY_COLUMNS_%d (ID bigint not null", table));
+      for (int i = 0; i < SyntheticScripts.COLUMNS; i++) {
+        builder.append(String.format(Locale.ROOT, ", COLUMN_%d varchar(%d) default 'a;b'", i, 255));
+      }
+      builder.append(", primary key (ID))");
+      writer.write(builder.toString());
+      writer.write(";\n");
+    }
+  }
+
+  private static ScriptPostProcessor processor() {
+    return new ScriptPostProcessor("\n", true);
+  }
+
+  @Benchmark
+  public long sequential() throws IOException {
+    final StringWriter buffer = new StringWriter();
+    provide(buffer);
+    return processor().process(new StringReader(buffer.toString()), new NullWriter());
+  }
+
+  @Benchmark
+  public long pipelined() throws IOException {
+    final NullWriter output = new NullWriter();
+    final ScriptPipe pipe = new ScriptPipe(processor(), new ScriptSink() {
+      @Override
+      public void write(String statement, String text) throws IOException {
+        output.write(text);
+      }
+
+      @Override
+      public void finish() {
+      }
+
+      @Override
+      public void abort() {
+      }
+    });
+    provide(pipe);
+    pipe.finish();
+    return pipe.getStatements();
+  }
+}
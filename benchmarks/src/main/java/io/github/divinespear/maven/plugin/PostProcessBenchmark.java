@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.github.divinespear.maven.plugin;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Whole post-processing of generated script, split and write with optional formatting.
+ * <p>
+ * {@code statements} counter of {@link #throughput} is statements per second. Allocation per statement is
+ * {@code gc.alloc.rate.norm} of {@code -prof gc} divided by statements of script, printed on setup.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PostProcessBenchmark {
+
+  @Param({"100", "1000", "4000"})
+  private int tables;
+
+  @Param({"LF", "CRLF"})
+  private String lineSeparator;
+
+  @Param({"false", "true"})
+  private boolean format;
+
+  @Param({"create", "drop"})
+  private String script;
+
+  private String source;
+  private ScriptPostProcessor processor;
+
+  @Setup
+  public void setUp() {
+    final List<String> statements = "drop".equals(script) ? SyntheticScripts.dropStatements(tables)
+                                                          : SyntheticScripts.createStatements(tables);
+    final String separator = SyntheticScripts.lineSeparator(lineSeparator);
+    this.source = SyntheticScripts.script(statements, separator);
+    this.processor = new ScriptPostProcessor(separator, format);
+    System.out.printf("%n%d statements, %d chars per operation%n", statements.size(), source.length());
+  }
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class Counters {
+
+    public long statements;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      statements = 0;
+    }
+  }
+
+  private long process() throws IOException {
+    return processor.process(new StringReader(source), new NullWriter());
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  public long throughput(Counters counters) throws IOException {
+    final long count = process();
+    counters.statements += count;
+    return count;
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public long latency() throws IOException {
+    return process();
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.github.divinespear.maven.plugin;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Splitting of large script into statements, script is generated while reading so only splitter is measured.
+ * <p>
+ * Time of twice larger script should be about twice, not quadratic.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StatementSplitterBenchmark {
+
+  @Param({"50000", "100000"})
+  private int tables;
+
+  @Benchmark
+  public long split() throws IOException {
+    final StatementSplitter splitter = new StatementSplitter(new GeneratingReader(tables));
+    long count = 0;
+    while (splitter.next() != null) {
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * create table statement of {@link SyntheticScripts} repeated, no copy of whole script is kept in memory.
+   */
+  private static final class GeneratingReader
+      extends Reader {
+
+    private static final String TABLE = SyntheticScripts.script(
+        SyntheticScripts.createStatements(1).subList(0, 1), "\n");
+
+    private final int tables;
+    private int table;
+    private int position = TABLE.length();
+
+    GeneratingReader(int tables) {
+      this.tables = tables;
+    }
+
+    @Override
+    public int read(char[] buf, int off, int len) {
+      if (position == TABLE.length()) {
+        if (table == tables) {
+          return -1;
+        }
+        position = 0;
+        table++;
+      }
+      final int count = Math.min(len, TABLE.length() - position);
+      TABLE.getChars(position, position + count, buf, off);
+      position += count;
+      return count;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
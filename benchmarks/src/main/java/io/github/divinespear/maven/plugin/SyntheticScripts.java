@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.github.divinespear.maven.plugin;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Provider-like scripts modelled on {@code ManyColumns} test entity, scaled to given number of tables.
+ */
+final class SyntheticScripts {
+
+  static final int COLUMNS = 30;
+
+  private SyntheticScripts() {
+  }
+
+  private static String table(int index) {
+    return String.format("MANY_COLUMN_TABLE_%05d", index);
+  }
+
+  /**
+   * statements of create script, every table has index and foreign key to previous table.
+   */
+  static List<String> createStatements(int tables) {
+    final List<String> statements = new ArrayList<>(tables * 3 + 2);
+    for (int i = 0; i < tables; i++) {
+      final StringBuilder builder = new StringBuilder("CREATE TABLE ").append(table(i))
+                                                                      .append(" (ID BIGINT NOT NULL");
+      for (int column = 0; column < COLUMNS; column++) {
+        builder.append(String.format(", COLUMN%02d VARCHAR(255)", column));
+      }
+      builder.append(", AMOUNT DECIMAL(19,2), PARENT_ID BIGINT, PRIMARY KEY (ID))");
+      statements.add(builder.toString());
+    }
+    for (int i = 0; i < tables; i++) {
+      statements.add("CREATE INDEX IDX_" + table(i) + " ON " + table(i) + " (COLUMN00 ASC, COLUMN01 DESC)");
+    }
+    for (int i = 0; i < tables; i++) {
+      statements.add("ALTER TABLE " + table(i) + " ADD CONSTRAINT FK_" + table(i)
+                     + " FOREIGN KEY (PARENT_ID) REFERENCES " + table(Math.max(0, i - 1)) + " (ID)");
+    }
+    statements.add("CREATE TABLE SEQUENCE (SEQ_NAME VARCHAR(50) NOT NULL, SEQ_COUNT DECIMAL(38), PRIMARY KEY (SEQ_NAME))");
+    statements.add("INSERT INTO SEQUENCE(SEQ_NAME, SEQ_COUNT) values ('SEQ_GEN', 0)");
+    return statements;
+  }
+
+  static List<String> dropStatements(int tables) {
+    final List<String> statements = new ArrayList<>(tables * 2 + 1);
+    for (int i = 0; i < tables; i++) {
+      statements.add("ALTER TABLE " + table(i) + " DROP CONSTRAINT FK_" + table(i));
+    }
+    for (int i = 0; i < tables; i++) {
+      statements.add("DROP TABLE " + table(i));
+    }
+    statements.add("DELETE FROM SEQUENCE WHERE SEQ_NAME = 'SEQ_GEN'");
+    return statements;
+  }
+
+  /**
+   * raw script as written by provider, one statement per line without terminator.
+   */
+  static String script(List<String> statements, String lineSeparator) {
+    final StringBuilder builder = new StringBuilder(statements.size() * 128);
+    for (String statement : statements) {
+      builder.append(statement).append(lineSeparator);
+    }
+    return builder.toString();
+  }
+
+  static String lineSeparator(String name) {
+    return "CRLF".equals(name) ? "\r\n" : "\n";
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.github.divinespear.maven.plugin;
+
+import java.lang.ref.SoftReference;
+import java.net.URL;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.persistence.spi.PersistenceProvider;
+
+/**
+ * In-JVM cache of provider bootstrap for long-lived JVM like maven daemon.
+ * <p>
+ * Only dependency layer is shared (see {@link ClassLoaderLayers}), project classes are always loaded by new
+ * classloader. Entry is keyed by dependency layer and effective properties, so unrelated projects or rebuilt snapshots
+ * never share entry. Entries are softly referenced, and evicted on memory pressure.
+ */
+final class BootstrapCache {
+
+  private static final int MAX_ENTRIES = 16;
+
+  /* least recently used first */
+  private static final Map<String, SoftReference<Bootstrap>> ENTRIES =
+      new LinkedHashMap<String, SoftReference<Bootstrap>>(MAX_ENTRIES, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, SoftReference<Bootstrap>> eldest) {
+      return size() > MAX_ENTRIES;
+    }
+  };
+
+  private BootstrapCache() {
+  }
+
+  static String key(List<URL> jars, ClassLoader parent, Map<String, ?> properties) {
+    final SchemaFingerprint fingerprint = new SchemaFingerprint();
+    fingerprint.add("layer", ClassLoaderLayers.key(jars, parent));
+    for (Map.Entry<String, ?> entry : new TreeMap<>(properties).entrySet()) {
+      fingerprint.add("property:" + entry.getKey(), entry.getValue());
+    }
+    return fingerprint.toHex();
+  }
+
+  /**
+   * cached bootstrap of same key, or new one.
+   */
+  static Bootstrap get(String key, List<URL> jars, ClassLoader parent) {
+    synchronized (ENTRIES) {
+      final SoftReference<Bootstrap> reference = ENTRIES.get(key);
+      final Bootstrap cached = reference == null ? null : reference.get();
+      // closed layer of evicted bootstrap is not reused
+      if (cached != null && cached.classLoader.getParent() == parent && ClassLoaderLayers.acquire(cached.classLoader)) {
+        cached.hits++;
+        return cached;
+      }
+      ENTRIES.values().removeIf(r -> r.get() == null);
+      final Bootstrap bootstrap = new Bootstrap(ClassLoaderLayers.dependencyLayer(jars, parent));
+      ENTRIES.put(key, new SoftReference<>(bootstrap));
+      return bootstrap;
+    }
+  }
+
+  /**
+   * bootstrap without caching, on given dependency layer.
+   */
+  static Bootstrap create(ClassLoaderLayers.DependencyLayer layer) {
+    return new Bootstrap(layer);
+  }
+
+  static final class Bootstrap {
+
+    private final ClassLoaderLayers.DependencyLayer classLoader;
+    private List<PersistenceProvider> providers;
+    private int hits;
+
+    private Bootstrap(ClassLoaderLayers.DependencyLayer classLoader) {
+      this.classLoader = classLoader;
+    }
+
+    /**
+     * dependency layer of project classloader.
+     */
+    ClassLoaderLayers.DependencyLayer getClassLoader() {
+      return classLoader;
+    }
+
+    /**
+     * times of reuse, {@code 0} for new bootstrap.
+     */
+    int getHits() {
+      synchronized (ENTRIES) {
+        return hits;
+      }
+    }
+
+    /**
+     * providers discovered before, {@code null} if not discovered yet or not shareable.
+     */
+    synchronized List<PersistenceProvider> getProviders() {
+      return providers;
+    }
+
+    /**
+     * keep discovered providers, only if every provider is loaded from dependency jars or plugin.
+     */
+    synchronized void setProviders(List<PersistenceProvider> providers) {
+      for (PersistenceProvider provider : providers) {
+        if (!isVisible(provider.getClass().getClassLoader())) {
+          return;
+        }
+      }
+      this.providers = Collections.unmodifiableList(providers);
+    }
+
+    private boolean isVisible(ClassLoader loader) {
+      for (ClassLoader current = this.classLoader; current != null; current = current.getParent()) {
+        if (current == loader) {
+          return true;
+        }
+      }
+      return loader == null;
+    }
+  }
+}
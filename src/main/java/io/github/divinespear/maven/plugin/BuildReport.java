@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.github.divinespear.maven.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wall-clock and CPU time of each phase of single execution, with counters.
+ * <p>
+ * Phases of persistence units running concurrently are accumulated, so CPU time of phase can be larger than its wall
+ * time. CPU time is {@code 0} when JVM does not support thread CPU time.
+ */
+final class BuildReport {
+
+  private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+  private final long startedAt = System.currentTimeMillis();
+  private final long started = System.nanoTime();
+  private final Map<String, long[]> phases = new LinkedHashMap<>();
+  private final Map<String, Long> counters = new LinkedHashMap<>();
+  private long finished;
+
+  private static long cpuTime() {
+    try {
+      return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : 0;
+    } catch (UnsupportedOperationException e) {
+      return 0;
+    }
+  }
+
+  /**
+   * start timer of phase on current thread, stopped by {@link Timer#close()}.
+   */
+  Timer time(String phase) {
+    return new Timer(phase);
+  }
+
+  synchronized void add(String counter, long value) {
+    this.counters.merge(counter, value, Long::sum);
+  }
+
+  private synchronized void record(String phase, long wall, long cpu) {
+    this.addPhase(phase, 1, wall, cpu);
+  }
+
+  /**
+   * merge phase measured elsewhere, like forked worker.
+   */
+  synchronized void addPhase(String phase, long count, long wall, long cpu) {
+    final long[] values = this.phases.computeIfAbsent(phase, k -> new long[3]);
+    values[0] += count;
+    values[1] += wall;
+    values[2] += cpu;
+  }
+
+  /**
+   * copy of phases, as {@code [count, wall nanos, cpu nanos]}.
+   */
+  synchronized Map<String, long[]> getPhases() {
+    final Map<String, long[]> copy = new LinkedHashMap<>();
+    for (Map.Entry<String, long[]> phase : this.phases.entrySet()) {
+      copy.put(phase.getKey(), phase.getValue().clone());
+    }
+    return copy;
+  }
+
+  synchronized Map<String, Long> getCounters() {
+    return new LinkedHashMap<>(this.counters);
+  }
+
+  synchronized void finish() {
+    if (this.finished == 0) {
+      this.finished = System.nanoTime();
+    }
+  }
+
+  private long wallTime() {
+    return (this.finished == 0 ? System.nanoTime() : this.finished) - this.started;
+  }
+
+  private static String millis(long nanos) {
+    return String.format(Locale.ROOT, "%.3f", nanos / 1000000.0);
+  }
+
+  synchronized String toJson() {
+    final SimpleDateFormat iso = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.ROOT);
+    iso.setTimeZone(TimeZone.getTimeZone("UTC"));
+    final StringBuilder builder = new StringBuilder();
+    builder.append("{\n");
+    builder.append("  \"startedAt\": \"").append(iso.format(new Date(this.startedAt))).append("\",\n");
+    builder.append("  \"wallMillis\": ").append(millis(this.wallTime())).append(",\n");
+    builder.append("  \"phases\": {");
+    String separator = "\n";
+    for (Map.Entry<String, long[]> phase : this.phases.entrySet()) {
+      final long[] values = phase.getValue();
+      builder.append(separator).append("    \"").append(phase.getKey()).append("\": {\"count\": ").append(values[0])
+             .append(", \"wallMillis\": ").append(millis(values[1]))
+             .append(", \"cpuMillis\": ").append(millis(values[2])).append('}');
+      separator = ",\n";
+    }
+    builder.append(this.phases.isEmpty() ? "},\n" : "\n  },\n");
+    builder.append("  \"counters\": {");
+    separator = "\n";
+    for (Map.Entry<String, Long> counter : this.counters.entrySet()) {
+      builder.append(separator).append("    \"").append(counter.getKey()).append("\": ").append(counter.getValue());
+      separator = ",\n";
+    }
+    builder.append(this.counters.isEmpty() ? "}\n" : "\n  }\n");
+    builder.append("}\n");
+    return builder.toString();
+  }
+
+  /**
+   * one line for build log.
+   */
+  synchronized String summary() {
+    final StringBuilder builder = new StringBuilder("finished in ")
+        .append(TimeUnit.NANOSECONDS.toMillis(this.wallTime())).append(" ms");
+    String separator = " (";
+    for (Map.Entry<String, long[]> phase : this.phases.entrySet()) {
+      builder.append(separator).append(phase.getKey()).append(' ')
+             .append(TimeUnit.NANOSECONDS.toMillis(phase.getValue()[1])).append(" ms");
+      separator = ", ";
+    }
+    if (!this.phases.isEmpty()) {
+      builder.append(')');
+    }
+    for (Map.Entry<String, Long> counter : this.counters.entrySet()) {
+      builder.append(", ").append(counter.getKey()).append(' ').append(counter.getValue());
+    }
+    return builder.toString();
+  }
+
+  void write(File file) throws IOException {
+    final File parent = file.getParentFile();
+    if (parent != null && !parent.exists()) {
+      parent.mkdirs();
+    }
+    try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+      writer.write(this.toJson());
+    }
+  }
+
+  final class Timer
+      implements AutoCloseable {
+
+    private final String phase;
+    private final long wall = System.nanoTime();
+    private final long cpu = cpuTime();
+
+    private Timer(String phase) {
+      this.phase = phase;
+    }
+
+    @Override
+    public void close() {
+      record(this.phase, System.nanoTime() - this.wall, cpuTime() - this.cpu);
+    }
+  }
+}
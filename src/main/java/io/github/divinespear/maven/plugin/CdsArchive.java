@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.github.divinespear.maven.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Dynamic AppCDS archive of forked worker, keyed by java executable, JVM options and worker classpath.
+ * <p>
+ * First worker of a key dumps loaded classes when it exits ({@code -XX:ArchiveClassesAtExit}, JDK 13 or later), and
+ * following workers start with the archive. Archive is dumped to temporary file and published by atomic rename, so
+ * concurrent builds never see partial archive. Startup time of worker without archive is kept next to the archive, for
+ * comparison in build report.
+ */
+final class CdsArchive {
+
+  /* temporary archive of this JVM, so workers of other builds never write same file */
+  private static final String TEMP_SUFFIX = "." + UUID.randomUUID() + ".tmp";
+
+  private final File archive;
+  private final File temp;
+  private final File baseline;
+
+  private CdsArchive(File directory, String key) {
+    this.archive = new File(directory, key + ".jsa");
+    this.temp = new File(directory, key + ".jsa" + TEMP_SUFFIX);
+    this.baseline = new File(directory, key + ".startup");
+  }
+
+  /**
+   * archive for given worker command, {@code null} if classpath cannot be archived.
+   * <p>
+   * CDS ignores classes of directories, and refuses to dump with non-empty directory in classpath.
+   */
+  static CdsArchive of(File directory, String javaExecutable, List<String> jvmArgs, Collection<String> classpath) {
+    final SchemaFingerprint fingerprint = new SchemaFingerprint();
+    final File java = new File(javaExecutable);
+    fingerprint.add("java", java.getAbsolutePath() + ":" + java.length() + ":" + java.lastModified());
+    for (String arg : jvmArgs) {
+      fingerprint.add("arg", arg);
+    }
+    for (String entry : classpath) {
+      final File file = new File(entry);
+      if (file.isDirectory()) {
+        return null;
+      }
+      fingerprint.add("classpath", file.getAbsolutePath() + ":" + file.length() + ":" + file.lastModified());
+    }
+    return new CdsArchive(directory, fingerprint.toHex());
+  }
+
+  /**
+   * {@code true} if JVM of given specification version supports dynamic archive.
+   */
+  static boolean isSupported(String specificationVersion) {
+    if (specificationVersion == null || specificationVersion.startsWith("1.")) {
+      return false;
+    }
+    try {
+      return Integer.parseInt(specificationVersion.split("\\.")[0]) >= 13;
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+
+  File getFile() {
+    return archive;
+  }
+
+  boolean exists() {
+    return archive.isFile() && archive.length() > 0;
+  }
+
+  /**
+   * JVM options to use archive, or to dump it on exit if archive does not exist yet.
+   */
+  List<String> getJvmArgs() {
+    if (this.exists()) {
+      return Arrays.asList("-XX:SharedArchiveFile=" + archive.getAbsolutePath(), "-Xshare:auto");
+    }
+    archive.getParentFile().mkdirs();
+    return Collections.singletonList("-XX:ArchiveClassesAtExit=" + temp.getAbsolutePath());
+  }
+
+  /**
+   * publish archive dumped by exited worker, if any.
+   */
+  void publish() {
+    if (!temp.isFile()) {
+      return;
+    }
+    try {
+      if (temp.length() > 0 && !this.exists()) {
+        try {
+          Files.move(temp.toPath(), archive.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+          Files.move(temp.toPath(), archive.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+      }
+    } catch (IOException e) {
+      // published by another build
+    } finally {
+      temp.delete();
+    }
+  }
+
+  /**
+   * startup time of worker without archive, {@code -1} if unknown.
+   */
+  long getBaselineStartupNanos() {
+    if (!baseline.isFile()) {
+      return -1;
+    }
+    try {
+      return Long.parseLong(new String(Files.readAllBytes(baseline.toPath()), StandardCharsets.UTF_8).trim());
+    } catch (IOException | NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  void setBaselineStartupNanos(long nanos) {
+    try {
+      Files.write(baseline.toPath(), Long.toString(nanos).getBytes(StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      // comparison is optional
+    }
+  }
+}
@@ -0,0 +1,280 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.github.divinespear.maven.plugin;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+/**
+ * Mapping related structure of class file, read from bytecode without loading class.
+ * <p>
+ * Method bodies, debug informations and non-mapping annotations are ignored, so {@link #getStructure()} only changes
+ * when mapping can be changed. Classes mapping depends on by behavior, like converter or user type named in mapping
+ * annotation and types of properties, are given by {@link #getReferences()}.
+ */
+final class ClassFileInfo {
+
+  private static final List<String> MAPPING_ANNOTATION_PREFIXES = Collections.unmodifiableList(Arrays.asList(
+      "Ljavax/persistence/",
+      "Ljakarta/persistence/",
+      "Ljavax/validation/",
+      "Ljakarta/validation/",
+      "Lorg/hibernate/",
+      "Lorg/eclipse/persistence/"));
+
+  private static final Pattern CLASS_NAME = Pattern.compile("[\\w$]+(?:\\.[\\w$]+)+");
+  private static final Pattern DESCRIPTOR_CLASS = Pattern.compile("L([^;<>]+)[;<]");
+
+  private static final int PARSING_OPTIONS = ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES;
+
+  private final String name;
+  private final String superName;
+  private final boolean enumType;
+  private final Set<String> classAnnotations;
+  private final boolean annotated;
+  private final String structure;
+  private final Set<String> references;
+
+  private ClassFileInfo(Collector collector) {
+    this.name = collector.name;
+    this.superName = collector.superName;
+    this.enumType = collector.enumType;
+    this.classAnnotations = Collections.unmodifiableSet(collector.classAnnotations);
+    this.annotated = collector.annotated;
+    this.structure = collector.builder.toString();
+    this.references = Collections.unmodifiableSet(collector.references);
+  }
+
+  static ClassFileInfo read(byte[] bytes) {
+    final Collector collector = new Collector();
+    new ClassReader(bytes).accept(collector, PARSING_OPTIONS);
+    return new ClassFileInfo(collector);
+  }
+
+  static boolean isMappingAnnotation(String descriptor) {
+    for (String prefix : MAPPING_ANNOTATION_PREFIXES) {
+      if (descriptor.startsWith(prefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * internal name of class, like {@code java/lang/Object}.
+   */
+  String getName() {
+    return name;
+  }
+
+  String getClassName() {
+    return Type.getObjectType(name).getClassName();
+  }
+
+  String getSuperName() {
+    return superName;
+  }
+
+  boolean isEnum() {
+    return enumType;
+  }
+
+  /**
+   * descriptors of mapping annotations on class.
+   */
+  Set<String> getClassAnnotations() {
+    return classAnnotations;
+  }
+
+  /**
+   * has any mapping annotation on class, field or method.
+   */
+  boolean isAnnotated() {
+    return annotated;
+  }
+
+  String getStructure() {
+    return structure;
+  }
+
+  /**
+   * internal names of classes named in mapping annotations, and types of fields and getters.
+   */
+  Set<String> getReferences() {
+    return references;
+  }
+
+  private static final class Collector
+      extends ClassVisitor {
+
+    private final StringBuilder builder = new StringBuilder();
+    private final Set<String> classAnnotations = new LinkedHashSet<>();
+    private final Set<String> references = new LinkedHashSet<>();
+    private String name;
+    private String superName;
+    private boolean enumType;
+    private boolean annotated;
+
+    Collector() {
+      super(Opcodes.ASM9);
+    }
+
+    @Override
+    public void visit(int version, int access, String name, String signature, String superName,
+                      String[] interfaces) {
+      this.name = name;
+      this.superName = superName;
+      this.enumType = (access & Opcodes.ACC_ENUM) != 0;
+      builder.append("class ").append(access).append(' ').append(name).append(' ').append(signature)
+             .append(" extends ").append(superName)
+             .append(" implements ").append(interfaces == null ? "" : String.join(",", interfaces)).append('\n');
+    }
+
+    @Override
+    public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+      if (!isMappingAnnotation(descriptor)) {
+        return null;
+      }
+      classAnnotations.add(descriptor);
+      return annotation("  ", descriptor);
+    }
+
+    @Override
+    public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+      if ((access & Opcodes.ACC_SYNTHETIC) != 0) {
+        return null;
+      }
+      builder.append("field ").append(access).append(' ').append(name).append(' ').append(descriptor).append(' ')
+             .append(signature).append('\n');
+      addTypes(descriptor);
+      addTypes(signature);
+      return new FieldVisitor(Opcodes.ASM9) {
+        @Override
+        public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+          return isMappingAnnotation(descriptor) ? annotation("  ", descriptor) : null;
+        }
+      };
+    }
+
+    @Override
+    public MethodVisitor visitMethod(int access, String name, String descriptor, String signature,
+                                     String[] exceptions) {
+      if ((access & (Opcodes.ACC_SYNTHETIC | Opcodes.ACC_BRIDGE)) != 0) {
+        return null;
+      }
+      builder.append("method ").append(access).append(' ').append(name).append(descriptor).append(' ')
+             .append(signature).append('\n');
+      // getter of property access
+      if (descriptor.startsWith("()")) {
+        addTypes(descriptor);
+        addTypes(signature);
+      }
+      return new MethodVisitor(Opcodes.ASM9) {
+        @Override
+        public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+          return isMappingAnnotation(descriptor) ? annotation("  ", descriptor) : null;
+        }
+      };
+    }
+
+    private void addTypes(String descriptor) {
+      if (descriptor == null) {
+        return;
+      }
+      final Matcher matcher = DESCRIPTOR_CLASS.matcher(descriptor);
+      while (matcher.find()) {
+        references.add(matcher.group(1));
+      }
+    }
+
+    private void addValue(Object value) {
+      if (value instanceof Type) {
+        addTypes(((Type) value).getDescriptor());
+      } else if (value instanceof String && CLASS_NAME.matcher((String) value).matches()) {
+        // class name in string, like user type or naming strategy
+        references.add(((String) value).replace('.', '/'));
+      }
+    }
+
+    private AnnotationVisitor annotation(String indent, String descriptor) {
+      annotated = true;
+      builder.append(indent).append('@').append(descriptor).append('\n');
+      return new ValueCollector(indent + "  ");
+    }
+
+    private final class ValueCollector
+        extends AnnotationVisitor {
+
+      private final String indent;
+
+      ValueCollector(String indent) {
+        super(Opcodes.ASM9);
+        this.indent = indent;
+      }
+
+      @Override
+      public void visit(String name, Object value) {
+        final Object printable = value.getClass().isArray() ? arrayToString(value) : value;
+        addValue(value);
+        builder.append(indent).append(name).append('=').append(printable).append('\n');
+      }
+
+      @Override
+      public void visitEnum(String name, String descriptor, String value) {
+        builder.append(indent).append(name).append('=').append(descriptor).append('.').append(value).append('\n');
+      }
+
+      @Override
+      public AnnotationVisitor visitAnnotation(String name, String descriptor) {
+        builder.append(indent).append(name).append("=@").append(descriptor).append('\n');
+        return new ValueCollector(indent + "  ");
+      }
+
+      @Override
+      public AnnotationVisitor visitArray(String name) {
+        builder.append(indent).append(name).append("=[").append('\n');
+        return new ValueCollector(indent + "  ");
+      }
+    }
+
+    private static String arrayToString(Object array) {
+      final List<Object> values = new ArrayList<>();
+      final int length = Array.getLength(array);
+      for (int i = 0; i < length; i++) {
+        values.add(Array.get(array, i));
+      }
+      return values.toString();
+    }
+  }
+}
@@ -0,0 +1,269 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.github.divinespear.maven.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.SoftReference;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ResourceBundle;
+
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * Classloader of project in two layers, stable dependency jars and volatile project classes.
+ * <p>
+ * Dependency layer is shared by every persistence unit and execution in same JVM while same jars are used with same
+ * plugin, so loaded classes and JIT profiles of dependencies survive. Project layer only has class directories, and is
+ * created for each persistence unit.
+ * <p>
+ * Every layer is {@link #release(Layer) released} after execution, so nothing outside of plugin keeps it reachable.
+ * Shared layer is counted by executions using it, and closed when it is evicted and no execution uses it anymore.
+ */
+final class ClassLoaderLayers {
+
+  private static final int MAX_LAYERS = 8;
+
+  /* least recently used first */
+  private static final Map<String, SoftReference<DependencyLayer>> LAYERS =
+      new LinkedHashMap<String, SoftReference<DependencyLayer>>(MAX_LAYERS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, SoftReference<DependencyLayer>> eldest) {
+          if (size() <= MAX_LAYERS) {
+            return false;
+          }
+          final DependencyLayer layer = eldest.getValue().get();
+          if (layer != null) {
+            layer.evicted = true;
+            closeIfUnused(layer);
+          }
+          return true;
+        }
+      };
+
+  private static final URL[] EMPTY_URLS = new URL[0];
+
+  private ClassLoaderLayers() {
+  }
+
+  /**
+   * hash of location, size and last modified time of every jar, and classloader of plugin.
+   */
+  static String key(List<URL> jars, ClassLoader parent) {
+    final SchemaFingerprint fingerprint = new SchemaFingerprint();
+    fingerprint.add("parent", parent.getClass().getName() + "@" + System.identityHashCode(parent));
+    for (URL url : jars) {
+      File file;
+      try {
+        file = new File(url.toURI());
+      } catch (URISyntaxException | IllegalArgumentException e) {
+        file = null;
+      }
+      fingerprint.add("jar", file == null ? url : file.getAbsolutePath() + ":" + file.length() + ":"
+                                                  + file.lastModified());
+    }
+    return fingerprint.toHex();
+  }
+
+  /**
+   * shared dependency layer of same jars, or new one. layer is used until {@link #release(Layer) released}.
+   */
+  static DependencyLayer dependencyLayer(List<URL> jars, ClassLoader parent) {
+    final String key = key(jars, parent);
+    synchronized (LAYERS) {
+      final SoftReference<DependencyLayer> reference = LAYERS.get(key);
+      final DependencyLayer cached = reference == null ? null : reference.get();
+      if (cached != null && cached.getParent() == parent) {
+        cached.reuses++;
+        cached.users++;
+        return cached;
+      }
+      LAYERS.values().removeIf(r -> r.get() == null);
+      final DependencyLayer layer = new DependencyLayer(jars, parent, true);
+      layer.users++;
+      LAYERS.put(key, new SoftReference<>(layer));
+      return layer;
+    }
+  }
+
+  /**
+   * use shared dependency layer kept outside, like cached bootstrap, until {@link #release(Layer) released}.
+   *
+   * @return {@code false} if layer is already closed.
+   */
+  static boolean acquire(DependencyLayer layer) {
+    synchronized (LAYERS) {
+      if (layer.closed) {
+        return false;
+      }
+      layer.reuses++;
+      layer.users++;
+      return true;
+    }
+  }
+
+  /**
+   * dependency layer never shared.
+   */
+  static DependencyLayer isolatedDependencyLayer(List<URL> jars, ClassLoader parent) {
+    return new DependencyLayer(jars, parent, false);
+  }
+
+  /**
+   * project classes, and test classes if scanned.
+   */
+  static ProjectLayer projectLayer(List<URL> directories, ClassLoader dependencyLayer) {
+    return new ProjectLayer(directories, dependencyLayer);
+  }
+
+  /**
+   * clear resource bundles of layer, then deregister JDBC drivers loaded by layer and close it unless it is shared.
+   * shared layer is closed when it is evicted and this is last execution using it.
+   * <p>
+   * Drivers register themselves to {@link java.sql.DriverManager} when loaded, and registration keeps layer reachable
+   * until JVM exits. Driver class is initialized only once per layer, so drivers of layer still in use are kept
+   * registered for following executions.
+   *
+   * @return count of deregistered drivers.
+   */
+  static int release(Layer layer) throws IOException, ReflectiveOperationException {
+    ResourceBundle.clearCache(layer);
+    if (!layer.shared) {
+      try {
+        return layer.deregisterDrivers();
+      } finally {
+        layer.close();
+      }
+    }
+    synchronized (LAYERS) {
+      ((DependencyLayer) layer).users--;
+      return closeIfUnused((DependencyLayer) layer);
+    }
+  }
+
+  /**
+   * deregister drivers of evicted layer no execution uses and close it, so its jar files are not kept open. caller
+   * holds lock of layers.
+   *
+   * @return count of deregistered drivers.
+   */
+  private static int closeIfUnused(DependencyLayer layer) {
+    if (!layer.evicted || layer.users > 0 || layer.closed) {
+      return 0;
+    }
+    layer.closed = true;
+    int drivers = 0;
+    try {
+      drivers = layer.deregisterDrivers();
+    } catch (IOException | ReflectiveOperationException e) {
+      // layer is unreachable anyway once drivers are collected
+    }
+    try {
+      layer.close();
+    } catch (IOException e) {
+      // jar files are closed by finalization of layer anyway
+    }
+    return drivers;
+  }
+
+  abstract static class Layer
+      extends URLClassLoader {
+
+    static {
+      ClassLoader.registerAsParallelCapable();
+    }
+
+    private final boolean shared;
+    private Class<?> deregistration;
+
+    private Layer(List<URL> urls, ClassLoader parent, boolean shared) {
+      super(urls.toArray(EMPTY_URLS), parent);
+      this.shared = shared;
+    }
+
+    /**
+     * {@code DriverManager} allows deregistration only from class which can see the driver, so helper is defined
+     * again in this layer.
+     */
+    synchronized int deregisterDrivers() throws IOException, ReflectiveOperationException {
+      if (this.deregistration == null) {
+        final byte[] bytes;
+        try (InputStream in = DriverDeregistration.class.getResourceAsStream(
+            DriverDeregistration.class.getSimpleName() + ".class")) {
+          bytes = IOUtil.toByteArray(in);
+        }
+        this.deregistration = this.defineClass(DriverDeregistration.class.getName(), bytes, 0, bytes.length);
+      }
+      return (Integer) this.deregistration.getMethod("deregister").invoke(null);
+    }
+  }
+
+  static final class ProjectLayer
+      extends Layer {
+
+    static {
+      ClassLoader.registerAsParallelCapable();
+    }
+
+    private ProjectLayer(List<URL> directories, ClassLoader parent) {
+      super(directories, parent, false);
+    }
+  }
+
+  static final class DependencyLayer
+      extends Layer {
+
+    static {
+      ClassLoader.registerAsParallelCapable();
+    }
+
+    private int reuses;
+    private int users;
+    private boolean evicted;
+    private boolean closed;
+
+    private DependencyLayer(List<URL> jars, ClassLoader parent, boolean shared) {
+      super(jars, parent, shared);
+    }
+
+    /**
+     * times of reuse, {@code 0} for new layer.
+     */
+    int getReuses() {
+      synchronized (LAYERS) {
+        return reuses;
+      }
+    }
+
+    /**
+     * {@code true} if layer is evicted and closed.
+     */
+    boolean isClosed() {
+      synchronized (LAYERS) {
+        return closed;
+      }
+    }
+  }
+}
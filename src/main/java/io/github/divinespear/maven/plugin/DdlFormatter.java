@@ -0,0 +1,493 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.github.divinespear.maven.plugin;
+
+/**
+ * Formatter of DDL statement, for {@code create table}, {@code create index} and {@code alter table}.
+ * <p>
+ * Layout is same as previous regular expression based formatter, but every rule is a linear scan of characters, so no
+ * pattern is compiled or backtracked on each statement.
+ */
+final class DdlFormatter {
+
+  /* intermediate line break, replaced with line separator or removed by layout rules */
+  private static final String BREAK = "\r\n";
+  private static final String BREAK_INDENT = "\r\n\t";
+
+  private final String lineSeparator;
+  /* previous definition is completed, or continued to next line */
+  private boolean completed = true;
+
+  private DdlFormatter(String lineSeparator) {
+    this.lineSeparator = lineSeparator;
+  }
+
+  static String format(String statement, String lineSeparator) {
+    return new DdlFormatter(lineSeparator).format(statement);
+  }
+
+  private String format(String statement) {
+    final String s = breakColumns(breakParentheses(statement));
+    final StringBuilder builder = new StringBuilder(s.length() + 64);
+    if (isCreate(s, "table", "view")) {
+      formatTable(s, builder);
+    } else if (isCreate(s, "index")) {
+      final int end = matchCreateIndexHead(s);
+      formatBlock(end < 0 ? s : breakAfter(s, end), builder);
+      return trim(removeIndexOrder(builder));
+    } else if (isAlterTable(s)) {
+      final int end = matchAlterTableHead(s);
+      formatBlock(breakReferences(end < 0 ? s : breakAfter(s, end)), builder);
+    } else {
+      builder.append(s.trim()).append(lineSeparator);
+    }
+    return trim(builder);
+  }
+
+  /*
+   * character classes
+   */
+
+  private static boolean isSpace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+  }
+
+  private static boolean isLineTerminator(char c) {
+    return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+  }
+
+  /**
+   * part of name, type or keyword, not a space, parenthesis or comma.
+   */
+  private static boolean isWordPart(char c) {
+    return c != '(' && c != ')' && c != ',' && !isSpace(c);
+  }
+
+  private static char toLowerCase(char c) {
+    return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+  }
+
+  private static boolean startsWith(CharSequence s, int offset, String keyword) {
+    if (offset < 0 || offset + keyword.length() > s.length()) {
+      return false;
+    }
+    for (int i = 0; i < keyword.length(); i++) {
+      if (toLowerCase(s.charAt(offset + i)) != keyword.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int skipSpaces(CharSequence s, int offset) {
+    int i = offset;
+    while (i < s.length() && isSpace(s.charAt(i))) {
+      i++;
+    }
+    return i;
+  }
+
+  private static int skipWord(CharSequence s, int offset) {
+    int i = offset;
+    while (i < s.length() && !isSpace(s.charAt(i))) {
+      i++;
+    }
+    return i;
+  }
+
+  private static int indexOf(CharSequence s, char c, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (s.charAt(i) == c) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static boolean hasLineTerminator(CharSequence s, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (isLineTerminator(s.charAt(i))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /*
+   * statement kinds
+   */
+
+  /**
+   * {@code create [modifier] <kind>}
+   */
+  private static boolean isCreate(String s, String... kinds) {
+    if (!startsWith(s, 0, "create")) {
+      return false;
+    }
+    final int p = "create".length();
+    final int a = skipSpaces(s, p);
+    if (a == p) {
+      return false;
+    }
+    final int b = skipWord(s, a);
+    final int c = skipSpaces(s, b);
+    for (String kind : kinds) {
+      if ((b > a && c > b && startsWith(s, c, kind)) || startsWith(s, a, kind)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isAlterTable(String s) {
+    final int p = "alter".length();
+    final int a = skipSpaces(s, p);
+    return startsWith(s, 0, "alter") && a > p && startsWith(s, a, "table");
+  }
+
+  /**
+   * end of {@code create [modifier] index <name>}, or -1.
+   */
+  private static int matchCreateIndexHead(String s) {
+    if (!startsWith(s, 0, "create")) {
+      return -1;
+    }
+    final int p = "create".length();
+    final int a = skipSpaces(s, p);
+    if (a == p) {
+      return -1;
+    }
+    final int b = skipWord(s, a);
+    final int c = skipSpaces(s, b);
+    if (b > a && c > b) {
+      final int end = matchName(s, c, "index");
+      if (end >= 0) {
+        return end;
+      }
+    }
+    return matchName(s, a, "index");
+  }
+
+  /**
+   * end of {@code alter table <name>}, or -1.
+   */
+  private static int matchAlterTableHead(String s) {
+    final int p = "alter".length();
+    final int a = skipSpaces(s, p);
+    if (!startsWith(s, 0, "alter") || a == p) {
+      return -1;
+    }
+    return matchName(s, a, "table");
+  }
+
+  /**
+   * end of {@code <keyword> <name>} at offset, or -1.
+   */
+  private static int matchName(String s, int offset, String keyword) {
+    if (!startsWith(s, offset, keyword)) {
+      return -1;
+    }
+    final int d = offset + keyword.length();
+    final int e = skipSpaces(s, d);
+    final int end = skipWord(s, e);
+    return e > d && end > e ? end : -1;
+  }
+
+  /*
+   * transformations
+   */
+
+  /**
+   * break after first opening parenthesis, and before last closing parenthesis.
+   */
+  private static String breakParentheses(String s) {
+    final StringBuilder builder = new StringBuilder(s.length() + 8);
+    final int open = s.indexOf('(');
+    if (open > 0) {
+      builder.append(s, 0, open + 1).append(BREAK_INDENT).append(s, open + 1, s.length());
+    } else {
+      builder.append(s);
+    }
+    final int close = builder.lastIndexOf(")");
+    if (close >= 0 && builder.indexOf("(", close) < 0) {
+      builder.insert(close, BREAK);
+    }
+    return builder.toString();
+  }
+
+  /**
+   * break after comma of column definition, like {@code NAME VARCHAR(255) NOT NULL,}.
+   */
+  private static String breakColumns(String s) {
+    final int length = s.length();
+    // end of word, next closing parenthesis, and next closing parenthesis or comma from each position
+    final int[] wordEnd = new int[length + 1];
+    final int[] nextClose = new int[length + 1];
+    final int[] nextCloseOrComma = new int[length + 1];
+    wordEnd[length] = length;
+    nextClose[length] = length;
+    nextCloseOrComma[length] = length;
+    for (int i = length - 1; i >= 0; i--) {
+      final char c = s.charAt(i);
+      wordEnd[i] = isWordPart(c) ? (i + 1 < length && isWordPart(s.charAt(i + 1)) ? wordEnd[i + 1] : i + 1) : i;
+      nextClose[i] = c == ')' ? i : nextClose[i + 1];
+      nextCloseOrComma[i] = c == ')' || c == ',' ? i : nextCloseOrComma[i + 1];
+    }
+
+    final StringBuilder builder = new StringBuilder(length + 64);
+    int copied = 0;
+    int i = 0;
+    while (i < length) {
+      final int end = matchColumn(s, i, wordEnd, nextClose, nextCloseOrComma);
+      if (end < 0) {
+        i++;
+        continue;
+      }
+      builder.append(s, copied, end).append(BREAK_INDENT);
+      i = skipSpaces(s, end);
+      copied = i;
+    }
+    return builder.append(s, copied, length).toString();
+  }
+
+  /**
+   * end of {@code word,} or {@code x(...)...,} at offset, or -1.
+   */
+  private static int matchColumn(String s, int offset, int[] wordEnd, int[] nextClose, int[] nextCloseOrComma) {
+    final int length = s.length();
+    final char c = s.charAt(offset);
+    if (isWordPart(c)) {
+      final int end = wordEnd[offset];
+      if (end < length && s.charAt(end) == ',') {
+        return end + 1;
+      }
+    }
+    if (!isSpace(c) && offset + 2 < length && s.charAt(offset + 1) == '(') {
+      final int close = nextClose[offset + 2];
+      if (close < length && close > offset + 2) {
+        final int end = nextCloseOrComma[close + 1];
+        if (end < length && s.charAt(end) == ',') {
+          return end + 1;
+        }
+      }
+    }
+    return -1;
+  }
+
+  private static String breakAfter(String s, int end) {
+    return new StringBuilder(s.length() + 4).append(s, 0, end).append(BREAK_INDENT)
+                                            .append(s, skipSpaces(s, end), s.length()).toString();
+  }
+
+  /**
+   * break before {@code references} of foreign key.
+   */
+  private static String breakReferences(String s) {
+    final StringBuilder builder = new StringBuilder(s.length() + 8);
+    int i = 0;
+    while (i < s.length()) {
+      final char c = s.charAt(i);
+      if (c == ')') {
+        final int keyword = skipSpaces(s, i + 1);
+        if (startsWith(s, keyword, "references")) {
+          builder.append(')').append(BREAK_INDENT).append(s, keyword, keyword + "references".length());
+          i = keyword + "references".length();
+          continue;
+        }
+      }
+      builder.append(c);
+      i++;
+    }
+    return builder.toString();
+  }
+
+  /**
+   * remove order of index before {@code on}.
+   */
+  private static String removeIndexOrder(CharSequence s) {
+    final StringBuilder builder = new StringBuilder(s.length());
+    int i = 0;
+    while (i < s.length()) {
+      int keyword = -1;
+      if (startsWith(s, i, "asc")) {
+        keyword = skipSpaces(s, i + "asc".length());
+      } else if (startsWith(s, i, "desc")) {
+        keyword = skipSpaces(s, i + "desc".length());
+      }
+      if (keyword >= 0 && startsWith(s, keyword, "on")) {
+        builder.append(s, keyword, keyword + "on".length());
+        i = keyword + "on".length();
+        continue;
+      }
+      builder.append(s.charAt(i));
+      i++;
+    }
+    return builder.toString();
+  }
+
+  /*
+   * layout
+   */
+
+  private void formatTable(String s, StringBuilder builder) {
+    forEachLine(s, (start, end) -> {
+      if (isStartLine(s, start, end)) {
+        if (!completed) {
+          builder.append(lineSeparator);
+          completed = true;
+        }
+        builder.append(s, start, end).append(lineSeparator);
+      } else {
+        appendLine(s, start, end, builder);
+      }
+    });
+  }
+
+  private void formatBlock(String s, StringBuilder builder) {
+    forEachLine(s, (start, end) -> {
+      if (builder.length() == 0) {
+        builder.append(s, start, end).append(lineSeparator);
+      } else {
+        appendLine(s, start, end, builder);
+      }
+    });
+  }
+
+  private interface LineConsumer {
+
+    void accept(int start, int end);
+  }
+
+  /**
+   * lines separated by intermediate line break, without trailing empty lines.
+   */
+  private static void forEachLine(String s, LineConsumer consumer) {
+    int end = s.length();
+    if (s.indexOf(BREAK) >= 0) {
+      while (end >= BREAK.length() && s.startsWith(BREAK, end - BREAK.length())) {
+        end -= BREAK.length();
+      }
+      if (end == 0) {
+        return;
+      }
+    }
+    int start = 0;
+    while (true) {
+      final int next = s.indexOf(BREAK, start);
+      final int lineEnd = next < 0 || next >= end ? end : next;
+      consumer.accept(start, lineEnd);
+      if (lineEnd == end) {
+        return;
+      }
+      start = next + BREAK.length();
+    }
+  }
+
+  /**
+   * append inner line of definition.
+   */
+  private void appendLine(String s, int start, int end, StringBuilder builder) {
+    if (completed) {
+      if (isColumnLine(s, start, end)) {
+        builder.append(s, start, end).append(lineSeparator);
+      } else {
+        builder.append(s, start, end);
+        completed = false;
+      }
+      return;
+    }
+    int from = start;
+    int to = end;
+    while (from < to && s.charAt(from) <= ' ') {
+      from++;
+    }
+    while (to > from && s.charAt(to - 1) <= ' ') {
+      to--;
+    }
+    builder.append(s, from, to);
+    if (isClosingLine(s, start, end)) {
+      builder.append(lineSeparator);
+      completed = true;
+    }
+  }
+
+  /**
+   * line starts with non-space, like {@code CREATE TABLE A (}.
+   */
+  private static boolean isStartLine(String s, int start, int end) {
+    return end > start && !isSpace(s.charAt(start)) && !hasLineTerminator(s, start + 1, end);
+  }
+
+  /**
+   * line has closing parenthesis after any character, like {@code ID)}.
+   */
+  private static boolean isClosingLine(String s, int start, int end) {
+    final int close = indexOf(s, ')', start, end);
+    return close > start && !hasLineTerminator(s, close + 1, end);
+  }
+
+  /**
+   * complete definition ends with comma, like {@code ID BIGINT NOT NULL,} or {@code NAME VARCHAR(255),}.
+   */
+  private static boolean isColumnLine(String s, int start, int end) {
+    int comma = end - 1;
+    while (comma >= start && isSpace(s.charAt(comma))) {
+      comma--;
+    }
+    if (comma < start || s.charAt(comma) != ',') {
+      return false;
+    }
+    final int open = indexOf(s, '(', start, comma);
+    if (open < 0) {
+      final char last = s.charAt(comma - 1);
+      return comma - start >= 2 && isWordPart(last);
+    }
+    return (open - start >= 2 && !isSpace(s.charAt(open - 1)) && isArguments(s, open, comma))
+           || (open - start >= 1 && open + 1 < comma && s.charAt(open + 1) == '(' && isArguments(s, open + 1, comma));
+  }
+
+  /**
+   * {@code (...)} at offset, followed by anything but closing parenthesis and comma.
+   */
+  private static boolean isArguments(String s, int open, int end) {
+    final int close = indexOf(s, ')', open + 1, end);
+    if (close < open + 2) {
+      return false;
+    }
+    for (int i = close + 1; i < end; i++) {
+      final char c = s.charAt(i);
+      if (c == ')' || c == ',') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static String trim(CharSequence s) {
+    int from = 0;
+    int to = s.length();
+    while (from < to && s.charAt(from) <= ' ') {
+      from++;
+    }
+    while (to > from && s.charAt(to - 1) <= ' ') {
+      to--;
+    }
+    return s.subSequence(from, to).toString();
+  }
+}
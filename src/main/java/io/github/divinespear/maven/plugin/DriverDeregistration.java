@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.github.divinespear.maven.plugin;
+
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Collections;
+
+/**
+ * Deregisters JDBC drivers loaded by classloader of this class.
+ * <p>
+ * Not used directly: each {@link ClassLoaderLayers.Layer} defines its own copy of this class, because
+ * {@link DriverManager} lets only classes which can see a driver deregister it.
+ */
+public final class DriverDeregistration {
+
+  private DriverDeregistration() {
+  }
+
+  public static int deregister() throws SQLException {
+    final ClassLoader classLoader = DriverDeregistration.class.getClassLoader();
+    int count = 0;
+    for (Driver driver : Collections.list(DriverManager.getDrivers())) {
+      if (driver.getClass().getClassLoader() == classLoader) {
+        DriverManager.deregisterDriver(driver);
+        count++;
+      }
+    }
+    return count;
+  }
+}
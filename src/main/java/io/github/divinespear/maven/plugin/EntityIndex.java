@@ -0,0 +1,269 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.github.divinespear.maven.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Managed classes of project class directories, read from bytecode by {@code index} goal.
+ * <p>
+ * Replaces package scanning of xml-less mode. Index is stamped by name, size and last modified time of every class
+ * file, so any compilation after indexing makes it stale, and stale index is never used.
+ */
+final class EntityIndex {
+
+  private static final String STAMP_KEY = "stamp";
+
+  /* same as entity type filters of spring's package scanning */
+  private static final Map<String, String> KINDS;
+
+  static {
+    final Map<String, String> kinds = new TreeMap<>();
+    kinds.put("Ljavax/persistence/Entity;", "entity");
+    kinds.put("Ljavax/persistence/Embeddable;", "embeddable");
+    kinds.put("Ljavax/persistence/MappedSuperclass;", "mapped-superclass");
+    kinds.put("Ljavax/persistence/Converter;", "converter");
+    KINDS = Collections.unmodifiableMap(kinds);
+  }
+
+  private static final String PACKAGE_KIND = "package";
+  private static final String PACKAGE_INFO = "package-info";
+
+  private final String stamp;
+  private final List<File> roots;
+  /* kind to package to class names */
+  private final Map<String, Map<String, TreeSet<String>>> classes;
+
+  private EntityIndex(String stamp, List<File> roots, Map<String, Map<String, TreeSet<String>>> classes) {
+    this.stamp = stamp;
+    this.roots = roots;
+    this.classes = classes;
+  }
+
+  /**
+   * read bytecode of every class file under given directories.
+   */
+  static EntityIndex build(List<File> roots) throws IOException {
+    // stamp first, class file changed while reading makes index stale
+    final String stamp = stamp(roots);
+    final Map<String, Map<String, TreeSet<String>>> classes = new TreeMap<>();
+    for (File root : roots) {
+      for (Path file : listClassFiles(root)) {
+        final ClassFileInfo info = ClassFileInfo.read(Files.readAllBytes(file));
+        final String className = info.getClassName();
+        if (className.endsWith("." + PACKAGE_INFO)) {
+          add(classes, PACKAGE_KIND, className.substring(0, className.length() - PACKAGE_INFO.length() - 1));
+          continue;
+        }
+        for (String annotation : info.getClassAnnotations()) {
+          final String kind = KINDS.get(annotation);
+          if (kind != null) {
+            add(classes, kind, className);
+            break;
+          }
+        }
+      }
+    }
+    return new EntityIndex(stamp, roots, classes);
+  }
+
+  private static void add(Map<String, Map<String, TreeSet<String>>> classes, String kind, String name) {
+    final int index = name.lastIndexOf('.');
+    final String packageName = index < 0 ? "" : name.substring(0, index);
+    classes.computeIfAbsent(kind, k -> new TreeMap<>()).computeIfAbsent(packageName, k -> new TreeSet<>()).add(name);
+  }
+
+  private static List<Path> listClassFiles(File root) throws IOException {
+    if (!root.isDirectory()) {
+      return Collections.emptyList();
+    }
+    try (Stream<Path> stream = Files.walk(root.toPath())) {
+      return stream.filter(p -> p.toString().endsWith(".class") && Files.isRegularFile(p)).sorted()
+                   .collect(Collectors.toList());
+    }
+  }
+
+  /**
+   * stamp of class files under given directories, without reading them.
+   */
+  static String stamp(List<File> roots) throws IOException {
+    final SchemaFingerprint fingerprint = new SchemaFingerprint();
+    for (File root : roots) {
+      fingerprint.add("root", root.getAbsolutePath());
+      final Path rootPath = root.toPath();
+      for (Path file : listClassFiles(root)) {
+        fingerprint.add(rootPath.relativize(file).toString(),
+                        Files.size(file) + ":" + Files.getLastModifiedTime(file).toMillis());
+      }
+    }
+    return fingerprint.toHex();
+  }
+
+  /**
+   * load index for given directories.
+   *
+   * @return {@code null} if index is missing, unreadable, or stale.
+   */
+  static EntityIndex load(File file, List<File> roots) throws IOException {
+    if (file == null || !file.isFile()) {
+      return null;
+    }
+    final Properties properties = new Properties();
+    try (InputStream in = Files.newInputStream(file.toPath())) {
+      properties.load(in);
+    } catch (IOException | IllegalArgumentException e) {
+      return null;
+    }
+    final String stamp = properties.getProperty(STAMP_KEY);
+    if (stamp == null || !stamp.equals(stamp(roots))) {
+      return null;
+    }
+    final Map<String, Map<String, TreeSet<String>>> classes = new TreeMap<>();
+    for (String key : properties.stringPropertyNames()) {
+      final int index = key.indexOf('.');
+      if (index < 0) {
+        continue;
+      }
+      final String kind = key.substring(0, index);
+      for (String name : properties.getProperty(key).split(",")) {
+        if (!name.isEmpty()) {
+          classes.computeIfAbsent(kind, k -> new TreeMap<>())
+                 .computeIfAbsent(key.substring(index + 1), k -> new TreeSet<>()).add(name);
+        }
+      }
+    }
+    return new EntityIndex(stamp, roots, classes);
+  }
+
+  /**
+   * stored as properties, keyed by {@code <kind>.<package>} with comma separated class names.
+   */
+  void store(File file) throws IOException {
+    final File parent = file.getParentFile();
+    if (parent != null && !parent.exists()) {
+      parent.mkdirs();
+    }
+    final Properties properties = new Properties();
+    properties.setProperty(STAMP_KEY, this.stamp);
+    for (Map.Entry<String, Map<String, TreeSet<String>>> kind : this.classes.entrySet()) {
+      for (Map.Entry<String, TreeSet<String>> entry : kind.getValue().entrySet()) {
+        properties.setProperty(kind.getKey() + "." + entry.getKey(), String.join(",", entry.getValue()));
+      }
+    }
+    try (OutputStream out = Files.newOutputStream(file.toPath())) {
+      properties.store(out, "jpa-schema-maven-plugin entity index");
+    }
+  }
+
+  String getStamp() {
+    return stamp;
+  }
+
+  private static boolean isInPackages(String name, List<String> packages) {
+    for (String packageName : packages) {
+      if (name.equals(packageName) || name.startsWith(packageName + ".")) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * managed class names under given packages and their sub packages, same as scanning them.
+   */
+  List<String> getManagedClassNames(List<String> packages) {
+    final List<String> names = new ArrayList<>();
+    for (Map.Entry<String, Map<String, TreeSet<String>>> kind : this.classes.entrySet()) {
+      if (PACKAGE_KIND.equals(kind.getKey())) {
+        continue;
+      }
+      for (Map.Entry<String, TreeSet<String>> entry : kind.getValue().entrySet()) {
+        if (isInPackages(entry.getKey(), packages)) {
+          names.addAll(entry.getValue());
+        }
+      }
+    }
+    return names;
+  }
+
+  /**
+   * packages with {@code package-info} under given packages.
+   */
+  List<String> getManagedPackages(List<String> packages) {
+    final List<String> names = new ArrayList<>();
+    for (TreeSet<String> entry : this.classes.getOrDefault(PACKAGE_KIND, Collections.emptyMap()).values()) {
+      for (String name : entry) {
+        if (isInPackages(name, packages)) {
+          names.add(name);
+        }
+      }
+    }
+    return names;
+  }
+
+  /**
+   * every location of given packages is one of indexed directories, so classes in dependencies are not missed.
+   */
+  boolean covers(List<String> packages, ClassLoader classLoader) throws IOException {
+    for (String packageName : packages) {
+      final Enumeration<URL> urls = classLoader.getResources(packageName.replace('.', '/'));
+      while (urls.hasMoreElements()) {
+        if (!isIndexed(urls.nextElement())) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private boolean isIndexed(URL url) {
+    if (!"file".equals(url.getProtocol())) {
+      return false;
+    }
+    final Path path;
+    try {
+      path = new File(url.toURI()).toPath().toAbsolutePath().normalize();
+    } catch (URISyntaxException | IllegalArgumentException e) {
+      return false;
+    }
+    for (File root : this.roots) {
+      if (path.startsWith(root.toPath().toAbsolutePath().normalize())) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
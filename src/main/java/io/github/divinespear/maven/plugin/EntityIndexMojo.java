@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.github.divinespear.maven.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Build entity index of compiled classes, for {@code generate} goal without {@code persistence.xml}.
+ * <p>
+ * Index is rebuilt only when class files are changed since last indexing.
+ *
+ * @author divinespear
+ */
+@Mojo(name = "index", defaultPhase = LifecyclePhase.PROCESS_CLASSES,
+      requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME, threadSafe = true)
+public class EntityIndexMojo
+        extends AbstractMojo {
+
+    @Parameter(defaultValue = "${project}", readonly = true)
+    private MavenProject project;
+
+    /**
+     * skip entity indexing
+     */
+    @Parameter(property = "jpa-schema.index.skip", required = true, defaultValue = "false")
+    private boolean skip = false;
+
+    public boolean isSkip() {
+        return skip;
+    }
+
+    /**
+     * index test classes, must be same as {@code scanTestClasses} of {@code generate} goal.
+     */
+    @Parameter(property = "jpa-schema.generate.scan-test-classes", required = true, defaultValue = "false")
+    private boolean scanTestClasses = false;
+
+    public boolean isScanTestClasses() {
+        return scanTestClasses;
+    }
+
+    /**
+     * index file, must be same as {@code entityIndexFile} of {@code generate} goal.
+     */
+    @Parameter(property = "jpa-schema.generate.entity-index-file",
+               defaultValue = "${project.build.directory}/jpa-schema/entity-index.properties")
+    private File entityIndexFile;
+
+    public File getEntityIndexFile() {
+        return entityIndexFile;
+    }
+
+    /**
+     * class directories of project, same as {@code generate} goal loads without jar.
+     */
+    private List<File> getClassDirectories() throws MojoExecutionException {
+        try {
+            List<String> classfiles = new ArrayList<>(this.project.getCompileClasspathElements());
+            if (this.scanTestClasses) {
+                classfiles.addAll(this.project.getTestClasspathElements());
+            }
+            Set<URL> directories = new LinkedHashSet<>();
+            for (String classfile : classfiles) {
+                URL url = new File(classfile).toURI().toURL();
+                if (url.getPath().endsWith("/")) {
+                    directories.add(url);
+                }
+            }
+            return JpaSchemaGeneratorMojo.toFiles(new ArrayList<>(directories));
+        } catch (Exception e) {
+            throw new MojoExecutionException("Error while resolving class directories", e);
+        }
+    }
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (this.skip) {
+            this.getLog().info("entity indexing is skipped.");
+            return;
+        }
+
+        final long started = System.nanoTime();
+        final List<File> directories = this.getClassDirectories();
+        try {
+            if (EntityIndex.load(this.entityIndexFile, directories) != null) {
+                this.getLog().info("entity index is up-to-date.");
+                return;
+            }
+            EntityIndex.build(directories).store(this.entityIndexFile);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error while indexing entity classes", e);
+        }
+        this.getLog().info(String.format("entity index is written to %s in %d ms.", this.entityIndexFile,
+                               TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)));
+    }
+}
@@ -0,0 +1,375 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.github.divinespear.maven.plugin;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.Serializable;
+import java.io.StringWriter;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Child JVM running schema generation for {@code fork} mode, and its pool on Maven side.
+ * <p>
+ * Requests are serialized to standard input of worker. Every output of worker, including logs of providers, is sent
+ * back as lines of standard output, so logs are streamed while generating. Worker waits next request after each
+ * generation, so one worker can be reused by several modules of same build.
+ */
+public final class ForkedWorker {
+
+  private static final String READY = "READY";
+  private static final String LOG = "LOG ";
+  private static final String PHASE = "PHASE ";
+  private static final String COUNTER = "COUNTER ";
+  private static final String END_OK = "END OK";
+  private static final String END_FAIL = "END FAIL ";
+
+  /* idle workers by command line */
+  private static final Map<List<String>, Deque<Handle>> IDLE = new HashMap<>();
+
+  static {
+    Runtime.getRuntime().addShutdownHook(new Thread(ForkedWorker::destroyAll, "jpa-schema-fork-shutdown"));
+  }
+
+  private ForkedWorker() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    final PrintStream protocol = new PrintStream(new FileOutputStream(FileDescriptor.out), true, "UTF-8");
+    System.setOut(new PrintStream(new LogStream(protocol, "info"), true));
+    System.setErr(new PrintStream(new LogStream(protocol, "warn"), true));
+    protocol.println(READY);
+
+    final ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(System.in));
+    while (true) {
+      final Request request;
+      try {
+        request = (Request) in.readObject();
+      } catch (EOFException e) {
+        // normal exit, threads left by providers must not keep worker
+        System.exit(0);
+        return;
+      }
+      String failure = null;
+      BuildReport report = null;
+      try {
+        final JpaSchemaGeneratorMojo mojo = JpaSchemaGeneratorMojo.create(request.fields);
+        report = mojo.executeInWorker(request.classpath);
+      } catch (Throwable e) {
+        failure = describe(e);
+        final StringWriter trace = new StringWriter();
+        e.printStackTrace(new PrintWriter(trace));
+        for (String line : trace.toString().split("\r?\n")) {
+          System.out.println("[debug] " + line);
+        }
+      }
+      System.out.flush();
+      System.err.flush();
+      synchronized (protocol) {
+        if (report != null) {
+          for (Map.Entry<String, long[]> phase : report.getPhases().entrySet()) {
+            final long[] values = phase.getValue();
+            protocol.println(PHASE + phase.getKey() + " " + values[0] + " " + values[1] + " " + values[2]);
+          }
+          for (Map.Entry<String, Long> counter : report.getCounters().entrySet()) {
+            protocol.println(COUNTER + counter.getKey() + " " + counter.getValue());
+          }
+        }
+        protocol.println(failure == null ? END_OK : END_FAIL + failure);
+      }
+    }
+  }
+
+  /**
+   * messages of exception and its causes, in single line.
+   */
+  private static String describe(Throwable e) {
+    final StringBuilder builder = new StringBuilder();
+    for (Throwable current = e; current != null; current = current.getCause()) {
+      if (builder.length() > 0) {
+        builder.append(": ");
+      }
+      builder.append(current.getMessage() == null ? current.getClass().getName() : current.getMessage());
+      if (current.getCause() == current) {
+        break;
+      }
+    }
+    return builder.toString().replace('\r', ' ').replace('\n', ' ');
+  }
+
+  /**
+   * worker of same command line from pool, or new one.
+   */
+  static Handle acquire(List<String> command, CdsArchive archive) throws IOException {
+    synchronized (IDLE) {
+      final Deque<Handle> idle = IDLE.get(command);
+      while (idle != null && !idle.isEmpty()) {
+        final Handle handle = idle.pop();
+        if (handle.process.isAlive()) {
+          handle.reused = true;
+          return handle;
+        }
+      }
+    }
+    return new Handle(command, archive);
+  }
+
+  /**
+   * return worker to pool, or stop it.
+   */
+  static void release(Handle handle, boolean reuse) {
+    if (!reuse || handle.broken || !handle.process.isAlive()) {
+      handle.destroy();
+      return;
+    }
+    synchronized (IDLE) {
+      IDLE.computeIfAbsent(handle.command, k -> new ArrayDeque<>()).push(handle);
+    }
+  }
+
+  private static void destroyAll() {
+    synchronized (IDLE) {
+      for (Deque<Handle> handles : IDLE.values()) {
+        for (Handle handle : handles) {
+          handle.destroy();
+        }
+      }
+      IDLE.clear();
+    }
+  }
+
+  /**
+   * configuration of mojo and project classpath, for single execution.
+   */
+  static final class Request
+      implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Map<String, Object> fields;
+    private final List<URL> classpath;
+
+    Request(Map<String, Object> fields, List<URL> classpath) {
+      this.fields = fields;
+      this.classpath = new ArrayList<>(classpath);
+    }
+  }
+
+  /**
+   * worker process on Maven side.
+   */
+  static final class Handle {
+
+    private final List<String> command;
+    private final CdsArchive archive;
+    private final Process process;
+    private final ObjectOutputStream out;
+    private final BufferedReader in;
+    private final long startupNanos;
+    private boolean reused;
+    private boolean broken;
+
+    private Handle(List<String> command, CdsArchive archive) throws IOException {
+      final long started = System.nanoTime();
+      this.command = new ArrayList<>(command);
+      this.archive = archive;
+      this.process = new ProcessBuilder(command).redirectErrorStream(true).start();
+      this.in = new BufferedReader(new InputStreamReader(this.process.getInputStream(), StandardCharsets.UTF_8));
+      // wait until worker is ready, anything before is printed by JVM itself
+      final StringBuilder output = new StringBuilder();
+      String line;
+      while ((line = this.in.readLine()) != null && !READY.equals(line)) {
+        output.append(line).append('\n');
+      }
+      if (line == null) {
+        this.destroy();
+        throw new IOException("forked worker is failed to start: " + output.toString().trim());
+      }
+      this.out = new ObjectOutputStream(this.process.getOutputStream());
+      this.startupNanos = System.nanoTime() - started;
+    }
+
+    /**
+     * nanoseconds until worker is ready.
+     */
+    long getStartupNanos() {
+      return startupNanos;
+    }
+
+    boolean isReused() {
+      return reused;
+    }
+
+    /**
+     * run request on worker, with streaming logs of worker to given log.
+     */
+    void execute(Request request, Log log, BuildReport report) throws MojoExecutionException {
+      try {
+        this.out.writeObject(request);
+        this.out.reset();
+        this.out.flush();
+        String line;
+        while ((line = this.in.readLine()) != null) {
+          if (line.startsWith(LOG)) {
+            log(log, line.substring(LOG.length()));
+          } else if (line.startsWith(PHASE)) {
+            final String[] values = line.substring(PHASE.length()).split(" ");
+            report.addPhase(values[0], Long.parseLong(values[1]), Long.parseLong(values[2]),
+                            Long.parseLong(values[3]));
+          } else if (line.startsWith(COUNTER)) {
+            final String[] values = line.substring(COUNTER.length()).split(" ");
+            report.add(values[0], Long.parseLong(values[1]));
+          } else if (END_OK.equals(line)) {
+            return;
+          } else if (line.startsWith(END_FAIL)) {
+            throw new MojoExecutionException("Error while running forked worker: "
+                                             + line.substring(END_FAIL.length()));
+          } else {
+            log.info(line);
+          }
+        }
+        this.broken = true;
+        throw new MojoExecutionException("forked worker exited unexpectedly.");
+      } catch (IOException e) {
+        this.broken = true;
+        throw new MojoExecutionException("Error while communicating with forked worker", e);
+      }
+    }
+
+    private static void log(Log log, String line) {
+      final int index = line.indexOf(' ');
+      final String level = index < 0 ? line : line.substring(0, index);
+      final String message = index < 0 ? "" : line.substring(index + 1);
+      if ("error".equals(level)) {
+        log.error(message);
+      } else if ("warn".equals(level) || "warning".equals(level)) {
+        log.warn(message);
+      } else if ("debug".equals(level)) {
+        log.debug(message);
+      } else {
+        log.info(message);
+      }
+    }
+
+    private void destroy() {
+      try {
+        // end of requests, worker exits normally and dumps CDS archive if requested
+        if (this.out != null) {
+          this.out.close();
+        }
+      } catch (IOException e) {
+        this.process.destroy();
+      }
+      // drain output, or worker blocks on full pipe while exiting
+      final Thread drain = new Thread(() -> {
+        try {
+          while (this.in.readLine() != null) {
+            // ignore
+          }
+        } catch (IOException e) {
+          // closed
+        }
+      }, "jpa-schema-fork-drain");
+      drain.setDaemon(true);
+      drain.start();
+      try {
+        if (!this.process.waitFor(60, TimeUnit.SECONDS)) {
+          this.process.destroyForcibly();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        this.process.destroyForcibly();
+      }
+      if (this.archive != null) {
+        this.archive.publish();
+      }
+    }
+  }
+
+  /**
+   * line of worker output as log frame, level is taken from prefix of maven log if present.
+   */
+  private static final class LogStream
+      extends OutputStream {
+
+    private final PrintStream protocol;
+    private final String level;
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+    LogStream(PrintStream protocol, String level) {
+      this.protocol = protocol;
+      this.level = level;
+    }
+
+    @Override
+    public synchronized void write(int b) {
+      if (b == '\n') {
+        this.flushLine();
+      } else if (b != '\r') {
+        this.line.write(b);
+      }
+    }
+
+    private void flushLine() {
+      String text = new String(this.line.toByteArray(), StandardCharsets.UTF_8);
+      this.line.reset();
+      String lineLevel = this.level;
+      if (text.startsWith("[") && text.indexOf("] ") > 0) {
+        final String prefix = text.substring(1, text.indexOf("] "));
+        if (prefix.equals("debug") || prefix.equals("info") || prefix.equals("warn") || prefix.equals("warning")
+            || prefix.equals("error")) {
+          lineLevel = prefix;
+          text = text.substring(prefix.length() + 3);
+        }
+      }
+      synchronized (this.protocol) {
+        this.protocol.println(LOG + lineLevel + " " + text);
+      }
+    }
+
+    @Override
+    public synchronized void flush() {
+      if (this.line.size() > 0) {
+        this.flushLine();
+      }
+    }
+  }
+}
@@ -0,0 +1,438 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.github.divinespear.maven.plugin;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.github.divinespear.maven.plugin.JpaSchemaGeneratorMojo.Vendor;
+
+/**
+ * Effective configuration of single schema generation.
+ * <p>
+ * Created from plugin configuration, and copied for each persistence unit, so tasks never share mutable state.
+ */
+final class GenerationTask {
+
+  private String name;
+  private String persistenceXml;
+  private String persistenceUnitName;
+  private String databaseAction;
+  private String scriptAction;
+  private File outputDirectory;
+  private String createOutputFileName;
+  private String dropOutputFileName;
+  private String createSourceMode;
+  private File createSourceFile;
+  private String dropSourceMode;
+  private File dropSourceFile;
+  private String jdbcDriver;
+  private String jdbcUrl;
+  private String jdbcUser;
+  private String jdbcPassword;
+  private String databaseProductName;
+  private Integer databaseMajorVersion;
+  private Integer databaseMinorVersion;
+  private String lineSeparator;
+  private boolean format;
+  private boolean shardByTable;
+  private List<String> sinks = new ArrayList<>();
+  private Vendor vendor;
+  private List<String> packageToScan = new ArrayList<>();
+  private Map<String, String> properties = new HashMap<>();
+  private File fingerprintFile;
+
+  GenerationTask() {
+  }
+
+  GenerationTask(GenerationTask source) {
+    this.name = source.name;
+    this.persistenceXml = source.persistenceXml;
+    this.persistenceUnitName = source.persistenceUnitName;
+    this.databaseAction = source.databaseAction;
+    this.scriptAction = source.scriptAction;
+    this.outputDirectory = source.outputDirectory;
+    this.createOutputFileName = source.createOutputFileName;
+    this.dropOutputFileName = source.dropOutputFileName;
+    this.createSourceMode = source.createSourceMode;
+    this.createSourceFile = source.createSourceFile;
+    this.dropSourceMode = source.dropSourceMode;
+    this.dropSourceFile = source.dropSourceFile;
+    this.jdbcDriver = source.jdbcDriver;
+    this.jdbcUrl = source.jdbcUrl;
+    this.jdbcUser = source.jdbcUser;
+    this.jdbcPassword = source.jdbcPassword;
+    this.databaseProductName = source.databaseProductName;
+    this.databaseMajorVersion = source.databaseMajorVersion;
+    this.databaseMinorVersion = source.databaseMinorVersion;
+    this.lineSeparator = source.lineSeparator;
+    this.format = source.format;
+    this.shardByTable = source.shardByTable;
+    this.sinks = new ArrayList<>(source.sinks);
+    this.vendor = source.vendor;
+    this.packageToScan = new ArrayList<>(source.packageToScan);
+    this.properties = new HashMap<>(source.properties);
+    this.fingerprintFile = source.fingerprintFile;
+  }
+
+  /**
+   * copy of this task for given persistence unit.
+   */
+  GenerationTask forUnit(PersistenceUnit unit) {
+    if (unit.getName() == null || unit.getName().trim().isEmpty()) {
+      throw new IllegalArgumentException("name of persistence unit is required.");
+    }
+    final GenerationTask task = new GenerationTask(this);
+    task.name = unit.getName();
+    task.persistenceUnitName = unit.getName();
+    if (unit.getOutputDirectory() != null) {
+      task.outputDirectory = unit.getOutputDirectory();
+    } else if (this.outputDirectory != null) {
+      task.outputDirectory = new File(this.outputDirectory, unit.getName());
+    }
+    if (unit.getCreateOutputFileName() != null) {
+      task.createOutputFileName = unit.getCreateOutputFileName();
+    }
+    if (unit.getDropOutputFileName() != null) {
+      task.dropOutputFileName = unit.getDropOutputFileName();
+    }
+    if (unit.getPackageToScan() != null && !unit.getPackageToScan().isEmpty()) {
+      task.packageToScan = new ArrayList<>(unit.getPackageToScan());
+    }
+    if (unit.getProperties() != null) {
+      task.properties.putAll(unit.getProperties());
+    }
+    if (this.fingerprintFile != null) {
+      task.fingerprintFile = new File(this.fingerprintFile.getParentFile(),
+                                      unit.getName() + "-" + this.fingerprintFile.getName());
+    }
+    return task;
+  }
+
+  /**
+   * copy of this task for given target database.
+   */
+  GenerationTask forTarget(Target target) {
+    if (target.getName() == null || target.getName().trim().isEmpty()) {
+      throw new IllegalArgumentException("name of target is required.");
+    }
+    final GenerationTask task = new GenerationTask(this);
+    task.name = this.name == null ? target.getName() : this.name + "/" + target.getName();
+    if (target.getOutputDirectory() != null) {
+      task.outputDirectory = target.getOutputDirectory();
+    } else if (this.outputDirectory != null) {
+      task.outputDirectory = new File(this.outputDirectory, target.getName());
+    }
+    if (target.getCreateOutputFileName() != null) {
+      task.createOutputFileName = target.getCreateOutputFileName();
+    }
+    if (target.getDropOutputFileName() != null) {
+      task.dropOutputFileName = target.getDropOutputFileName();
+    }
+    if (target.getDatabaseProductName() != null) {
+      task.databaseProductName = target.getDatabaseProductName();
+      task.databaseMajorVersion = target.getDatabaseMajorVersion();
+      task.databaseMinorVersion = target.getDatabaseMinorVersion();
+      // dialect of plugin configuration is for another database
+      task.properties.remove(Constants.HIBERNATE_DIALECT);
+    }
+    if (target.getDialect() != null) {
+      task.properties.put(Constants.HIBERNATE_DIALECT, target.getDialect());
+    }
+    if (this.fingerprintFile != null) {
+      task.fingerprintFile = new File(this.fingerprintFile.getParentFile(),
+                                      target.getName() + "-" + this.fingerprintFile.getName());
+    }
+    return task;
+  }
+
+  /**
+   * name for logging, {@code null} for default task.
+   */
+  String getName() {
+    return name;
+  }
+
+  String getPersistenceXml() {
+    return persistenceXml;
+  }
+
+  void setPersistenceXml(String persistenceXml) {
+    this.persistenceXml = persistenceXml;
+  }
+
+  String getPersistenceUnitName() {
+    return persistenceUnitName;
+  }
+
+  void setPersistenceUnitName(String persistenceUnitName) {
+    this.persistenceUnitName = persistenceUnitName;
+  }
+
+  String getDatabaseAction() {
+    return databaseAction;
+  }
+
+  void setDatabaseAction(String databaseAction) {
+    this.databaseAction = databaseAction;
+  }
+
+  String getScriptAction() {
+    return scriptAction;
+  }
+
+  void setScriptAction(String scriptAction) {
+    this.scriptAction = scriptAction;
+  }
+
+  File getOutputDirectory() {
+    return outputDirectory;
+  }
+
+  void setOutputDirectory(File outputDirectory) {
+    this.outputDirectory = outputDirectory;
+  }
+
+  String getCreateOutputFileName() {
+    return createOutputFileName;
+  }
+
+  void setCreateOutputFileName(String createOutputFileName) {
+    this.createOutputFileName = createOutputFileName;
+  }
+
+  File getCreateOutputFile() {
+    return this.outputDirectory == null ? null : new File(this.outputDirectory, this.createOutputFileName);
+  }
+
+  String getDropOutputFileName() {
+    return dropOutputFileName;
+  }
+
+  void setDropOutputFileName(String dropOutputFileName) {
+    this.dropOutputFileName = dropOutputFileName;
+  }
+
+  File getDropOutputFile() {
+    return this.outputDirectory == null ? null : new File(this.outputDirectory, this.dropOutputFileName);
+  }
+
+  /**
+   * directory of create script shards, named after output file without extension.
+   */
+  File getCreateShardDirectory() {
+    return shardDirectory(this.getCreateOutputFile());
+  }
+
+  /**
+   * directory of drop script shards, named after output file without extension.
+   */
+  File getDropShardDirectory() {
+    return shardDirectory(this.getDropOutputFile());
+  }
+
+  private static File shardDirectory(File output) {
+    if (output == null) {
+      return null;
+    }
+    final String name = output.getName();
+    final int dot = name.lastIndexOf('.');
+    return new File(output.getParentFile(), dot > 0 ? name.substring(0, dot) : name + ".d");
+  }
+
+  /**
+   * expected outputs by script action, keyed by generic script name.
+   */
+  Map<String, File> getOutputs() {
+    final String action = this.scriptAction.toLowerCase();
+    final Map<String, File> outputs = new LinkedHashMap<>();
+    if (action.contains("create")) {
+      outputs.put("create.sql", this.getCreateOutputFile());
+    }
+    if (action.contains("drop")) {
+      outputs.put("drop.sql", this.getDropOutputFile());
+    }
+    return outputs;
+  }
+
+  String getCreateSourceMode() {
+    return createSourceMode;
+  }
+
+  void setCreateSourceMode(String createSourceMode) {
+    this.createSourceMode = createSourceMode;
+  }
+
+  File getCreateSourceFile() {
+    return createSourceFile;
+  }
+
+  void setCreateSourceFile(File createSourceFile) {
+    this.createSourceFile = createSourceFile;
+  }
+
+  String getDropSourceMode() {
+    return dropSourceMode;
+  }
+
+  void setDropSourceMode(String dropSourceMode) {
+    this.dropSourceMode = dropSourceMode;
+  }
+
+  File getDropSourceFile() {
+    return dropSourceFile;
+  }
+
+  void setDropSourceFile(File dropSourceFile) {
+    this.dropSourceFile = dropSourceFile;
+  }
+
+  String getJdbcDriver() {
+    return jdbcDriver;
+  }
+
+  void setJdbcDriver(String jdbcDriver) {
+    this.jdbcDriver = jdbcDriver;
+  }
+
+  String getJdbcUrl() {
+    return jdbcUrl;
+  }
+
+  void setJdbcUrl(String jdbcUrl) {
+    this.jdbcUrl = jdbcUrl;
+  }
+
+  String getJdbcUser() {
+    return jdbcUser;
+  }
+
+  void setJdbcUser(String jdbcUser) {
+    this.jdbcUser = jdbcUser;
+  }
+
+  String getJdbcPassword() {
+    return jdbcPassword;
+  }
+
+  void setJdbcPassword(String jdbcPassword) {
+    this.jdbcPassword = jdbcPassword;
+  }
+
+  String getDatabaseProductName() {
+    return databaseProductName;
+  }
+
+  void setDatabaseProductName(String databaseProductName) {
+    this.databaseProductName = databaseProductName;
+  }
+
+  Integer getDatabaseMajorVersion() {
+    return databaseMajorVersion;
+  }
+
+  void setDatabaseMajorVersion(Integer databaseMajorVersion) {
+    this.databaseMajorVersion = databaseMajorVersion;
+  }
+
+  Integer getDatabaseMinorVersion() {
+    return databaseMinorVersion;
+  }
+
+  void setDatabaseMinorVersion(Integer databaseMinorVersion) {
+    this.databaseMinorVersion = databaseMinorVersion;
+  }
+
+  /**
+   * actual line separator, not a name.
+   */
+  String getLineSeparator() {
+    return lineSeparator;
+  }
+
+  void setLineSeparator(String lineSeparator) {
+    this.lineSeparator = lineSeparator;
+  }
+
+  boolean isFormat() {
+    return format;
+  }
+
+  void setFormat(boolean format) {
+    this.format = format;
+  }
+
+  boolean isShardByTable() {
+    return shardByTable;
+  }
+
+  void setShardByTable(boolean shardByTable) {
+    this.shardByTable = shardByTable;
+  }
+
+  /**
+   * names of script sinks, see {@link ScriptSinks}.
+   */
+  List<String> getSinks() {
+    return sinks;
+  }
+
+  void setSinks(List<String> sinks) {
+    this.sinks = sinks == null ? new ArrayList<>() : new ArrayList<>(sinks);
+  }
+
+  Vendor getVendor() {
+    return vendor;
+  }
+
+  void setVendor(Vendor vendor) {
+    this.vendor = vendor;
+  }
+
+  List<String> getPackageToScan() {
+    return packageToScan;
+  }
+
+  void setPackageToScan(List<String> packageToScan) {
+    this.packageToScan = packageToScan == null ? new ArrayList<>() : new ArrayList<>(packageToScan);
+  }
+
+  /**
+   * JPA vendor specific properties, owned by this task.
+   */
+  Map<String, String> getProperties() {
+    return properties;
+  }
+
+  void setProperties(Map<String, String> properties) {
+    this.properties = properties == null ? new HashMap<>() : new HashMap<>(properties);
+  }
+
+  File getFingerprintFile() {
+    return fingerprintFile;
+  }
+
+  void setFingerprintFile(File fingerprintFile) {
+    this.fingerprintFile = fingerprintFile;
+  }
+}
@@ -0,0 +1,427 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.github.divinespear.maven.plugin;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Command-line launcher of schema generation, for built artifacts without maven.
+ * <p>
+ * Options are same as parameters of {@code generate} goal in kebab case, like {@code --script-action
+ * drop-and-create}. Project classpath is given by {@code --classpath}, and generation runs same as {@code generate}
+ * goal in maven JVM. Launcher exits as soon as generation is done, so it can be started with AppCDS archive like forked
+ * worker.
+ *
+ * <pre>
+ * java -cp jpa-schema-maven-plugin.jar:maven-plugin-api.jar:... io.github.divinespear.maven.plugin.JpaSchemaGeneratorCli \
+ *     --classpath app.jar:lib/* --vendor hibernate --script-action drop-and-create --output-directory schema
+ * </pre>
+ */
+public final class JpaSchemaGeneratorCli {
+
+  static final int OK = 0;
+  static final int FAILED = 1;
+  static final int USAGE = 2;
+
+  /* parameters only meaningful in maven */
+  private static final Set<String> EXCLUDED = new HashSet<>(Arrays.asList(
+      "skip", "scanTestClasses", "legacyDependencyResolution", "fork", "forkJvmArgs", "forkJavaExecutable",
+      "reuseForks", "forkCds", "forkCdsDirectory"));
+
+  private JpaSchemaGeneratorCli() {
+  }
+
+  public static void main(String[] args) {
+    System.exit(run(args, System.err));
+  }
+
+  /**
+   * run generation with command-line arguments.
+   *
+   * @return exit code.
+   */
+  static int run(String[] args, PrintStream err) {
+    final JpaSchemaGeneratorMojo mojo;
+    final List<URL> classpath = new ArrayList<>();
+    try {
+      mojo = configure(args, classpath);
+    } catch (IllegalArgumentException e) {
+      err.println("error: " + e.getMessage());
+      err.println();
+      usage(err);
+      return USAGE;
+    }
+    if (mojo == null) {
+      usage(err);
+      return OK;
+    }
+    // stdout is kept for script of stdout sink
+    mojo.setLog(new StreamLog(err));
+    try {
+      final BuildReport report = mojo.executeInWorker(classpath);
+      err.println(report.summary());
+      return OK;
+    } catch (Exception e) {
+      err.println("error: " + e.getMessage());
+      for (Throwable cause = e.getCause(); cause != null && cause != cause.getCause(); cause = cause.getCause()) {
+        err.println("  caused by: " + cause);
+      }
+      return FAILED;
+    }
+  }
+
+  /**
+   * mojo configured by arguments, {@code null} for help.
+   */
+  static JpaSchemaGeneratorMojo configure(String[] args, List<URL> classpath) {
+    final JpaSchemaGeneratorMojo mojo = new JpaSchemaGeneratorMojo();
+    final Map<String, Field> options = options();
+    final Set<Field> given = new HashSet<>();
+    boolean outputDirectory = false;
+    for (int i = 0; i < args.length; i++) {
+      String name = args[i];
+      String value = null;
+      if ("-h".equals(name) || "--help".equals(name)) {
+        return null;
+      }
+      if (!name.startsWith("--") && !"-cp".equals(name)) {
+        throw new IllegalArgumentException("unknown argument " + name);
+      }
+      final int eq = name.indexOf('=');
+      if (eq > 0) {
+        value = name.substring(eq + 1);
+        name = name.substring(0, eq);
+      }
+      name = name.startsWith("--") ? name.substring(2) : name.substring(1);
+      final Field field = "cp".equals(name) || "classpath".equals(name) ? null : options.get(name);
+      if (field == null && !"cp".equals(name) && !"classpath".equals(name)) {
+        throw new IllegalArgumentException("unknown option --" + name);
+      }
+      // boolean option without value is true
+      if (value == null && field != null && isBoolean(field.getType())
+          && (i + 1 >= args.length || args[i + 1].startsWith("-"))) {
+        value = "true";
+      }
+      if (value == null) {
+        if (++i >= args.length) {
+          throw new IllegalArgumentException("value of --" + name + " is missing");
+        }
+        value = args[i];
+      }
+      if (field == null) {
+        addClasspath(classpath, value);
+        continue;
+      }
+      // repeatable option replaces default on first occurrence
+      if (given.add(field)) {
+        clear(mojo, field);
+      }
+      set(mojo, field, value);
+      outputDirectory |= "outputDirectory".equals(field.getName());
+    }
+    if (classpath.isEmpty()) {
+      throw new IllegalArgumentException("--classpath is required");
+    }
+    if (!outputDirectory) {
+      set(mojo, options.get("output-directory"), "generated-schema");
+    }
+    return mojo;
+  }
+
+  /**
+   * configurable fields of mojo by option name.
+   */
+  private static Map<String, Field> options() {
+    final Map<String, Field> options = new TreeMap<>();
+    for (Field field : JpaSchemaGeneratorMojo.class.getDeclaredFields()) {
+      final int modifiers = field.getModifiers();
+      if (Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers) || Modifier.isTransient(modifiers)
+          || EXCLUDED.contains(field.getName()) || !isSupported(field)) {
+        continue;
+      }
+      options.put(toOptionName(field.getName()), field);
+    }
+    return options;
+  }
+
+  static String toOptionName(String fieldName) {
+    final StringBuilder builder = new StringBuilder();
+    for (char c : fieldName.toCharArray()) {
+      if (Character.isUpperCase(c)) {
+        builder.append('-').append(Character.toLowerCase(c));
+      } else {
+        builder.append(c);
+      }
+    }
+    return builder.toString();
+  }
+
+  private static boolean isBoolean(Class<?> type) {
+    return type == boolean.class || type == Boolean.class;
+  }
+
+  private static boolean isSupported(Field field) {
+    final Class<?> type = field.getType();
+    if (type == String.class || type == File.class || isBoolean(type) || type == int.class || type == Integer.class
+        || type == long.class || type == Long.class || type.isEnum()) {
+      return true;
+    }
+    // list of strings and map of strings, complex list like persistence units is not supported
+    final Type generic = field.getGenericType();
+    if ((type == List.class || type == Map.class) && generic instanceof ParameterizedType) {
+      for (Type argument : ((ParameterizedType) generic).getActualTypeArguments()) {
+        if (argument != String.class) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return false;
+  }
+
+  @SuppressWarnings("rawtypes")
+  private static void clear(JpaSchemaGeneratorMojo mojo, Field field) {
+    try {
+      field.setAccessible(true);
+      if (field.getType() == List.class) {
+        field.set(mojo, new ArrayList());
+      } else if (field.getType() == Map.class) {
+        field.set(mojo, new LinkedHashMap());
+      }
+    } catch (IllegalAccessException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private static void set(JpaSchemaGeneratorMojo mojo, Field field, String value) {
+    final Class<?> type = field.getType();
+    final String option = "--" + toOptionName(field.getName());
+    try {
+      field.setAccessible(true);
+      if (type == String.class) {
+        field.set(mojo, value);
+      } else if (type == File.class) {
+        field.set(mojo, new File(value).getAbsoluteFile());
+      } else if (isBoolean(type)) {
+        if (!"true".equalsIgnoreCase(value) && !"false".equalsIgnoreCase(value)) {
+          throw new IllegalArgumentException(option + " must be true or false: " + value);
+        }
+        field.set(mojo, Boolean.valueOf(value));
+      } else if (type == int.class || type == Integer.class) {
+        field.set(mojo, Integer.valueOf(value));
+      } else if (type == long.class || type == Long.class) {
+        field.set(mojo, Long.valueOf(value));
+      } else if (type.isEnum()) {
+        try {
+          field.set(mojo, Enum.valueOf((Class<Enum>) type, value.toLowerCase(Locale.ROOT)));
+        } catch (IllegalArgumentException e) {
+          throw new IllegalArgumentException(option + " must be one of " + Arrays.toString(type.getEnumConstants())
+                                             + ": " + value);
+        }
+      } else if (type == List.class) {
+        // repeatable, and comma separated
+        final List<String> list = (List<String>) field.get(mojo);
+        list.addAll(Arrays.asList(value.trim().split("\\s*,\\s*")));
+      } else if (type == Map.class) {
+        // repeatable, as key=value
+        final int eq = value.indexOf('=');
+        if (eq <= 0) {
+          throw new IllegalArgumentException(option + " must be key=value: " + value);
+        }
+        ((Map<String, String>) field.get(mojo)).put(value.substring(0, eq), value.substring(eq + 1));
+      }
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(option + " must be a number: " + value);
+    } catch (IllegalAccessException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * path separated entries, {@code dir/*} is every jar in directory.
+   */
+  private static void addClasspath(List<URL> classpath, String value) {
+    for (String entry : value.split(File.pathSeparator)) {
+      if (entry.isEmpty()) {
+        continue;
+      }
+      final List<File> files = new ArrayList<>();
+      if (entry.endsWith("/*") || entry.endsWith(File.separator + "*")) {
+        final File[] jars = new File(entry.substring(0, entry.length() - 2))
+            .listFiles((dir, name) -> name.endsWith(".jar"));
+        if (jars == null) {
+          throw new IllegalArgumentException("classpath directory " + entry + " does not exist");
+        }
+        Arrays.sort(jars);
+        files.addAll(Arrays.asList(jars));
+      } else {
+        files.add(new File(entry));
+      }
+      for (File file : files) {
+        if (!file.exists()) {
+          throw new IllegalArgumentException("classpath entry " + file + " does not exist");
+        }
+        try {
+          classpath.add(file.getAbsoluteFile().toURI().toURL());
+        } catch (MalformedURLException e) {
+          throw new IllegalArgumentException("invalid classpath entry " + file);
+        }
+      }
+    }
+  }
+
+  private static void usage(PrintStream out) {
+    out.println("usage: java " + JpaSchemaGeneratorCli.class.getName() + " --classpath <path> [options]");
+    out.println();
+    out.println("  --classpath, -cp <path>  classes and jars of project, 'dir/*' for every jar in directory");
+    out.println("  --help, -h               show this help");
+    out.println();
+    out.println("options are same as parameters of generate goal:");
+    for (Map.Entry<String, Field> option : options().entrySet()) {
+      final Class<?> type = option.getValue().getType();
+      final String value = isBoolean(type) ? "[true|false]"
+          : type == Map.class ? "<key=value>"
+          : type == List.class ? "<value,...>"
+          : type.isEnum() ? "<" + Arrays.toString(type.getEnumConstants()).replaceAll("[\\[\\] ]", "")
+                                           .replace(',', '|') + ">"
+          : "<value>";
+      out.println("  --" + option.getKey() + " " + value);
+    }
+  }
+
+  /**
+   * log of launcher, same format as maven without debug.
+   */
+  private static final class StreamLog implements Log {
+
+    private final PrintStream out;
+
+    StreamLog(PrintStream out) {
+      this.out = out;
+    }
+
+    private void print(String level, CharSequence content, Throwable error) {
+      if (content != null) {
+        this.out.println("[" + level + "] " + content);
+      }
+      if (error != null) {
+        if (content == null) {
+          this.out.println("[" + level + "] " + error);
+        }
+        error.printStackTrace(this.out);
+      }
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+      return false;
+    }
+
+    @Override
+    public void debug(CharSequence content) {
+    }
+
+    @Override
+    public void debug(CharSequence content, Throwable error) {
+    }
+
+    @Override
+    public void debug(Throwable error) {
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+      return true;
+    }
+
+    @Override
+    public void info(CharSequence content) {
+      this.print("info", content, null);
+    }
+
+    @Override
+    public void info(CharSequence content, Throwable error) {
+      this.print("info", content, error);
+    }
+
+    @Override
+    public void info(Throwable error) {
+      this.print("info", null, error);
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+      return true;
+    }
+
+    @Override
+    public void warn(CharSequence content) {
+      this.print("warning", content, null);
+    }
+
+    @Override
+    public void warn(CharSequence content, Throwable error) {
+      this.print("warning", content, error);
+    }
+
+    @Override
+    public void warn(Throwable error) {
+      this.print("warning", null, error);
+    }
+
+    @Override
+    public boolean isErrorEnabled() {
+      return true;
+    }
+
+    @Override
+    public void error(CharSequence content) {
+      this.print("error", content, null);
+    }
+
+    @Override
+    public void error(CharSequence content, Throwable error) {
+      this.print("error", content, error);
+    }
+
+    @Override
+    public void error(Throwable error) {
+      this.print("error", null, error);
+    }
+  }
+}
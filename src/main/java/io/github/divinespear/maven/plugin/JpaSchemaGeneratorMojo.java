@@ -19,27 +19,42 @@
 
 package io.github.divinespear.maven.plugin;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.Serializable;
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.security.CodeSource;
+import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.Driver;
-import java.sql.DriverManager;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 import java.util.Set;
-import java.util.regex.Pattern;
-
-import javax.persistence.Persistence;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.PersistenceException;
 import javax.persistence.spi.PersistenceProvider;
+import javax.persistence.spi.PersistenceProviderResolverHolder;
+import javax.persistence.spi.PersistenceUnitInfo;
 
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.artifact.repository.ArtifactRepository;
@@ -49,14 +64,15 @@ import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
-import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.repository.RepositorySystem;
 import org.codehaus.plexus.util.StringUtils;
+import org.codehaus.plexus.util.cli.CommandLineUtils;
 import org.eclipse.persistence.config.PersistenceUnitProperties;
 import org.hibernate.tool.hbm2ddl.SchemaExport;
 import org.springframework.orm.jpa.persistenceunit.DefaultPersistenceUnitManager;
@@ -67,12 +83,11 @@ import org.springframework.orm.jpa.persistenceunit.SmartPersistenceUnitInfo;
  * 
  * @author divinespear
  */
-@Mojo(name = "generate", defaultPhase = LifecyclePhase.PROCESS_CLASSES)
+@Mojo(name = "generate", defaultPhase = LifecyclePhase.PROCESS_CLASSES,
+      requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME, threadSafe = true)
 public class JpaSchemaGeneratorMojo
         extends AbstractMojo {
 
-    private final Log log = this.getLog();
-
     @Parameter(defaultValue = "${session}", readonly = true)
     private MavenSession session;
 
@@ -102,6 +117,35 @@ public class JpaSchemaGeneratorMojo
         return format;
     }
 
+    /**
+     * write each script as one file per table, with its indexes, sequences and constraints, instead of single file.
+     * <p>
+     * shards are written into directory named after output file without extension, with {@code manifest.sha256}
+     * listing shards in order to apply. only changed shards are rewritten. incremental generation and cache are not
+     * used for sharded scripts.
+     */
+    @Parameter(property = "jpa-schema.generate.shard-by-table", required = true, defaultValue = "false")
+    private boolean shardByTable = false;
+
+    public boolean isShardByTable() {
+        return shardByTable;
+    }
+
+    /**
+     * destinations of scripts, any of {@code file}, {@code gzip}, {@code stdout} and {@code jdbc}.
+     * <p>
+     * {@code file} writes output files (or shards), {@code gzip} writes output files compressed with {@code .gz}
+     * extension, {@code stdout} prints scripts for piping into database client, and {@code jdbc} executes statements
+     * on {@code jdbcUrl} while generating. {@code stdout} is not supported in {@code fork} mode, and incremental
+     * generation and cache are only used for {@code file}.
+     */
+    @Parameter(property = "jpa-schema.generate.sinks", defaultValue = "file")
+    private List<String> sinks = new ArrayList<>(Collections.singletonList(ScriptSinks.FILE));
+
+    public List<String> getSinks() {
+        return sinks;
+    }
+
     /**
      * scan test classes
      */
@@ -375,12 +419,14 @@ public class JpaSchemaGeneratorMojo
     @Parameter
     private String lineSeparator = System.getProperty("line.separator", "\n");
 
-    private static final Map<String, String> LINE_SEPARATOR_MAP = new HashMap<>();
+    private static final Map<String, String> LINE_SEPARATOR_MAP;
 
     static {
-        LINE_SEPARATOR_MAP.put("CR", "\r");
-        LINE_SEPARATOR_MAP.put("LF", "\n");
-        LINE_SEPARATOR_MAP.put("CRLF", "\r\n");
+        Map<String, String> map = new HashMap<>();
+        map.put("CR", "\r");
+        map.put("LF", "\n");
+        map.put("CRLF", "\r\n");
+        LINE_SEPARATOR_MAP = Collections.unmodifiableMap(map);
     }
 
     public String getLineSeparator() {
@@ -418,20 +464,26 @@ public class JpaSchemaGeneratorMojo
     @Parameter
     private Vendor vendor;
 
-    private static final Map<Vendor, String> PROVIDER_MAP = new HashMap<>();
+    private static final Map<Vendor, String> PROVIDER_MAP;
 
     static {
-        PROVIDER_MAP.put(Vendor.eclipselink, "org.eclipse.persistence.jpa.PersistenceProvider");
-        PROVIDER_MAP.put(Vendor.hibernate, "org.hibernate.jpa.HibernatePersistenceProvider");
-        // PROVIDER_MAP.put(Vendor.datanucleus, "org.datanucleus.api.jpa.PersistenceProviderImpl");
+        Map<Vendor, String> map = new HashMap<>();
+        map.put(Vendor.eclipselink, "org.eclipse.persistence.jpa.PersistenceProvider");
+        map.put(Vendor.hibernate, "org.hibernate.jpa.HibernatePersistenceProvider");
+        // map.put(Vendor.datanucleus, "org.datanucleus.api.jpa.PersistenceProviderImpl");
+        PROVIDER_MAP = Collections.unmodifiableMap(map);
     }
 
     public Vendor getVendor() {
         return vendor;
     }
 
-    @SuppressWarnings("unchecked")
     public Class<? extends PersistenceProvider> getProviderClass() {
+        return getProviderClass(this.vendor);
+    }
+
+    @SuppressWarnings("unchecked")
+    static Class<? extends PersistenceProvider> getProviderClass(Vendor vendor) {
         String vendorClassName = PROVIDER_MAP.get(vendor);
         try {
             return (Class<PersistenceProvider>) Class.forName(vendorClassName);
@@ -452,76 +504,434 @@ public class JpaSchemaGeneratorMojo
         return packageToScan;
     }
 
-    private static final URL[] EMPTY_URLS = new URL[0];
+    /**
+     * skip generation when entity classes, {@code persistence.xml}, configuration and dependencies are not changed
+     * since last generation, and generated scripts are still present.
+     * <p>
+     * only works for script-only action. database action always runs.
+     */
+    @Parameter(property = "jpa-schema.generate.incremental", required = true, defaultValue = "false")
+    private boolean incremental = false;
 
-    private ClassLoader getProjectClassLoader() throws MojoExecutionException {
-        try {
-            // compiled classes
-            List<String> classfiles = this.project.getCompileClasspathElements();
-            if (this.scanTestClasses) {
-                classfiles.addAll(this.project.getTestClasspathElements());
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * manifest file for store fingerprint of last generation on {@link #incremental} mode.
+     */
+    @Parameter(defaultValue = "${project.build.directory}/jpa-schema/fingerprint.properties")
+    private File fingerprintFile;
+
+    public File getFingerprintFile() {
+        return fingerprintFile;
+    }
+
+    /**
+     * use machine-wide cache of generated scripts.
+     * <p>
+     * cache is keyed by fingerprint of entity classes, persistence unit configuration, vendor, dialect and provider
+     * version, so it can be shared between checkouts and projects. only works for script-only action.
+     */
+    @Parameter(property = "jpa-schema.generate.cache", required = true, defaultValue = "false")
+    private boolean cache = false;
+
+    public boolean isCache() {
+        return cache;
+    }
+
+    /**
+     * directory of script cache.
+     */
+    @Parameter(property = "jpa-schema.generate.cache-directory",
+               defaultValue = "${settings.localRepository}/.cache/jpa-schema-maven-plugin")
+    private File cacheDirectory;
+
+    public File getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    /**
+     * max size of script cache in megabytes. least recently used scripts are evicted when cache is over this size.
+     */
+    @Parameter(property = "jpa-schema.generate.cache-max-size", defaultValue = "256")
+    private long cacheMaxSize = 256;
+
+    public long getCacheMaxSize() {
+        return cacheMaxSize;
+    }
+
+    /**
+     * resolve each dependency artifact by plugin itself, instead of using dependencies already resolved by Maven.
+     * <p>
+     * this is slow, and only for fallback of 0.3.x behavior.
+     */
+    @Parameter(property = "jpa-schema.generate.legacy-dependency-resolution", defaultValue = "false")
+    private boolean legacyDependencyResolution = false;
+
+    public boolean isLegacyDependencyResolution() {
+        return legacyDependencyResolution;
+    }
+
+    /**
+     * persistence units to generate in single execution.
+     * <p>
+     * each unit can override outputs, {@code packageToScan} and {@code properties}, and outputs are written under
+     * {@code outputDirectory/<name>} by default. if empty, only {@link #persistenceUnitName} is generated.
+     */
+    @Parameter
+    private List<PersistenceUnit> persistenceUnits = new ArrayList<>();
+
+    public List<PersistenceUnit> getPersistenceUnits() {
+        return persistenceUnits;
+    }
+
+    /**
+     * max number of threads for generating multiple persistence units concurrently.
+     * <p>
+     * {@code 0} means number of available processors.
+     */
+    @Parameter(property = "jpa-schema.generate.threads", defaultValue = "0")
+    private int threads = 0;
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * target databases to generate scripts for, from single scan of entity model.
+     * <p>
+     * each target can override database emulation options, dialect and outputs, and outputs are written under
+     * {@code outputDirectory/<name>} by default. if empty, only {@link #databaseProductName} is generated.
+     */
+    @Parameter
+    private List<Target> targets = new ArrayList<>();
+
+    public List<Target> getTargets() {
+        return targets;
+    }
+
+    /**
+     * entity index built by {@code index} goal, used instead of scanning {@link #packageToScan}.
+     * <p>
+     * missing or stale index is ignored, and packages are scanned as usual.
+     */
+    @Parameter(property = "jpa-schema.generate.entity-index-file",
+               defaultValue = "${project.build.directory}/jpa-schema/entity-index.properties")
+    private File entityIndexFile;
+
+    public File getEntityIndexFile() {
+        return entityIndexFile;
+    }
+
+    private transient EntityIndex entityIndex;
+
+    /**
+     * file name of JSON build report written in {@link #outputDirectory}, with wall-clock and CPU time of each phase.
+     * <p>
+     * empty value disables report file, summary is still logged.
+     */
+    @Parameter(property = "jpa-schema.generate.report-file-name", defaultValue = "jpa-schema-report.json")
+    private String reportFileName = "jpa-schema-report.json";
+
+    public String getReportFileName() {
+        return reportFileName;
+    }
+
+    private transient BuildReport report;
+
+    /**
+     * write memory and class loading profile of generation to {@code jpa-schema-profile.json} in
+     * {@link #outputDirectory}, with peak heap, allocated bytes, metaspace growth, loaded classes and GC pauses.
+     * <p>
+     * JFR recording of generation is also written to {@code jpa-schema-profile.jfr} if JDK supports it. heap and GC are
+     * JVM wide, so profile of parallel build includes other modules generating at the same time.
+     */
+    @Parameter(property = "jpa-schema.generate.profile", defaultValue = "false")
+    private boolean profile = false;
+
+    public boolean isProfile() {
+        return profile;
+    }
+
+    private transient MemoryProfile memoryProfile;
+
+    /**
+     * reuse provider bootstrap of previous execution in same JVM, like maven daemon.
+     * <p>
+     * classloader of dependency jars and discovered persistence providers are reused while dependency jars, plugin and
+     * {@link #properties} are not changed. project classes are always loaded again.
+     */
+    @Parameter(property = "jpa-schema.generate.warm-cache", defaultValue = "false")
+    private boolean warmCache = false;
+
+    public boolean isWarmCache() {
+        return warmCache;
+    }
+
+    private transient BootstrapCache.Bootstrap bootstrap;
+
+    private transient Driver driver;
+
+    private transient SchemaCache schemaCache;
+
+    /**
+     * reuse classloader of dependency jars in same JVM, while same jars are used.
+     * <p>
+     * only project classes are loaded again for each execution and persistence unit.
+     */
+    @Parameter(property = "jpa-schema.generate.reuse-dependency-classloader", defaultValue = "true")
+    private boolean reuseDependencyClassLoader = true;
+
+    public boolean isReuseDependencyClassLoader() {
+        return reuseDependencyClassLoader;
+    }
+
+    /**
+     * run generation in separate JVM, with {@link #forkJvmArgs}.
+     * <p>
+     * worker JVM is kept and reused by following modules of same build while its command line is same, see
+     * {@link #reuseForks}. logs of worker are streamed to build log.
+     */
+    @Parameter(property = "jpa-schema.generate.fork", defaultValue = "false")
+    private boolean fork = false;
+
+    public boolean isFork() {
+        return fork;
+    }
+
+    /**
+     * JVM options of forked worker, like {@code -Xmx1g -XX:+UseParallelGC}.
+     */
+    @Parameter(property = "jpa-schema.generate.fork-jvm-args")
+    private String forkJvmArgs;
+
+    public String getForkJvmArgs() {
+        return forkJvmArgs;
+    }
+
+    /**
+     * java executable of forked worker.
+     * <p>
+     * default is java of JVM running maven.
+     */
+    @Parameter(property = "jpa-schema.generate.fork-java-executable")
+    private String forkJavaExecutable;
+
+    public String getForkJavaExecutable() {
+        return forkJavaExecutable;
+    }
+
+    /**
+     * keep forked worker for following modules, instead of stopping it after each execution.
+     */
+    @Parameter(property = "jpa-schema.generate.reuse-forks", defaultValue = "true")
+    private boolean reuseForks = true;
+
+    public boolean isReuseForks() {
+        return reuseForks;
+    }
+
+    /**
+     * start forked worker with AppCDS archive of plugin and providers, requires JDK 13 or later.
+     * <p>
+     * archive is dumped by first worker when it exits, and used by following workers of same java, {@link #forkJvmArgs}
+     * and plugin classpath.
+     */
+    @Parameter(property = "jpa-schema.generate.fork-cds", defaultValue = "false")
+    private boolean forkCds = false;
+
+    public boolean isForkCds() {
+        return forkCds;
+    }
+
+    /**
+     * directory of AppCDS archives, shared by every project on the machine.
+     */
+    @Parameter(property = "jpa-schema.generate.fork-cds-directory",
+               defaultValue = "${settings.localRepository}/.cache/jpa-schema-maven-plugin-cds")
+    private File forkCdsDirectory;
+
+    public File getForkCdsDirectory() {
+        return forkCdsDirectory;
+    }
+
+    private BootstrapCache.Bootstrap getBootstrap(List<URL> dependencyURLs) {
+        final ClassLoader parent = this.getClass().getClassLoader();
+        if (!this.warmCache) {
+            final ClassLoaderLayers.DependencyLayer layer =
+                    this.reuseDependencyClassLoader ? ClassLoaderLayers.dependencyLayer(dependencyURLs, parent)
+                                                    : ClassLoaderLayers.isolatedDependencyLayer(dependencyURLs, parent);
+            if (layer.getReuses() > 0) {
+                this.getLog().debug("classloader of dependencies is reused.");
             }
-            // classpath to url
-            List<URL> classURLs = new ArrayList<>(classfiles.size());
-            for (String classfile : classfiles) {
-                classURLs.add(new File(classfile).toURI().toURL());
+            return BootstrapCache.create(layer);
+        }
+        final Map<String, Object> effective = new HashMap<>();
+        if (this.properties != null) {
+            effective.putAll(this.properties);
+        }
+        effective.put("vendor", this.vendor);
+        effective.put("jdbcDriver", this.jdbcDriver);
+        final String key = BootstrapCache.key(dependencyURLs, parent, effective);
+        final BootstrapCache.Bootstrap cached = BootstrapCache.get(key, dependencyURLs, parent);
+        if (cached.getHits() > 0) {
+            this.getLog().info("provider bootstrap is reused from warm cache.");
+            this.report.add("warm-cache-hits", 1);
+        }
+        return cached;
+    }
+
+    /**
+     * persistence providers of thread context classloader.
+     */
+    private List<PersistenceProvider> getPersistenceProviders() {
+        List<PersistenceProvider> providers = this.bootstrap == null ? null : this.bootstrap.getProviders();
+        if (providers != null) {
+            return providers;
+        }
+        // resolver is not thread-safe
+        synchronized (PROVIDER_RESOLVER_LOCK) {
+            providers = new ArrayList<>(PersistenceProviderResolverHolder.getPersistenceProviderResolver()
+                                                                         .getPersistenceProviders());
+        }
+        if (this.warmCache && this.bootstrap != null) {
+            this.bootstrap.setProviders(providers);
+        }
+        return providers;
+    }
+
+    private MemoryProfile.Scope profileScope() {
+        return this.memoryProfile == null ? null : this.memoryProfile.enter();
+    }
+
+    private List<URL> getProjectClasspath() throws MojoExecutionException {
+        try {
+            final long started = System.nanoTime();
+            Set<URL> classURLs;
+            try (BuildReport.Timer timer = this.report.time("classpath")) {
+                // compiled classes
+                List<String> classfiles = this.project.getCompileClasspathElements();
+                if (this.scanTestClasses) {
+                    classfiles.addAll(this.project.getTestClasspathElements());
+                }
+                // classpath to url
+                classURLs = new LinkedHashSet<>(classfiles.size());
+                for (String classfile : classfiles) {
+                    classURLs.add(new File(classfile).toURI().toURL());
+                }
             }
 
             // dependency artifacts to url
-            ArtifactResolutionRequest sharedreq = new ArtifactResolutionRequest().setResolveRoot(true)
-                                                                                 .setResolveTransitively(true)
-                                                                                 .setLocalRepository(this.session.getLocalRepository())
-                                                                                 .setRemoteRepositories(this.project.getRemoteArtifactRepositories());
-
-            ArtifactRepository repository = this.session.getLocalRepository();
-            Set<Artifact> artifacts = this.project.getDependencyArtifacts();
-            for (Artifact artifact : artifacts) {
-                if (!Artifact.SCOPE_TEST.equalsIgnoreCase(artifact.getScope())) {
-                    ArtifactResolutionRequest request = new ArtifactResolutionRequest(sharedreq).setArtifact(artifact);
-                    ArtifactResolutionResult result = this.repositorySystem.resolve(request);
-                    if (result.isSuccess()) {
-                        File file = repository.find(artifact).getFile();
-                        if (file != null && file.isFile() && file.canRead()) {
-                            classURLs.add(file.toURI().toURL());
-                        }
-                    }
+            try (BuildReport.Timer timer = this.report.time("dependency-resolution")) {
+                if (this.legacyDependencyResolution) {
+                    this.addLegacyDependencyArtifacts(classURLs);
+                } else {
+                    this.addDependencyArtifacts(classURLs);
                 }
             }
+            this.getLog().debug(String.format("classpath is built in %d ms.",
+                                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)));
 
             for (URL url : classURLs) {
-                this.log.info("  * classpath: " + url);
+                this.getLog().info("  * classpath: " + url);
             }
 
-            return new URLClassLoader(classURLs.toArray(EMPTY_URLS), this.getClass().getClassLoader());
+            return new ArrayList<>(classURLs);
         } catch (Exception e) {
-            this.log.error(e);
+            this.getLog().error(e);
             throw new MojoExecutionException("Error while creating classloader", e);
         }
     }
 
-    private void generate() throws Exception {
-        Map<String, Object> map = JpaSchemaGeneratorUtils.buildProperties(this);
-        if (getVendor() == null) {
-            // with persistence.xml
-            Persistence.generateSchema(this.persistenceUnitName, map);
+    private void addDependencyArtifacts(Set<URL> classURLs) throws MalformedURLException {
+        int count = 0;
+        for (Artifact artifact : this.project.getArtifacts()) {
+            if (!Artifact.SCOPE_TEST.equalsIgnoreCase(artifact.getScope())) {
+                File file = artifact.getFile();
+                if (file != null && file.isFile() && file.canRead()) {
+                    classURLs.add(file.toURI().toURL());
+                    count++;
+                }
+            }
+        }
+        // legacy path issues one transitive resolve request and one repository lookup per direct dependency
+        int avoided = 0;
+        for (Artifact artifact : this.project.getDependencyArtifacts()) {
+            if (!Artifact.SCOPE_TEST.equalsIgnoreCase(artifact.getScope())) {
+                avoided++;
+            }
+        }
+        this.getLog().debug(String.format("%d artifact(s) reused from project dependency resolution, "
+                                + "%d resolve request(s) and %d repository lookup(s) avoided.",
+                                count, avoided, avoided));
+    }
+
+    private void addLegacyDependencyArtifacts(Set<URL> classURLs) throws MalformedURLException {
+        ArtifactResolutionRequest sharedreq = new ArtifactResolutionRequest().setResolveRoot(true)
+                                                                             .setResolveTransitively(true)
+                                                                             .setLocalRepository(this.session.getLocalRepository())
+                                                                             .setRemoteRepositories(this.project.getRemoteArtifactRepositories());
+
+        ArtifactRepository repository = this.session.getLocalRepository();
+        Set<Artifact> artifacts = this.project.getDependencyArtifacts();
+        for (Artifact artifact : artifacts) {
+            if (!Artifact.SCOPE_TEST.equalsIgnoreCase(artifact.getScope())) {
+                ArtifactResolutionRequest request = new ArtifactResolutionRequest(sharedreq).setArtifact(artifact);
+                ArtifactResolutionResult result = this.repositorySystem.resolve(request);
+                if (result.isSuccess()) {
+                    File file = repository.find(artifact).getFile();
+                    if (file != null && file.isFile() && file.canRead()) {
+                        classURLs.add(file.toURI().toURL());
+                    }
+                }
+            }
+        }
+    }
+
+    private static final Object PROVIDER_RESOLVER_LOCK = new Object();
+
+    /* providers not capable of parallel generation, shared by every build of JVM */
+    private static final Object SERIAL_PROVIDER_LOCK = new Object();
+
+    private static boolean generateSchema(PersistenceProvider provider,
+                                          String persistenceUnitName,
+                                          Map<String, Object> map) {
+        if (isParallelCapable(provider.getClass())) {
+            return provider.generateSchema(persistenceUnitName, map);
         } else {
-            PersistenceProvider provider = getProviderClass().newInstance();
-            List<String> packages = getPackageToScan();
-            if (packages.isEmpty()) {
-                throw new IllegalArgumentException("packageToScan is required on xml-less mode.");
+            synchronized (SERIAL_PROVIDER_LOCK) {
+                return provider.generateSchema(persistenceUnitName, map);
             }
+        }
+    }
 
-            DefaultPersistenceUnitManager manager = new DefaultPersistenceUnitManager();
-            manager.setDefaultPersistenceUnitName(getPersistenceUnitName());
-            manager.setPackagesToScan(packages.toArray(new String[packages.size()]));
-            // issue #22
-            Field persistenceXmlLocations = manager.getClass().getDeclaredField("persistenceXmlLocations");
-            persistenceXmlLocations.setAccessible(true);
-            persistenceXmlLocations.set(manager, new String[0]);
-            manager.afterPropertiesSet();
+    private static void generateSchema(PersistenceProvider provider,
+                                       PersistenceUnitInfo info,
+                                       Map<String, Object> map) {
+        if (isParallelCapable(provider.getClass())) {
+            provider.generateSchema(info, map);
+        } else {
+            synchronized (SERIAL_PROVIDER_LOCK) {
+                provider.generateSchema(info, map);
+            }
+        }
+    }
 
-            SmartPersistenceUnitInfo info = (SmartPersistenceUnitInfo) manager.obtainDefaultPersistenceUnitInfo();
-            info.setPersistenceProviderPackageName(provider.getClass().getName());
+    private void generate(GenerationTask task,
+                          Map<String, Object> map) throws Exception {
+        if (task.getVendor() == null) {
+            // with persistence.xml, same as Persistence.generateSchema()
+            for (PersistenceProvider provider : this.getPersistenceProviders()) {
+                if (generateSchema(provider, task.getPersistenceUnitName(), map)) {
+                    return;
+                }
+            }
+            throw new PersistenceException("No Persistence provider to generate schema named "
+                                           + task.getPersistenceUnitName());
+        } else {
+            PersistenceProvider provider = getProviderClass(task.getVendor()).newInstance();
+            PersistenceUnitInfo info = this.scan(task);
             info.getProperties().putAll(map);
 
             // Path persistenceXml = null;
@@ -553,7 +963,7 @@ public class JpaSchemaGeneratorMojo
             /* @formatter:on */
 
             try {
-                provider.generateSchema(info, map);
+                generateSchema(provider, info, map);
             } finally {
                 // if (persistenceXml != null) {
                 // Files.delete(persistenceXml);
@@ -562,168 +972,925 @@ public class JpaSchemaGeneratorMojo
         }
     }
 
-    private static final Pattern CREATE_DROP_PATTERN = Pattern.compile("((?:create|drop|alter)\\s+(?:table|view|sequence))",
-                                                                       Pattern.CASE_INSENSITIVE);
+    /**
+     * generate every target of same persistence unit with single scanned persistence unit.
+     */
+    private void generate(Map<GenerationTask, Map<String, Object>> targets,
+                          ClassLoader classLoader) throws Exception {
+        final GenerationTask first = targets.keySet().iterator().next();
+        final PersistenceUnitInfo info = this.scan(first);
+        final Class<? extends PersistenceProvider> providerClass = getProviderClass(first, info, classLoader);
+        if (targets.size() == 1 || !isParallelCapable(providerClass)) {
+            for (Map.Entry<GenerationTask, Map<String, Object>> target : targets.entrySet()) {
+                generateSchema(providerClass.newInstance(), PersistenceUnitInfoView.create(info, target.getValue()),
+                               target.getValue());
+            }
+            return;
+        }
+
+        final List<String> names = new ArrayList<>(targets.size());
+        final List<Callable<Void>> jobs = new ArrayList<>(targets.size());
+        for (Map.Entry<GenerationTask, Map<String, Object>> target : targets.entrySet()) {
+            names.add("target " + target.getKey().getName());
+            jobs.add(() -> {
+                Thread thread = Thread.currentThread();
+                ClassLoader currentClassLoader = thread.getContextClassLoader();
+                try (MemoryProfile.Scope scope = this.profileScope()) {
+                    thread.setContextClassLoader(classLoader);
+                    providerClass.newInstance().generateSchema(PersistenceUnitInfoView.create(info, target.getValue()),
+                                                               target.getValue());
+                } finally {
+                    thread.setContextClassLoader(currentClassLoader);
+                }
+                return null;
+            });
+        }
+        this.runConcurrently(names, jobs);
+    }
+
+    private PersistenceUnitInfo scan(GenerationTask task) throws Exception {
+        DefaultPersistenceUnitManager manager = new DefaultPersistenceUnitManager();
+        manager.setDefaultPersistenceUnitName(task.getPersistenceUnitName());
+        if (task.getVendor() == null) {
+            manager.setPersistenceXmlLocation("classpath*:" + task.getPersistenceXml());
+            manager.afterPropertiesSet();
+            PersistenceUnitInfo info = manager.obtainPersistenceUnitInfo(task.getPersistenceUnitName());
+            if (info == null) {
+                throw new PersistenceException("No persistence unit named " + task.getPersistenceUnitName());
+            }
+            this.report.add("scanned-classes", info.getManagedClassNames().size());
+            return info;
+        }
 
-    private void postProcess() throws IOException {
-        final String linesep = this.getLineSeparator();
+        List<String> packages = task.getPackageToScan();
+        if (packages.isEmpty()) {
+            throw new IllegalArgumentException("packageToScan is required on xml-less mode.");
+        }
+        if (this.entityIndex != null && this.entityIndex.covers(packages, Thread.currentThread().getContextClassLoader())) {
+            // default unit without scanning, filled from index. no mapping resources given, so META-INF/orm.xml is
+            // still detected same as scanning.
+            final List<String> classNames = this.entityIndex.getManagedClassNames(packages);
+            final List<String> packageNames = this.entityIndex.getManagedPackages(packages);
+            manager.setPackagesToScan(new String[0]);
+            manager.setPersistenceUnitPostProcessors(pui -> {
+                classNames.forEach(pui::addManagedClassName);
+                packageNames.forEach(pui::addManagedPackage);
+            });
+            this.getLog().debug(String.format("%d managed class(es) of %s from entity index.", classNames.size(), packages));
+        } else {
+            manager.setPackagesToScan(packages.toArray(new String[packages.size()]));
+        }
+        // issue #22
+        Field persistenceXmlLocations = manager.getClass().getDeclaredField("persistenceXmlLocations");
+        persistenceXmlLocations.setAccessible(true);
+        persistenceXmlLocations.set(manager, new String[0]);
+        manager.afterPropertiesSet();
+
+        SmartPersistenceUnitInfo info = (SmartPersistenceUnitInfo) manager.obtainDefaultPersistenceUnitInfo();
+        info.setPersistenceProviderPackageName(getProviderClass(task.getVendor()).getName());
+        this.report.add("scanned-classes", info.getManagedClassNames().size());
+        return info;
+    }
 
-        List<File> files = Arrays.asList(this.getCreateOutputFile(), this.getDropOutputFile());
-        for (File file : files) {
-            // check file exists
-            if (file == null || !file.exists()) {
+    private Class<? extends PersistenceProvider> getProviderClass(GenerationTask task,
+                                                                  PersistenceUnitInfo info,
+                                                                  ClassLoader classLoader) throws ClassNotFoundException {
+        if (task.getVendor() != null) {
+            return getProviderClass(task.getVendor());
+        }
+        String providerClassName = info.getPersistenceProviderClassName();
+        if (StringUtils.isEmpty(providerClassName)) {
+            for (PersistenceProvider provider : this.getPersistenceProviders()) {
+                return provider.getClass();
+            }
+            throw new PersistenceException("No Persistence provider to generate schema named "
+                                           + task.getPersistenceUnitName());
+        }
+        return Class.forName(providerClassName, true, classLoader).asSubclass(PersistenceProvider.class);
+    }
+
+    /**
+     * EclipseLink registers session by persistence unit name in static registry, so passes of same unit must not be
+     * overlapped, even by another build of same JVM.
+     */
+    private static boolean isParallelCapable(Class<? extends PersistenceProvider> providerClass) {
+        return providerClass.getName().startsWith("org.hibernate.");
+    }
+
+    /**
+     * wait post-processing of scripts, which is started while generating, and finish their sinks.
+     */
+    private void postProcess(Map<String, Object> map) throws IOException {
+        for (String key : Arrays.asList(Constants.JAVAX_SCHEMA_GENERATION_SCRIPTS_CREATE_TARGET,
+                                        Constants.JAVAX_SCHEMA_GENERATION_SCRIPTS_DROP_TARGET)) {
+            final Object target = map.get(key);
+            // check provider has written script
+            if (!(target instanceof ScriptPipe) || !((ScriptPipe) target).isStarted()) {
                 continue;
             }
-            File tempFile = File.createTempFile("script", null, this.getOutputDirectory());
-            // read/write with eol
-            try (BufferedReader reader = new BufferedReader(new FileReader(file));
-                 PrintWriter writer = new PrintWriter(tempFile)) {
-                String line = null;
-                while ((line = reader.readLine()) != null) {
-                    line = CREATE_DROP_PATTERN.matcher(line).replaceAll(";$1");
-                    for (String s : line.split(";")) {
-                        if (StringUtils.isBlank(s)) {
-                            continue;
-                        }
-                        s = s.trim();
-                        writer.print((this.isFormat() ? format(s) : s).replaceAll("\r\n", linesep));
-                        writer.print(";");
-                        writer.print(linesep);
-                        writer.print(this.isFormat() ? linesep : "");
-                    }
+            final ScriptPipe pipe = (ScriptPipe) target;
+            pipe.finish();
+            this.report.add("statements", pipe.getStatements());
+        }
+    }
+
+    /**
+     * stop post-processing of scripts which will never be finished.
+     */
+    private static void abortPostProcess(Map<GenerationTask, Map<String, Object>> pending) {
+        for (Map<String, Object> map : pending.values()) {
+            for (Object target : map.values()) {
+                if (target instanceof ScriptPipe) {
+                    ((ScriptPipe) target).abort();
                 }
-                writer.flush();
-            } finally {
-                file.delete();
-                tempFile.renameTo(file);
             }
         }
+    }
 
+    String format(String s) {
+        return DdlFormatter.format(s, this.getLineSeparator());
     }
 
-    private static final Pattern PATTERN_CREATE_TABLE = Pattern.compile("(?i)^create(\\s+\\S+)?\\s+(?:table|view)"),
-            PATTERN_CREATE_INDEX = Pattern.compile("(?i)^create(\\s+\\S+)?\\s+index"),
-            PATTERN_ALTER_TABLE = Pattern.compile("(?i)^alter\\s+table");
+    GenerationTask createTask() {
+        GenerationTask task = new GenerationTask();
+        task.setPersistenceXml(this.persistenceXml);
+        task.setPersistenceUnitName(this.persistenceUnitName);
+        task.setDatabaseAction(this.databaseAction);
+        task.setScriptAction(this.scriptAction);
+        task.setOutputDirectory(this.outputDirectory);
+        task.setCreateOutputFileName(this.createOutputFileName);
+        task.setDropOutputFileName(this.dropOutputFileName);
+        task.setCreateSourceMode(this.createSourceMode);
+        task.setCreateSourceFile(this.createSourceFile);
+        task.setDropSourceMode(this.dropSourceMode);
+        task.setDropSourceFile(this.dropSourceFile);
+        task.setJdbcDriver(this.jdbcDriver);
+        task.setJdbcUrl(this.jdbcUrl);
+        task.setJdbcUser(this.jdbcUser);
+        task.setJdbcPassword(this.jdbcPassword);
+        task.setDatabaseProductName(this.databaseProductName);
+        task.setDatabaseMajorVersion(this.databaseMajorVersion);
+        task.setDatabaseMinorVersion(this.databaseMinorVersion);
+        task.setLineSeparator(this.getLineSeparator());
+        task.setFormat(this.format);
+        task.setShardByTable(this.shardByTable);
+        task.setSinks(this.sinks);
+        task.setVendor(this.vendor);
+        task.setPackageToScan(this.packageToScan);
+        task.setProperties(this.properties);
+        task.setFingerprintFile(this.fingerprintFile);
+        return task;
+    }
 
-    String format(String s) {
-        final String linesep = this.getLineSeparator();
-
-        s = s.replaceAll("^([^(]+\\()", "$1\r\n\t")
-             .replaceAll("\\)[^()]*$", "\r\n$0")
-             .replaceAll("((?:[^(),\\s]+|\\S\\([^)]+\\)[^),]*),)\\s*", "$1\r\n\t");
-        StringBuilder builder = new StringBuilder();
-        boolean completed = true;
-        if (PATTERN_CREATE_TABLE.matcher(s).find()) {
-            for (String it : s.split("\r\n")) {
-                if (it.matches("^\\S.*$")) {
-                    if (!completed) {
-                        builder.append(linesep);
-                        completed = true;
-                    }
-                    builder.append(it).append(linesep);
-                } else if (completed) {
-                    if (it.matches("^\\s*[^(]+(?:[^(),\\s]+|\\S\\([^)]+\\)[^),]*),\\s*$")) {
-                        builder.append(it).append(linesep);
-                    } else {
-                        builder.append(it);
-                        completed = false;
-                    }
-                } else {
-                    builder.append(it.trim());
-                    if (it.matches("[^)]+\\).*$")) {
-                        builder.append(linesep);
-                        completed = true;
+    /**
+     * tasks grouped by persistence unit, every task of group is a target of the unit.
+     */
+    private List<List<GenerationTask>> createTasks() throws MojoExecutionException {
+        final GenerationTask base = this.createTask();
+        final List<GenerationTask> units = new ArrayList<>();
+        if (this.persistenceUnits == null || this.persistenceUnits.isEmpty()) {
+            units.add(base);
+        } else {
+            for (PersistenceUnit unit : this.persistenceUnits) {
+                try {
+                    units.add(base.forUnit(unit));
+                } catch (IllegalArgumentException e) {
+                    throw new MojoExecutionException(e.getMessage(), e);
+                }
+            }
+        }
+
+        final List<List<GenerationTask>> groups = new ArrayList<>(units.size());
+        final Set<File> outputs = new HashSet<>();
+        for (GenerationTask unit : units) {
+            final List<GenerationTask> group = new ArrayList<>();
+            if (this.targets == null || this.targets.isEmpty()) {
+                group.add(unit);
+            } else {
+                for (Target target : this.targets) {
+                    try {
+                        group.add(unit.forTarget(target));
+                    } catch (IllegalArgumentException e) {
+                        throw new MojoExecutionException(e.getMessage(), e);
                     }
                 }
             }
-        } else if (PATTERN_CREATE_INDEX.matcher(s).find()) {
-            for (String it : s.replaceAll("(?i)^(create(\\s+\\S+)?\\s+index\\s+\\S+)\\s*", "$1\r\n\t").split("\r\n")) {
-                if (builder.length() == 0) {
-                    builder.append(it).append(linesep);
-                } else if (completed) {
-                    if (it.matches("^\\s*[^(]+(?:[^(),\\s]+|\\S\\([^)]+\\)[^),]*),\\s*$")) {
-                        builder.append(it).append(linesep);
-                    } else {
-                        builder.append(it);
-                        completed = false;
+            for (GenerationTask task : group) {
+                final List<String> names = ScriptSinks.namesOf(task);
+                for (String name : names) {
+                    if (!ScriptSinks.NAMES.contains(name)) {
+                        throw new MojoExecutionException("unknown sink " + name + " of " + task.getName()
+                                                         + ", expected one of " + ScriptSinks.NAMES);
                     }
-                } else {
-                    builder.append(it.trim());
-                    if (it.matches("[^)]+\\).*$")) {
-                        builder.append(linesep);
-                        completed = true;
+                }
+                if (names.contains(ScriptSinks.JDBC) && StringUtils.isBlank(task.getJdbcUrl())) {
+                    throw new MojoExecutionException("jdbcUrl is required for jdbc sink.");
+                }
+                final List<File> files = task.isShardByTable()
+                    ? Arrays.asList(task.getCreateShardDirectory(), task.getDropShardDirectory())
+                    : Arrays.asList(task.getCreateOutputFile(), task.getDropOutputFile());
+                for (File output : files) {
+                    if (output != null && !outputs.add(output.getAbsoluteFile())) {
+                        throw new MojoExecutionException("output " + output + " of " + task.getName()
+                                                         + " is already used by another persistence unit or target.");
                     }
                 }
             }
-            String tmp = builder.toString();
-            builder.setLength(0);
-            builder.append(tmp.replaceAll("(?i)(asc|desc)\\s*(on)", "$2"));
-        } else if (PATTERN_ALTER_TABLE.matcher(s).find()) {
-            for (String it : s.replaceAll("(?i)^(alter\\s+table\\s+\\S+)\\s*", "$1\r\n\t")
-                              .replaceAll("(?i)\\)\\s*(references)", ")\r\n\t$1").split("\r\n")) {
-                if (builder.length() == 0) {
-                    builder.append(it).append(linesep);
-                } else if (completed) {
-                    if (it.matches("^\\s*[^(]+(?:[^(),\\s]+|\\S\\([^)]+\\)[^),]*),\\s*$")) {
-                        builder.append(it).append(linesep);
-                    } else {
-                        builder.append(it);
-                        completed = false;
+            groups.add(group);
+        }
+        return groups;
+    }
+
+    private int getThreadCount(int taskCount) {
+        final int count = this.threads > 0 ? this.threads : Runtime.getRuntime().availableProcessors();
+        return Math.max(1, Math.min(count, taskCount));
+    }
+
+    private void runConcurrently(List<String> names,
+                                 List<Callable<Void>> jobs) throws MojoExecutionException {
+        final ExecutorService executor = Executors.newFixedThreadPool(this.getThreadCount(jobs.size()));
+        try {
+            final List<Future<Void>> futures = new ArrayList<>(jobs.size());
+            for (Callable<Void> job : jobs) {
+                futures.add(executor.submit(job));
+            }
+            MojoExecutionException failure = null;
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    futures.get(i).get();
+                } catch (ExecutionException e) {
+                    if (futures.size() > 1) {
+                        this.getLog().error(names.get(i) + " is failed.", e.getCause());
                     }
-                } else {
-                    builder.append(it.trim());
-                    if (it.matches("[^)]+\\).*$")) {
-                        builder.append(linesep);
-                        completed = true;
+                    if (failure == null) {
+                        failure = e.getCause() instanceof MojoExecutionException
+                                  ? (MojoExecutionException) e.getCause()
+                                  : new MojoExecutionException("Error while running", e.getCause());
                     }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new MojoExecutionException("Interrupted while running", e);
                 }
             }
-        } else {
-            builder.append(s.trim()).append(linesep);
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            executor.shutdownNow();
         }
-        return builder.toString().trim();
     }
 
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
         if (this.skip) {
-            log.info("schema generation is skipped.");
+            this.getLog().info("schema generation is skipped.");
             return;
         }
 
-        if (this.outputDirectory != null && !this.outputDirectory.exists()) {
-            this.outputDirectory.mkdirs();
+        if (this.fork && this.sinks != null
+            && this.sinks.stream().anyMatch(sink -> sink != null && ScriptSinks.STDOUT.equalsIgnoreCase(sink.trim()))) {
+            throw new MojoExecutionException("stdout sink is not supported in fork mode.");
+        }
+        this.report = new BuildReport();
+        this.report.add("statements", 0);
+        this.report.add("bytes-written", 0);
+        // forked worker profiles itself
+        this.memoryProfile = !this.profile || this.fork ? null : this.createMemoryProfile();
+        try {
+            final List<URL> classpath = this.getProjectClasspath();
+            if (this.fork) {
+                this.executeForked(classpath);
+            } else {
+                this.executeTasks(classpath);
+            }
+        } finally {
+            this.report.finish();
+            this.getLog().info(this.report.summary());
+            this.writeReport();
+            this.writeProfile();
+        }
+    }
+
+    /**
+     * execution on forked worker, with classpath resolved by maven.
+     */
+    BuildReport executeInWorker(List<URL> classpath) throws MojoExecutionException {
+        this.report = new BuildReport();
+        this.memoryProfile = !this.profile ? null : this.createMemoryProfile();
+        try {
+            this.executeTasks(classpath);
+        } finally {
+            this.report.finish();
+            this.writeProfile();
+        }
+        return this.report;
+    }
+
+    /**
+     * execution on classloader of caller, for {@link SchemaGenerator}.
+     */
+    BuildReport executeWith(ClassLoader classLoader) throws MojoExecutionException {
+        this.report = new BuildReport();
+        final List<List<GenerationTask>> groups = this.createTasks();
+        for (List<GenerationTask> group : groups) {
+            for (GenerationTask task : group) {
+                if (task.getOutputDirectory() != null && !task.getOutputDirectory().exists()) {
+                    task.getOutputDirectory().mkdirs();
+                }
+            }
+        }
+        try {
+            this.loadDriver(classLoader);
+            for (List<GenerationTask> group : groups) {
+                this.execute(group, Collections.<URL>emptyList(), classLoader);
+            }
+        } finally {
+            this.report.finish();
+        }
+        return this.report;
+    }
+
+    /**
+     * mojo configured with values of fields, like {@link #getForkConfiguration()}.
+     */
+    static JpaSchemaGeneratorMojo create(Map<String, Object> fields) throws ReflectiveOperationException {
+        final JpaSchemaGeneratorMojo mojo = new JpaSchemaGeneratorMojo();
+        for (Map.Entry<String, Object> entry : fields.entrySet()) {
+            final Field field = JpaSchemaGeneratorMojo.class.getDeclaredField(entry.getKey());
+            field.setAccessible(true);
+            field.set(mojo, entry.getValue());
         }
+        return mojo;
+    }
+
+    private MemoryProfile createMemoryProfile() {
+        return new MemoryProfile(
+                this.outputDirectory == null ? null : new File(this.outputDirectory, "jpa-schema-profile.jfr"));
+    }
 
-        final ClassLoader classLoader = this.getProjectClassLoader();
-        // driver load hack
-        // http://stackoverflow.com/questions/288828/how-to-use-a-jdbc-driver-from-an-arbitrary-location
-        if (StringUtils.isNotBlank(this.jdbcDriver)) {
+    private void executeForked(List<URL> classpath) throws MojoExecutionException {
+        final String java = StringUtils.isNotBlank(this.forkJavaExecutable) ? this.forkJavaExecutable
+                : System.getProperty("java.home") + File.separator + "bin" + File.separator
+                  + (File.separatorChar == '\\' ? "java.exe" : "java");
+        final List<String> jvmArgs = new ArrayList<>();
+        if (StringUtils.isNotBlank(this.forkJvmArgs)) {
             try {
-                Driver driver = (Driver) classLoader.loadClass(this.jdbcDriver).newInstance();
-                DriverManager.registerDriver(driver);
+                jvmArgs.addAll(Arrays.asList(CommandLineUtils.translateCommandline(this.forkJvmArgs)));
             } catch (Exception e) {
-                throw new MojoExecutionException("Dependency for driver-class " + this.jdbcDriver + " is missing!", e);
+                throw new MojoExecutionException("Invalid forkJvmArgs: " + this.forkJvmArgs, e);
+            }
+        }
+        final Set<String> forkClasspath = getForkClasspath();
+        final CdsArchive archive = this.getCdsArchive(java, jvmArgs, forkClasspath);
+        final boolean archived = archive != null && archive.exists();
+
+        final ForkedWorker.Handle worker;
+        try (BuildReport.Timer timer = this.report.time("fork-startup")) {
+            worker = this.startWorker(java, jvmArgs, forkClasspath, archive);
+        }
+        if (worker.isReused()) {
+            this.getLog().debug("forked worker is reused.");
+            this.report.add("fork-reuses", 1);
+        } else if (archived) {
+            final long baseline = archive.getBaselineStartupNanos();
+            this.getLog().info("forked worker is started in " + TimeUnit.NANOSECONDS.toMillis(worker.getStartupNanos())
+                     + " ms with CDS archive" + (baseline < 0 ? "."
+                    : ", " + TimeUnit.NANOSECONDS.toMillis(baseline) + " ms without archive."));
+            this.report.add("fork-cds-archive", 1);
+            if (baseline >= 0) {
+                this.report.add("fork-startup-without-cds-millis", TimeUnit.NANOSECONDS.toMillis(baseline));
             }
+        } else if (archive != null) {
+            this.getLog().info("CDS archive will be created when forked worker exits: " + archive.getFile());
+            archive.setBaselineStartupNanos(worker.getStartupNanos());
+        }
+        try {
+            worker.execute(new ForkedWorker.Request(this.getForkConfiguration(), classpath), this.getLog(), this.report);
+        } finally {
+            ForkedWorker.release(worker, this.reuseForks);
         }
+    }
+
+    private CdsArchive getCdsArchive(String java, List<String> jvmArgs, Set<String> forkClasspath) {
+        if (!this.forkCds) {
+            return null;
+        }
+        if (this.forkCdsDirectory == null) {
+            this.getLog().warn("forkCdsDirectory is not configured, CDS archive is disabled.");
+            return null;
+        }
+        // version of other java is unknown, tried and fallen back on failure
+        if (StringUtils.isBlank(this.forkJavaExecutable)
+            && !CdsArchive.isSupported(System.getProperty("java.specification.version"))) {
+            this.getLog().warn("CDS archive requires JDK 13 or later, disabled.");
+            return null;
+        }
+        final CdsArchive archive = CdsArchive.of(this.forkCdsDirectory, java, jvmArgs, forkClasspath);
+        if (archive == null) {
+            this.getLog().warn("plugin classpath has directory, CDS archive is disabled.");
+        }
+        return archive;
+    }
 
+    private ForkedWorker.Handle startWorker(String java,
+                                            List<String> jvmArgs,
+                                            Set<String> forkClasspath,
+                                            CdsArchive archive) throws MojoExecutionException {
+        final List<String> command = new ArrayList<>();
+        command.add(java);
+        command.addAll(jvmArgs);
+        if (archive != null) {
+            command.addAll(archive.getJvmArgs());
+        }
+        command.add("-cp");
+        command.add(StringUtils.join(forkClasspath.iterator(), File.pathSeparator));
+        command.add(ForkedWorker.class.getName());
+        try {
+            return ForkedWorker.acquire(command, archive);
+        } catch (IOException e) {
+            if (archive == null) {
+                throw new MojoExecutionException("Cannot start forked worker", e);
+            }
+            this.getLog().warn("cannot start forked worker with CDS archive, started without archive: " + e.getMessage());
+            return this.startWorker(java, jvmArgs, forkClasspath, null);
+        }
+    }
+
+    /**
+     * classpath of plugin, with maven api provided by maven itself.
+     */
+    private static Set<String> getForkClasspath() {
+        final Set<String> entries = new LinkedHashSet<>();
+        final ClassLoader loader = JpaSchemaGeneratorMojo.class.getClassLoader();
+        if (loader instanceof URLClassLoader) {
+            for (URL url : ((URLClassLoader) loader).getURLs()) {
+                entries.add(toPath(url));
+            }
+        } else {
+            entries.addAll(Arrays.asList(System.getProperty("java.class.path").split(File.pathSeparator)));
+        }
+        for (Class<?> type : Arrays.asList(AbstractMojo.class, MojoExecutionException.class, MavenProject.class,
+                                           MavenSession.class, Artifact.class, ArtifactResolutionRequest.class,
+                                           RepositorySystem.class, StringUtils.class)) {
+            final CodeSource source = type.getProtectionDomain().getCodeSource();
+            if (source != null && source.getLocation() != null) {
+                entries.add(toPath(source.getLocation()));
+            }
+        }
+        return entries;
+    }
+
+    private static String toPath(URL url) {
+        try {
+            return new File(url.toURI()).getPath();
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return url.getPath();
+        }
+    }
+
+    /**
+     * every configured value, maven components are not serializable and not used by worker.
+     */
+    private Map<String, Object> getForkConfiguration() throws MojoExecutionException {
+        final Map<String, Object> fields = new LinkedHashMap<>();
+        for (Field field : JpaSchemaGeneratorMojo.class.getDeclaredFields()) {
+            final int modifiers = field.getModifiers();
+            if (Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers) || Modifier.isTransient(modifiers)) {
+                continue;
+            }
+            field.setAccessible(true);
+            Object value;
+            try {
+                value = field.get(this);
+            } catch (IllegalAccessException e) {
+                throw new MojoExecutionException("Cannot read configuration " + field.getName(), e);
+            }
+            if (value instanceof List) {
+                value = new ArrayList<>((List<?>) value);
+            } else if (value instanceof Map) {
+                value = new LinkedHashMap<>((Map<?, ?>) value);
+            }
+            if (value == null || value instanceof Serializable) {
+                fields.put(field.getName(), value);
+            }
+        }
+        return fields;
+    }
+
+    private void writeProfile() {
+        if (this.memoryProfile == null) {
+            return;
+        }
+        this.memoryProfile.finish();
+        this.getLog().info(this.memoryProfile.summary());
+        if (this.outputDirectory == null) {
+            return;
+        }
+        final File file = new File(this.outputDirectory, "jpa-schema-profile.json");
+        try {
+            this.memoryProfile.write(file);
+        } catch (IOException e) {
+            this.getLog().warn("cannot write memory profile " + file, e);
+        }
+    }
+
+    private void writeReport() {
+        if (StringUtils.isBlank(this.reportFileName) || this.outputDirectory == null) {
+            return;
+        }
+        final File file = new File(this.outputDirectory, this.reportFileName);
+        try {
+            this.report.write(file);
+        } catch (IOException e) {
+            this.getLog().warn("cannot write build report " + file, e);
+        }
+    }
+
+    private void executeTasks(List<URL> classpath) throws MojoExecutionException {
+        final List<List<GenerationTask>> groups = this.createTasks();
+        for (List<GenerationTask> group : groups) {
+            for (GenerationTask task : group) {
+                if (task.getOutputDirectory() != null && !task.getOutputDirectory().exists()) {
+                    task.getOutputDirectory().mkdirs();
+                }
+            }
+        }
+
+        this.report.add("classpath-entries", classpath.size());
+        // dependency jars are shared layer, project classes are loaded per persistence unit.
+        final List<URL> dependencyURLs = new ArrayList<>();
+        final List<URL> projectURLs = new ArrayList<>();
+        for (URL url : classpath) {
+            (url.getPath().endsWith("/") ? projectURLs : dependencyURLs).add(url);
+        }
+        try (BuildReport.Timer timer = this.report.time("entity-index")) {
+            this.entityIndex = this.loadEntityIndex(projectURLs);
+        }
+        final ClassLoaderLayers.DependencyLayer dependencyClassLoader;
+        try (BuildReport.Timer timer = this.report.time("classloader")) {
+            this.bootstrap = this.getBootstrap(dependencyURLs);
+            dependencyClassLoader = this.bootstrap.getClassLoader();
+        }
+        try {
+            this.loadDriver(dependencyClassLoader);
+
+            // even single persistence unit runs on short-lived thread, so thread locals of providers are gone with it
+            final List<String> names = new ArrayList<>(groups.size());
+            final List<Callable<Void>> jobs = new ArrayList<>(groups.size());
+            for (List<GenerationTask> group : groups) {
+                names.add("persistence unit " + group.get(0).getPersistenceUnitName());
+                jobs.add(() -> {
+                    this.execute(group, classpath, projectURLs, dependencyClassLoader);
+                    return null;
+                });
+            }
+            this.runConcurrently(names, jobs);
+        } finally {
+            this.driver = null;
+            this.release(dependencyClassLoader);
+            clearProviderCache();
+        }
+    }
+
+    /**
+     * release drivers and caches which keep classloader of execution reachable, see
+     * {@link ClassLoaderLayers#release(ClassLoaderLayers.Layer)}.
+     */
+    private void release(ClassLoaderLayers.Layer classLoader) {
+        try (BuildReport.Timer timer = this.report.time("cleanup")) {
+            final int drivers = ClassLoaderLayers.release(classLoader);
+            if (drivers > 0) {
+                this.report.add("deregistered-drivers", drivers);
+            }
+        } catch (Exception e) {
+            this.getLog().debug("cannot release classloader", e);
+        }
+    }
+
+    /**
+     * resolver of JPA API keeps discovered providers by classloader, and providers keep the classloader reachable.
+     */
+    private static void clearProviderCache() {
+        synchronized (PROVIDER_RESOLVER_LOCK) {
+            PersistenceProviderResolverHolder.getPersistenceProviderResolver().clearCachedProviders();
+        }
+    }
+
+    /**
+     * driver of this execution only, never registered to {@code DriverManager} shared by every build of JVM.
+     */
+    private void loadDriver(ClassLoader classLoader) throws MojoExecutionException {
+        if (StringUtils.isBlank(this.jdbcDriver)) {
+            return;
+        }
+        try (BuildReport.Timer timer = this.report.time("driver-loading")) {
+            this.driver = (Driver) classLoader.loadClass(this.jdbcDriver).newInstance();
+        } catch (Exception e) {
+            throw new MojoExecutionException("Dependency for driver-class " + this.jdbcDriver + " is missing!", e);
+        }
+    }
+
+    private EntityIndex loadEntityIndex(List<URL> projectURLs) throws MojoExecutionException {
+        if (this.vendor == null || this.entityIndexFile == null) {
+            return null;
+        }
+        try {
+            final EntityIndex index = EntityIndex.load(this.entityIndexFile, toFiles(projectURLs));
+            if (index == null && this.entityIndexFile.exists()) {
+                this.getLog().info("entity index " + this.entityIndexFile + " is stale, packages will be scanned.");
+            }
+            return index;
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error while reading entity index", e);
+        }
+    }
+
+    static List<File> toFiles(List<URL> urls) {
+        final List<File> files = new ArrayList<>(urls.size());
+        for (URL url : urls) {
+            try {
+                files.add(new File(url.toURI()));
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                // not a local directory, never indexed
+            }
+        }
+        return files;
+    }
+
+    private void execute(List<GenerationTask> group,
+                         List<URL> classpath,
+                         List<URL> projectURLs,
+                         ClassLoader dependencyClassLoader) throws MojoExecutionException {
+        final ClassLoaderLayers.ProjectLayer classLoader;
+        try (BuildReport.Timer timer = this.report.time("classloader")) {
+            classLoader = ClassLoaderLayers.projectLayer(projectURLs, dependencyClassLoader);
+        }
+        try {
+            this.execute(group, classpath, classLoader);
+        } finally {
+            this.release(classLoader);
+        }
+    }
+
+    private void execute(List<GenerationTask> group,
+                         List<URL> classpath,
+                         ClassLoader classLoader) throws MojoExecutionException {
         // generate schema
+        final Map<GenerationTask, Map<String, Object>> pending = new LinkedHashMap<>();
+        final Map<GenerationTask, String> fingerprints = new HashMap<>();
+        final ScriptSinks scriptSinks = new ScriptSinks(this.getLog(), this.report, this::connectForScript);
         Thread thread = Thread.currentThread();
         ClassLoader currentClassLoader = thread.getContextClassLoader();
+        boolean generated = false;
         try {
             thread.setContextClassLoader(classLoader);
-            this.generate();
+            for (GenerationTask task : group) {
+                if (task.getName() != null) {
+                    this.getLog().info("generating " + task.getName());
+                }
+                Map<String, Object> map;
+                try (BuildReport.Timer timer = this.report.time("properties")) {
+                    map = JpaSchemaGeneratorUtils.buildProperties(task, scriptSinks);
+                }
+                if (this.isFingerprintApplicable(task)) {
+                    try (BuildReport.Timer timer = this.report.time("fingerprint")) {
+                        String fingerprint = this.fingerprint(task, classpath, map);
+                        if (this.isUpToDate(task, fingerprint) || this.restoreFromCache(task, fingerprint)) {
+                            continue;
+                        }
+                        fingerprints.put(task, fingerprint);
+                    }
+                }
+                pending.put(task, map);
+            }
+            final List<Connection> connections = this.connect(pending);
+            try (BuildReport.Timer timer = this.report.time("generate");
+                 MemoryProfile.Scope scope = this.profileScope()) {
+                if (group.size() == 1 && pending.size() == 1) {
+                    this.generate(group.get(0), pending.get(group.get(0)));
+                } else if (!pending.isEmpty()) {
+                    // targets share classloader and scanned persistence unit
+                    this.generate(pending, classLoader);
+                }
+                generated = true;
+            } finally {
+                for (Connection connection : connections) {
+                    try {
+                        connection.close();
+                    } catch (SQLException e) {
+                        this.getLog().debug("cannot close connection", e);
+                    }
+                }
+            }
+        } catch (MojoExecutionException e) {
+            throw e;
         } catch (Exception e) {
             throw new MojoExecutionException("Error while running", e);
         } finally {
             thread.setContextClassLoader(currentClassLoader);
+            if (!generated) {
+                abortPostProcess(pending);
+            }
+        }
+
+        for (Map.Entry<GenerationTask, Map<String, Object>> entry : pending.entrySet()) {
+            final GenerationTask task = entry.getKey();
+            // post-process
+            try (BuildReport.Timer timer = this.report.time("post-process")) {
+                this.postProcess(entry.getValue());
+            } catch (IOException e) {
+                abortPostProcess(pending);
+                throw new MojoExecutionException("Error while post-processing script file", e);
+            }
+
+            String fingerprint = fingerprints.get(task);
+            if (fingerprint != null) {
+                try (BuildReport.Timer timer = this.report.time("cache-store")) {
+                    this.storeToCache(task, fingerprint);
+                    this.storeFingerprint(task, fingerprint);
+                }
+            }
+        }
+    }
+
+    /**
+     * open connection of each task by driver of this execution, given to provider as schema generation connection.
+     * <p>
+     * provider falls back to {@code javax.persistence.jdbc.*} properties when driver does not accept URL.
+     */
+    private List<Connection> connect(Map<GenerationTask, Map<String, Object>> tasks) throws SQLException {
+        final List<Connection> connections = new ArrayList<>();
+        if (this.driver == null) {
+            return connections;
+        }
+        try {
+            for (Map.Entry<GenerationTask, Map<String, Object>> entry : tasks.entrySet()) {
+                final GenerationTask task = entry.getKey();
+                if (StringUtils.isBlank(task.getJdbcUrl()) || !this.jdbcDriver.equals(task.getJdbcDriver())
+                    || entry.getValue().containsKey(Constants.JAVAX_SCHEMA_GEN_CONNECTION)) {
+                    continue;
+                }
+                final Connection connection = this.driver.connect(task.getJdbcUrl(), connectionInfo(task));
+                if (connection != null) {
+                    connections.add(connection);
+                    entry.getValue().put(Constants.JAVAX_SCHEMA_GEN_CONNECTION, connection);
+                }
+            }
+        } catch (SQLException e) {
+            for (Connection connection : connections) {
+                connection.close();
+            }
+            throw e;
+        }
+        return connections;
+    }
+
+    /**
+     * connection of {@code jdbc} sink, by driver of this execution.
+     */
+    private Connection connectForScript(GenerationTask task) throws SQLException {
+        if (this.driver == null || !this.jdbcDriver.equals(task.getJdbcDriver())) {
+            throw new SQLException("jdbcDriver of " + task.getName() + " is required for jdbc sink.");
+        }
+        final Connection connection = this.driver.connect(task.getJdbcUrl(), connectionInfo(task));
+        if (connection == null) {
+            throw new SQLException(task.getJdbcDriver() + " does not accept " + task.getJdbcUrl());
+        }
+        return connection;
+    }
+
+    private static Properties connectionInfo(GenerationTask task) {
+        final Properties info = new Properties();
+        if (task.getJdbcUser() != null) {
+            info.setProperty("user", task.getJdbcUser());
+        }
+        if (task.getJdbcPassword() != null) {
+            info.setProperty("password", task.getJdbcPassword());
         }
+        return info;
+    }
 
-        // post-process
+    private boolean isFingerprintApplicable(GenerationTask task) {
+        if (!this.incremental && !this.cache) {
+            return false;
+        }
+        // fingerprint and cache are of output files, shards are already compared one by one
+        if (task.isShardByTable() || !ScriptSinks.namesOf(task).equals(Collections.singletonList(ScriptSinks.FILE))) {
+            return false;
+        }
+        // database is not observable, always run.
+        return PersistenceUnitProperties.SCHEMA_GENERATION_NONE_ACTION.equalsIgnoreCase(task.getDatabaseAction());
+    }
+
+    private boolean isUpToDate(GenerationTask task,
+                               String fingerprint) {
+        if (!this.incremental) {
+            return false;
+        }
+        final File file = task.getFingerprintFile();
+        if (file == null) {
+            this.getLog().warn("fingerprintFile is not configured, incremental generation is disabled.");
+            return false;
+        }
+        if (fingerprint.equals(SchemaFingerprint.load(file)) && this.isOutputPresent(task)) {
+            this.getLog().info("schema is up-to-date, generation is skipped.");
+            this.report.add("up-to-date", 1);
+            return true;
+        }
+        file.delete();
+        return false;
+    }
+
+    private void storeFingerprint(GenerationTask task,
+                                  String fingerprint) {
+        final File file = task.getFingerprintFile();
+        if (!this.incremental || file == null) {
+            return;
+        }
         try {
-            this.postProcess();
+            SchemaFingerprint.store(file, fingerprint);
         } catch (IOException e) {
-            throw new MojoExecutionException("Error while post-processing script file", e);
+            this.getLog().warn("cannot write fingerprint file " + file, e);
+        }
+    }
+
+    private boolean isOutputPresent(GenerationTask task) {
+        for (File file : task.getOutputs().values()) {
+            if (!file.isFile()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private synchronized SchemaCache getSchemaCache() {
+        if (!this.cache) {
+            return null;
+        }
+        if (this.cacheDirectory == null) {
+            this.getLog().warn("cacheDirectory is not configured, script cache is disabled.");
+            return null;
+        }
+        // statistics are of this execution
+        if (this.schemaCache == null) {
+            this.schemaCache = new SchemaCache(this.cacheDirectory, this.cacheMaxSize * 1024L * 1024L);
+        }
+        return this.schemaCache;
+    }
+
+    private boolean restoreFromCache(GenerationTask task,
+                                     String fingerprint) {
+        final SchemaCache schemaCache = this.getSchemaCache();
+        if (schemaCache == null) {
+            return false;
+        }
+        boolean restored = false;
+        try {
+            restored = schemaCache.restore(fingerprint, task.getOutputs());
+        } catch (IOException e) {
+            this.getLog().warn("cannot restore scripts from cache " + this.cacheDirectory, e);
+        }
+        this.getLog().info(schemaCache.stats());
+        if (restored) {
+            this.getLog().info("scripts are restored from cache, generation is skipped.");
+            this.report.add("cache-hits", 1);
+            this.storeFingerprint(task, fingerprint);
+        }
+        return restored;
+    }
+
+    private void storeToCache(GenerationTask task,
+                              String fingerprint) {
+        final SchemaCache schemaCache = this.getSchemaCache();
+        if (schemaCache == null || !this.isOutputPresent(task)) {
+            return;
+        }
+        try {
+            schemaCache.store(fingerprint, task.getOutputs());
+        } catch (IOException e) {
+            this.getLog().warn("cannot store scripts to cache " + this.cacheDirectory, e);
+        }
+    }
+
+    private String fingerprint(GenerationTask task,
+                               List<URL> classpath,
+                               Map<String, Object> map) throws IOException {
+        SchemaFingerprint fingerprint = new SchemaFingerprint();
+        fingerprint.add("persistenceXml", task.getPersistenceXml())
+                   .add("persistenceUnitName", task.getPersistenceUnitName())
+                   .add("vendor", task.getVendor())
+                   .add("packageToScan", task.getPackageToScan())
+                   .add("format", task.isFormat())
+                   .add("lineSeparator", task.getLineSeparator())
+                   .addFile("createSourceFile", task.getCreateSourceFile())
+                   .addFile("dropSourceFile", task.getDropSourceFile())
+                   .addProperties(map)
+                   .addClasspath(classpath);
+        // plugin itself, provider and jdbc driver declared as plugin dependency
+        ClassLoader pluginClassLoader = this.getClass().getClassLoader();
+        if (pluginClassLoader instanceof URLClassLoader) {
+            fingerprint.addClasspath(Arrays.asList(((URLClassLoader) pluginClassLoader).getURLs()));
         }
+        return fingerprint.toHex();
     }
 }
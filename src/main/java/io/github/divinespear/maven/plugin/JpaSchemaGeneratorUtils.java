@@ -2,7 +2,6 @@ package io.github.divinespear.maven.plugin;
 
 import java.util.*;
 
-import org.apache.commons.lang.NullArgumentException;
 import org.codehaus.plexus.util.StringUtils;
 
 /*
@@ -33,80 +32,81 @@ final class JpaSchemaGeneratorUtils {
     return !Constants.JAVAX_SCHEMA_GENERATION_NONE_ACTION.equalsIgnoreCase(value);
   }
 
-  private static boolean isDatabaseTarget(JpaSchemaGeneratorMojo mojo) {
-    return isNotNone(mojo.getDatabaseAction());
+  private static boolean isDatabaseTarget(GenerationTask task) {
+    return isNotNone(task.getDatabaseAction());
   }
 
-  private static boolean isScriptTarget(JpaSchemaGeneratorMojo mojo) {
-    return isNotNone(mojo.getScriptAction());
+  private static boolean isScriptTarget(GenerationTask task) {
+    return isNotNone(task.getScriptAction());
   }
 
-  public static Map<String, Object> buildProperties(JpaSchemaGeneratorMojo mojo) {
+  public static Map<String, Object> buildProperties(GenerationTask task, ScriptSinks sinks) {
     Map<String, Object> map = new HashMap<>();
-    Map<String, String> properties = mojo.getProperties();
+    Map<String, String> properties = task.getProperties();
 
     /*
      * Common JPA options
      */
     // mode
-    map.put(Constants.JAVAX_SCHEMA_GENERATION_DATABASE_ACTION, mojo.getDatabaseAction().toLowerCase());
-    map.put(Constants.JAVAX_SCHEMA_GENERATION_SCRIPTS_ACTION, mojo.getScriptAction().toLowerCase());
+    map.put(Constants.JAVAX_SCHEMA_GENERATION_DATABASE_ACTION, task.getDatabaseAction().toLowerCase());
+    map.put(Constants.JAVAX_SCHEMA_GENERATION_SCRIPTS_ACTION, task.getScriptAction().toLowerCase());
     // output files
-    if (isScriptTarget(mojo)) {
-      if (mojo.getOutputDirectory() == null) {
-        throw new NullArgumentException("outputDirectory is required for script generation.");
-      }
-      map.put(Constants.JAVAX_SCHEMA_GENERATION_SCRIPTS_CREATE_TARGET, mojo.getCreateOutputFile().toURI().toString());
-      map.put(Constants.JAVAX_SCHEMA_GENERATION_SCRIPTS_DROP_TARGET, mojo.getDropOutputFile().toURI().toString());
+    if (isScriptTarget(task)) {
+      // provider writes into pipe, post-processed while generating, outputs are written by sinks only
+      final ScriptPostProcessor processor = new ScriptPostProcessor(task.getLineSeparator(), task.isFormat());
+      map.put(Constants.JAVAX_SCHEMA_GENERATION_SCRIPTS_CREATE_TARGET,
+              new ScriptPipe(processor, sinks.create(task, false)));
+      map.put(Constants.JAVAX_SCHEMA_GENERATION_SCRIPTS_DROP_TARGET,
+              new ScriptPipe(processor, sinks.create(task, true)));
     }
     // database emulation options
-    map.put(Constants.JAVAX_SCHEMA_DATABASE_PRODUCT_NAME, mojo.getDatabaseProductName());
+    map.put(Constants.JAVAX_SCHEMA_DATABASE_PRODUCT_NAME, task.getDatabaseProductName());
     map.put(Constants.JAVAX_SCHEMA_DATABASE_MAJOR_VERSION,
-            Optional.ofNullable(mojo.getDatabaseMajorVersion()).map(String::valueOf));
+            Optional.ofNullable(task.getDatabaseMajorVersion()).map(String::valueOf));
     map.put(Constants.JAVAX_SCHEMA_DATABASE_MINOR_VERSION,
-            Optional.ofNullable(mojo.getDatabaseMinorVersion()).map(String::valueOf));
+            Optional.ofNullable(task.getDatabaseMinorVersion()).map(String::valueOf));
     // database options
-    map.put(Constants.JAVAX_JDBC_DRIVER, mojo.getJdbcDriver());
-    map.put(Constants.JAVAX_JDBC_URL, mojo.getJdbcUrl());
-    map.put(Constants.JAVAX_JDBC_USER, mojo.getJdbcUser());
-    map.put(Constants.JAVAX_JDBC_PASSWORD, mojo.getJdbcPassword());
+    map.put(Constants.JAVAX_JDBC_DRIVER, task.getJdbcDriver());
+    map.put(Constants.JAVAX_JDBC_URL, task.getJdbcUrl());
+    map.put(Constants.JAVAX_JDBC_USER, task.getJdbcUser());
+    map.put(Constants.JAVAX_JDBC_PASSWORD, task.getJdbcPassword());
     // source selection
-    map.put(Constants.JAVAX_SCHEMA_GENERATION_CREATE_SOURCE, mojo.getCreateSourceMode());
-    if (mojo.getCreateSourceFile() == null) {
-      if (!Constants.JAVAX_SCHEMA_GENERATION_METADATA_SOURCE.equals(mojo.getCreateSourceMode())) {
-        throw new IllegalArgumentException("create source file is required for mode " + mojo.getCreateSourceMode());
+    map.put(Constants.JAVAX_SCHEMA_GENERATION_CREATE_SOURCE, task.getCreateSourceMode());
+    if (task.getCreateSourceFile() == null) {
+      if (!Constants.JAVAX_SCHEMA_GENERATION_METADATA_SOURCE.equals(task.getCreateSourceMode())) {
+        throw new IllegalArgumentException("create source file is required for mode " + task.getCreateSourceMode());
       }
     } else {
-      map.put(Constants.JAVAX_SCHEMA_GENERATION_CREATE_SCRIPT_SOURCE, mojo.getCreateSourceFile().toURI().toString());
+      map.put(Constants.JAVAX_SCHEMA_GENERATION_CREATE_SCRIPT_SOURCE, task.getCreateSourceFile().toURI().toString());
     }
-    map.put(Constants.JAVAX_SCHEMA_GENERATION_DROP_SOURCE, mojo.getDropSourceMode());
-    if (mojo.getDropSourceFile() == null) {
-      if (!Constants.JAVAX_SCHEMA_GENERATION_METADATA_SOURCE.equals(mojo.getDropSourceMode())) {
-        throw new IllegalArgumentException("drop source file is required for mode " + mojo.getDropSourceMode());
+    map.put(Constants.JAVAX_SCHEMA_GENERATION_DROP_SOURCE, task.getDropSourceMode());
+    if (task.getDropSourceFile() == null) {
+      if (!Constants.JAVAX_SCHEMA_GENERATION_METADATA_SOURCE.equals(task.getDropSourceMode())) {
+        throw new IllegalArgumentException("drop source file is required for mode " + task.getDropSourceMode());
       }
     } else {
-      map.put(Constants.JAVAX_SCHEMA_GENERATION_DROP_SCRIPT_SOURCE, mojo.getDropSourceFile().toURI().toString());
+      map.put(Constants.JAVAX_SCHEMA_GENERATION_DROP_SCRIPT_SOURCE, task.getDropSourceFile().toURI().toString());
     }
 
     /*
      * EclipseLink specific
      */
     // persistence.xml
-    map.put(Constants.ECLIPSELINK_PERSISTENCE_XML, mojo.getPersistenceXml());
+    map.put(Constants.ECLIPSELINK_PERSISTENCE_XML, task.getPersistenceXml());
     // disable weaving
     map.put(Constants.ECLIPSELINK_WEAVING, "false");
 
     /*
      * Hibernate specific
      */
-    final String productName = mojo.getDatabaseProductName();
-    final int minorVersion = Optional.ofNullable(mojo.getDatabaseMinorVersion()).orElse(0);
-    final int majorVersion = Optional.ofNullable(mojo.getDatabaseMajorVersion()).orElse(0);
+    final String productName = task.getDatabaseProductName();
+    final int minorVersion = Optional.ofNullable(task.getDatabaseMinorVersion()).orElse(0);
+    final int majorVersion = Optional.ofNullable(task.getDatabaseMajorVersion()).orElse(0);
     // auto-detect
     map.put(Constants.HIBERNATE_AUTODETECTION, "class,hbm");
     // dialect (without jdbc connection)
     String dialect = properties.get(Constants.HIBERNATE_DIALECT);
-    if (StringUtils.isEmpty(dialect) && StringUtils.isEmpty(mojo.getJdbcUrl())) {
+    if (StringUtils.isEmpty(dialect) && StringUtils.isEmpty(task.getJdbcUrl())) {
       dialect = HibernateDialectResolver.resolve(productName, majorVersion, minorVersion);
     }
     if (dialect != null) {
@@ -114,11 +114,11 @@ final class JpaSchemaGeneratorUtils {
       map.put(Constants.HIBERNATE_DIALECT, dialect);
     }
 
-    if (!isDatabaseTarget(mojo) && StringUtils.isEmpty(mojo.getJdbcUrl())) {
+    if (!isDatabaseTarget(task) && StringUtils.isEmpty(task.getJdbcUrl())) {
       map.put(Constants.JAVAX_SCHEMA_GEN_CONNECTION, new ConnectionMock(productName, majorVersion, minorVersion));
     }
 
-    map.putAll(mojo.getProperties());
+    map.putAll(task.getProperties());
 
     /* force override JTA to RESOURCE_LOCAL */
     map.put(Constants.JAVAX_TRANSACTION_TYPE, Constants.JAVAX_TRANSACTION_TYPE_RESOURCE_LOCAL);
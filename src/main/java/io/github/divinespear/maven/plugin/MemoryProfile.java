@@ -0,0 +1,348 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.github.divinespear.maven.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * Memory and class loading profile of {@code generate} phase, from management beans.
+ * <p>
+ * Allocation is counted per thread inside of {@link #enter()} scopes, and GC pauses only while any scope is open.
+ * Heap, metaspace, class loading and GC are JVM wide, measured from first scope entered until last scope exited. Peak
+ * heap is sum of peak usage of heap pools, so it can be a bit larger than actual peak. Peak usage is reset only when no
+ * other profile is running in this JVM, so peak of concurrent builds ({@code -T}) includes every module running at
+ * the time. JFR recording is dumped when JDK has {@code jdk.jfr}.
+ */
+final class MemoryProfile {
+
+  private static final String GC_NOTIFICATION = "com.sun.management.gc.notification";
+
+  /* profiles started and not finished in this JVM, guarded by class */
+  private static int running;
+
+  private final File jfrFile;
+  private final List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+  private final List<MemoryPoolMXBean> metaspacePools = new ArrayList<>();
+  private final NotificationListener gcListener = this::onGarbageCollection;
+
+  private int active;
+  private Snapshot begin;
+  private Snapshot end;
+  private long peakHeap;
+  private long allocated;
+  private boolean allocationSupported = true;
+  private long gcPauses;
+  private long gcPauseTotal;
+  private long gcPauseMax;
+  private boolean listening;
+  private boolean finished;
+  private Object recording;
+  private boolean jfrWritten;
+
+  /**
+   * @param jfrFile JFR output, {@code null} for no recording.
+   */
+  MemoryProfile(File jfrFile) {
+    this.jfrFile = jfrFile;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP) {
+        this.heapPools.add(pool);
+      } else if (pool.getName().contains("Metaspace")) {
+        this.metaspacePools.add(pool);
+      }
+    }
+  }
+
+  /**
+   * start profile scope on current thread, closed by {@link Scope#close()}.
+   */
+  Scope enter() {
+    synchronized (this) {
+      if (this.active++ == 0) {
+        if (this.begin == null) {
+          this.start();
+        }
+        this.listen(true);
+      }
+    }
+    return new Scope();
+  }
+
+  private void start() {
+    // recording first, its own class loading is not a part of profile
+    this.startRecording();
+    synchronized (MemoryProfile.class) {
+      // peak usage is JVM wide, resetting it while other profile is running breaks its peak
+      if (running++ == 0) {
+        for (MemoryPoolMXBean pool : this.heapPools) {
+          pool.resetPeakUsage();
+        }
+      }
+    }
+    this.begin = new Snapshot(this);
+  }
+
+  /**
+   * listen GC only while scope is open, so pauses of post-processing and caching are not counted.
+   */
+  private void listen(boolean listen) {
+    if (this.listening == listen) {
+      return;
+    }
+    this.listening = listen;
+    for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+      if (!(collector instanceof NotificationEmitter)) {
+        continue;
+      }
+      if (listen) {
+        ((NotificationEmitter) collector).addNotificationListener(this.gcListener, null, null);
+      } else {
+        try {
+          ((NotificationEmitter) collector).removeNotificationListener(this.gcListener);
+        } catch (Exception e) {
+          // not registered
+        }
+      }
+    }
+  }
+
+  private synchronized void exit(long allocated) {
+    if (allocated < 0) {
+      this.allocationSupported = false;
+    } else {
+      this.allocated += allocated;
+    }
+    if (--this.active == 0) {
+      this.end = new Snapshot(this);
+      long peak = 0;
+      for (MemoryPoolMXBean pool : this.heapPools) {
+        peak += pool.getPeakUsage() == null ? 0 : pool.getPeakUsage().getUsed();
+      }
+      this.peakHeap = Math.max(this.peakHeap, peak);
+      this.listen(false);
+    }
+  }
+
+  private synchronized void onGarbageCollection(Notification notification, Object handback) {
+    if (!GC_NOTIFICATION.equals(notification.getType()) || !(notification.getUserData() instanceof CompositeData)) {
+      return;
+    }
+    final CompositeData info = (CompositeData) ((CompositeData) notification.getUserData()).get("gcInfo");
+    final long duration = info == null ? 0 : ((Number) info.get("duration")).longValue();
+    this.gcPauses++;
+    this.gcPauseTotal += duration;
+    this.gcPauseMax = Math.max(this.gcPauseMax, duration);
+  }
+
+  /**
+   * stop listening and recording, should be called after every scope is closed.
+   */
+  synchronized void finish() {
+    if (this.begin == null || this.finished) {
+      return;
+    }
+    this.finished = true;
+    this.listen(false);
+    synchronized (MemoryProfile.class) {
+      running--;
+    }
+    this.stopRecording();
+  }
+
+  private void startRecording() {
+    if (this.jfrFile == null) {
+      return;
+    }
+    try {
+      final Class<?> configurationClass = Class.forName("jdk.jfr.Configuration");
+      final Object configuration = configurationClass.getMethod("getConfiguration", String.class)
+                                                     .invoke(null, "profile");
+      final Class<?> recordingClass = Class.forName("jdk.jfr.Recording");
+      final Object recording = recordingClass.getConstructor(configurationClass).newInstance(configuration);
+      recordingClass.getMethod("start").invoke(recording);
+      this.recording = recording;
+    } catch (ReflectiveOperationException | LinkageError e) {
+      // JFR is not supported by this JDK
+    }
+  }
+
+  private void stopRecording() {
+    if (this.recording == null) {
+      return;
+    }
+    final Class<?> recordingClass = this.recording.getClass();
+    try {
+      recordingClass.getMethod("stop").invoke(this.recording);
+      final File parent = this.jfrFile.getParentFile();
+      if (parent != null && !parent.exists()) {
+        parent.mkdirs();
+      }
+      recordingClass.getMethod("dump", Path.class).invoke(this.recording, this.jfrFile.toPath());
+      this.jfrWritten = true;
+    } catch (ReflectiveOperationException e) {
+      // recording is failed, profile is still valid
+    } finally {
+      try {
+        recordingClass.getMethod("close").invoke(this.recording);
+      } catch (ReflectiveOperationException e) {
+        // ignore
+      }
+      this.recording = null;
+    }
+  }
+
+  private static long threadAllocatedBytes() {
+    final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (threads instanceof com.sun.management.ThreadMXBean) {
+      final com.sun.management.ThreadMXBean sun = (com.sun.management.ThreadMXBean) threads;
+      try {
+        if (sun.isThreadAllocatedMemorySupported() && sun.isThreadAllocatedMemoryEnabled()) {
+          return sun.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+      } catch (UnsupportedOperationException e) {
+        // fall through
+      }
+    }
+    return -1;
+  }
+
+  private static long used(List<MemoryPoolMXBean> pools) {
+    long used = 0;
+    for (MemoryPoolMXBean pool : pools) {
+      used += pool.getUsage().getUsed();
+    }
+    return used;
+  }
+
+  private static String mb(long bytes) {
+    return String.format(Locale.ROOT, "%.1f MB", bytes / (1024.0 * 1024.0));
+  }
+
+  synchronized String toJson() {
+    if (this.begin == null || this.end == null) {
+      return "{}\n";
+    }
+    final long heapMax = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getMax();
+    final StringBuilder builder = new StringBuilder("{\n");
+    builder.append("  \"heapUsedBeforeBytes\": ").append(this.begin.heapUsed).append(",\n");
+    builder.append("  \"heapUsedAfterBytes\": ").append(this.end.heapUsed).append(",\n");
+    builder.append("  \"peakHeapBytes\": ").append(this.peakHeap).append(",\n");
+    builder.append("  \"heapMaxBytes\": ").append(heapMax).append(",\n");
+    builder.append("  \"allocatedBytes\": ").append(this.allocationSupported ? this.allocated : -1).append(",\n");
+    builder.append("  \"metaspaceBeforeBytes\": ").append(this.begin.metaspaceUsed).append(",\n");
+    builder.append("  \"metaspaceAfterBytes\": ").append(this.end.metaspaceUsed).append(",\n");
+    builder.append("  \"metaspaceGrowthBytes\": ").append(this.end.metaspaceUsed - this.begin.metaspaceUsed)
+           .append(",\n");
+    builder.append("  \"loadedClasses\": ").append(this.end.totalLoaded - this.begin.totalLoaded).append(",\n");
+    builder.append("  \"unloadedClasses\": ").append(this.end.unloaded - this.begin.unloaded).append(",\n");
+    builder.append("  \"gcCount\": ").append(this.end.gcCount - this.begin.gcCount).append(",\n");
+    builder.append("  \"gcTimeMillis\": ").append(this.end.gcTime - this.begin.gcTime).append(",\n");
+    builder.append("  \"gcPauses\": ").append(this.gcPauses).append(",\n");
+    builder.append("  \"gcPauseTotalMillis\": ").append(this.gcPauseTotal).append(",\n");
+    builder.append("  \"gcPauseMaxMillis\": ").append(this.gcPauseMax).append(",\n");
+    builder.append("  \"jfr\": ").append(this.jfrWritten ? "\"" + this.jfrFile.getName() + "\"" : "null").append('\n');
+    builder.append("}\n");
+    return builder.toString();
+  }
+
+  /**
+   * one line for build log.
+   */
+  synchronized String summary() {
+    if (this.begin == null || this.end == null) {
+      return "memory profile is empty.";
+    }
+    return String.format(Locale.ROOT, "peak heap %s, allocated %s, metaspace +%s, %d class(es) loaded, "
+                                      + "%d gc pause(s) %d ms (max %d ms)",
+                         mb(this.peakHeap), this.allocationSupported ? mb(this.allocated) : "n/a",
+                         mb(this.end.metaspaceUsed - this.begin.metaspaceUsed),
+                         this.end.totalLoaded - this.begin.totalLoaded, this.gcPauses, this.gcPauseTotal,
+                         this.gcPauseMax);
+  }
+
+  void write(File file) throws IOException {
+    final File parent = file.getParentFile();
+    if (parent != null && !parent.exists()) {
+      parent.mkdirs();
+    }
+    try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+      writer.write(this.toJson());
+    }
+  }
+
+  private static final class Snapshot {
+
+    private final long heapUsed;
+    private final long metaspaceUsed;
+    private final long totalLoaded;
+    private final long unloaded;
+    private final long gcCount;
+    private final long gcTime;
+
+    Snapshot(MemoryProfile profile) {
+      this.heapUsed = used(profile.heapPools);
+      this.metaspaceUsed = used(profile.metaspacePools);
+      final ClassLoadingMXBean classLoading = ManagementFactory.getClassLoadingMXBean();
+      this.totalLoaded = classLoading.getTotalLoadedClassCount();
+      this.unloaded = classLoading.getUnloadedClassCount();
+      long count = 0;
+      long time = 0;
+      for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+        count += Math.max(0, collector.getCollectionCount());
+        time += Math.max(0, collector.getCollectionTime());
+      }
+      this.gcCount = count;
+      this.gcTime = time;
+    }
+  }
+
+  final class Scope
+      implements AutoCloseable {
+
+    private final long allocated = threadAllocatedBytes();
+
+    private Scope() {
+    }
+
+    @Override
+    public void close() {
+      final long current = this.allocated < 0 ? -1 : threadAllocatedBytes();
+      exit(current < 0 ? -1 : current - this.allocated);
+    }
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.github.divinespear.maven.plugin;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persistence unit to generate, configured as element of {@code persistenceUnits}.
+ * <p>
+ * Every property is optional except {@link #name}, and overrides plugin configuration for this unit only.
+ */
+public class PersistenceUnit
+    implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * unit name of {@code persistence.xml}
+   */
+  private String name;
+
+  /**
+   * output directory for generated ddl scripts.
+   * <p>
+   * default is {@code name} under plugin's {@code outputDirectory}.
+   */
+  private File outputDirectory;
+
+  /**
+   * generated create script name
+   */
+  private String createOutputFileName;
+
+  /**
+   * generated drop script name
+   */
+  private String dropOutputFileName;
+
+  /**
+   * list of package name for scan entity classes, for project without {@code persistence.xml}
+   */
+  private List<String> packageToScan = new ArrayList<>();
+
+  /**
+   * JPA vendor specific properties, merged with plugin's {@code properties}.
+   */
+  private Map<String, String> properties = new HashMap<>();
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public File getOutputDirectory() {
+    return outputDirectory;
+  }
+
+  public void setOutputDirectory(File outputDirectory) {
+    this.outputDirectory = outputDirectory;
+  }
+
+  public String getCreateOutputFileName() {
+    return createOutputFileName;
+  }
+
+  public void setCreateOutputFileName(String createOutputFileName) {
+    this.createOutputFileName = createOutputFileName;
+  }
+
+  public String getDropOutputFileName() {
+    return dropOutputFileName;
+  }
+
+  public void setDropOutputFileName(String dropOutputFileName) {
+    this.dropOutputFileName = dropOutputFileName;
+  }
+
+  public List<String> getPackageToScan() {
+    return packageToScan;
+  }
+
+  public void setPackageToScan(List<String> packageToScan) {
+    this.packageToScan = packageToScan;
+  }
+
+  public Map<String, String> getProperties() {
+    return properties;
+  }
+
+  public void setProperties(Map<String, String> properties) {
+    this.properties = properties;
+  }
+}
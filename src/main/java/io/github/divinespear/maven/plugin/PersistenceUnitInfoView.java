@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.github.divinespear.maven.plugin;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.Properties;
+
+import javax.persistence.spi.PersistenceUnitInfo;
+
+/**
+ * {@link PersistenceUnitInfo} of single target, backed by scanned persistence unit shared by every target.
+ * <p>
+ * Only properties are owned by view, so providers never see properties of another target.
+ */
+final class PersistenceUnitInfoView
+    implements InvocationHandler {
+
+  private final PersistenceUnitInfo delegate;
+  private final Properties properties;
+
+  private PersistenceUnitInfoView(PersistenceUnitInfo delegate, Map<String, Object> map) {
+    this.delegate = delegate;
+    this.properties = new Properties();
+    this.properties.putAll(delegate.getProperties());
+    this.properties.putAll(map);
+  }
+
+  static PersistenceUnitInfo create(PersistenceUnitInfo shared, Map<String, Object> map) {
+    return (PersistenceUnitInfo) Proxy.newProxyInstance(PersistenceUnitInfo.class.getClassLoader(),
+                                                        new Class<?>[]{PersistenceUnitInfo.class},
+                                                        new PersistenceUnitInfoView(shared, map));
+  }
+
+  @Override
+  public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+    if ("getProperties".equals(method.getName()) && method.getParameterCount() == 0) {
+      return properties;
+    }
+    try {
+      return method.invoke(delegate, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+}
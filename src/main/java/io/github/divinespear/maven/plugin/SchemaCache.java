@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.github.divinespear.maven.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed cache of post-processed scripts, shared by every project on the machine.
+ * <p>
+ * Entry is a directory named by {@link SchemaFingerprint}, and published by atomic rename, so concurrent builds never
+ * see partial entry. Last modified time of entry is used for LRU eviction.
+ */
+final class SchemaCache {
+
+  private static final String TEMP_PREFIX = "tmp-";
+  private static final long STALE_TEMP_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+  private final Path directory;
+  private final long maxSize;
+
+  /* statistics of this instance, one instance per execution */
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong bytesSaved = new AtomicLong();
+
+  SchemaCache(File directory, long maxSize) {
+    this.directory = directory.toPath();
+    this.maxSize = maxSize;
+  }
+
+  private Path entry(String key) {
+    return directory.resolve(key.substring(0, 2)).resolve(key);
+  }
+
+  /**
+   * copy cached scripts to outputs.
+   *
+   * @param key     fingerprint
+   * @param outputs script name to output file
+   * @return {@code true} if all outputs are restored.
+   */
+  boolean restore(String key, Map<String, File> outputs) throws IOException {
+    final Path entry = entry(key);
+    for (String name : outputs.keySet()) {
+      if (!Files.isRegularFile(entry.resolve(name))) {
+        misses.incrementAndGet();
+        return false;
+      }
+    }
+    long bytes = 0;
+    for (Map.Entry<String, File> output : outputs.entrySet()) {
+      final Path source = entry.resolve(output.getKey());
+      // unchanged output keeps its timestamp
+      ScriptFiles.copy(source, output.getValue().toPath());
+      bytes += Files.size(source);
+    }
+    Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+    hits.incrementAndGet();
+    bytesSaved.addAndGet(bytes);
+    return true;
+  }
+
+  /**
+   * store outputs into cache, and evict least recently used entries over max size.
+   */
+  void store(String key, Map<String, File> outputs) throws IOException {
+    final Path entry = entry(key);
+    Files.createDirectories(entry.getParent());
+    final Path temp = Files.createTempDirectory(directory, TEMP_PREFIX);
+    try {
+      for (Map.Entry<String, File> output : outputs.entrySet()) {
+        Files.copy(output.getValue().toPath(), temp.resolve(output.getKey()));
+      }
+      Files.move(temp, entry, StandardCopyOption.ATOMIC_MOVE);
+    } catch (FileAlreadyExistsException e) {
+      // stored by another build
+    } catch (IOException e) {
+      if (!Files.isDirectory(entry)) {
+        throw e;
+      }
+    } finally {
+      delete(temp);
+    }
+    evict();
+  }
+
+  private void evict() throws IOException {
+    final List<Path> entries = new ArrayList<>();
+    long total = 0;
+    try (DirectoryStream<Path> groups = Files.newDirectoryStream(directory)) {
+      for (Path group : groups) {
+        if (group.getFileName().toString().startsWith(TEMP_PREFIX)) {
+          if (isStale(group)) {
+            delete(group);
+          }
+          continue;
+        }
+        if (!Files.isDirectory(group)) {
+          continue;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(group)) {
+          for (Path entry : stream) {
+            entries.add(entry);
+            total += size(entry);
+          }
+        }
+      }
+    }
+    if (total <= maxSize) {
+      return;
+    }
+    entries.sort(Comparator.comparingLong(SchemaCache::lastModified));
+    for (Path entry : entries) {
+      if (total <= maxSize) {
+        break;
+      }
+      final long size = size(entry);
+      delete(entry);
+      total -= size;
+    }
+  }
+
+  private static boolean isStale(Path path) {
+    return System.currentTimeMillis() - lastModified(path) > STALE_TEMP_MILLIS;
+  }
+
+  private static long lastModified(Path path) {
+    try {
+      return Files.getLastModifiedTime(path).toMillis();
+    } catch (IOException e) {
+      return 0;
+    }
+  }
+
+  private static long size(Path entry) throws IOException {
+    long size = 0;
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(entry)) {
+      for (Path file : stream) {
+        size += Files.size(file);
+      }
+    } catch (IOException e) {
+      // removed by another build
+    }
+    return size;
+  }
+
+  private static void delete(Path path) {
+    if (!Files.exists(path)) {
+      return;
+    }
+    try (Stream<Path> stream = Files.walk(path)) {
+      stream.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+    } catch (IOException e) {
+      // best effort, removed by another build
+    }
+  }
+
+  String stats() {
+    return String.format("schema cache: %d hit(s), %d miss(es), %d byte(s) saved", hits.get(), misses.get(),
+                         bytesSaved.get());
+  }
+}
@@ -0,0 +1,312 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.github.divinespear.maven.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+import javax.sql.DataSource;
+
+/**
+ * SHA-256 fingerprint of everything that affects generated scripts.
+ * <p>
+ * Absolute locations are never part of fingerprint, so same inputs in another checkout give same value.
+ */
+final class SchemaFingerprint {
+
+  private static final String MANIFEST_KEY = "fingerprint";
+
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private final MessageDigest digest;
+  /* internal names of classes named in properties, like dialect or naming strategy */
+  private final Set<String> propertyClasses = new HashSet<>();
+
+  SchemaFingerprint() {
+    try {
+      this.digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not supported", e);
+    }
+  }
+
+  SchemaFingerprint add(String key, Object value) {
+    update(key + "=" + (value == null ? "" : value) + "\n");
+    return this;
+  }
+
+  /**
+   * add content of file, missing file is also a state.
+   */
+  SchemaFingerprint addFile(String key, File file) throws IOException {
+    if (file == null || !file.isFile()) {
+      return add(key, null);
+    }
+    add(key, file.getName());
+    update(Files.readAllBytes(file.toPath()));
+    return this;
+  }
+
+  /**
+   * add effective JPA properties, before {@link #addClasspath(List)} so project classes named in properties are
+   * hashed.
+   * <p>
+   * script targets and sources are excluded, outputs are checked separately and sources are added by content.
+   */
+  SchemaFingerprint addProperties(Map<String, Object> properties) {
+    for (Map.Entry<String, Object> entry : new TreeMap<>(properties).entrySet()) {
+      final String key = entry.getKey();
+      if (Constants.JAVAX_SCHEMA_GENERATION_SCRIPTS_CREATE_TARGET.equals(key)
+          || Constants.JAVAX_SCHEMA_GENERATION_SCRIPTS_DROP_TARGET.equals(key)
+          || Constants.JAVAX_SCHEMA_GENERATION_CREATE_SCRIPT_SOURCE.equals(key)
+          || Constants.JAVAX_SCHEMA_GENERATION_DROP_SCRIPT_SOURCE.equals(key)) {
+        continue;
+      }
+      Object value = entry.getValue();
+      // optional value like database version is compared by its content
+      if (value instanceof Optional) {
+        value = ((Optional<?>) value).orElse(null);
+      }
+      if (value instanceof Class) {
+        value = ((Class<?>) value).getName();
+      }
+      if (value instanceof CharSequence || value instanceof Number || value instanceof Boolean) {
+        add("property:" + key, value);
+        for (String name : value.toString().split("[\\s,]+")) {
+          this.propertyClasses.add(name.replace('.', '/'));
+        }
+      } else {
+        add("property:" + key, describe(value));
+      }
+    }
+    return this;
+  }
+
+  /**
+   * stable description of property value, its {@code toString()} unless it is connection or data source, or has no
+   * own {@code toString()}.
+   */
+  private static String describe(Object value) {
+    if (value == null) {
+      return null;
+    }
+    final String type = value.getClass().getName();
+    if (value instanceof Connection || value instanceof DataSource) {
+      // identity is not stable, use type only.
+      return type;
+    }
+    final String string = String.valueOf(value);
+    final String identity = type + "@" + Integer.toHexString(System.identityHashCode(value));
+    return identity.equals(string) ? type : type + ":" + string;
+  }
+
+  /**
+   * add classpath entries.
+   * <p>
+   * class files in directory are hashed by mapping related structure only (see {@link ClassFileInfo}), and resources
+   * which can affect mapping ({@code META-INF}, {@code *.xml}, {@code *.properties}, {@code *.sql}) are hashed by
+   * content. classes referenced by mapping or named in properties, like user types, converters, dialects and naming
+   * strategies, change DDL by their code, so they are hashed by content. jar is identified by its name, size and CRC of every entry from its central directory, so rebuilt jar of
+   * same version and size is detected without reading whole content.
+   */
+  SchemaFingerprint addClasspath(List<URL> urls) throws IOException {
+    for (URL url : urls) {
+      final File file;
+      try {
+        file = new File(url.toURI());
+      } catch (URISyntaxException | IllegalArgumentException e) {
+        add("url", url);
+        continue;
+      }
+      if (file.isDirectory()) {
+        addDirectory(file.toPath());
+      } else if (file.isFile()) {
+        addJar(file);
+      }
+    }
+    return this;
+  }
+
+  private void addDirectory(Path root) throws IOException {
+    final List<Path> files;
+    try (Stream<Path> stream = Files.walk(root)) {
+      files = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+    }
+    final Map<String, ClassFileInfo> classes = new TreeMap<>();
+    final Map<String, Path> classFiles = new HashMap<>();
+    boolean mappingXml = false;
+    for (Path file : files) {
+      final String path = root.relativize(file).toString().replace(File.separatorChar, '/');
+      if (path.endsWith(".class")) {
+        classes.put(path, ClassFileInfo.read(Files.readAllBytes(file)));
+        classFiles.put(path, file);
+      } else if (isMappingResource(path)) {
+        mappingXml |= path.endsWith("orm.xml") || path.endsWith(".hbm.xml");
+        add("file", path);
+        update(Files.readAllBytes(file));
+      }
+    }
+    final Set<String> relevant = findMappingClasses(classes.values(), mappingXml);
+    final Set<String> referenced = findReferencedClasses(classes.values(), relevant, this.propertyClasses);
+    for (Map.Entry<String, ClassFileInfo> entry : classes.entrySet()) {
+      final String name = entry.getValue().getName();
+      if (referenced.contains(name)) {
+        add("class-content", entry.getKey());
+        update(Files.readAllBytes(classFiles.get(entry.getKey())));
+      } else if (relevant.contains(name)) {
+        add("class", entry.getKey());
+        update(entry.getValue().getStructure());
+      }
+    }
+  }
+
+  private static boolean isMappingResource(String path) {
+    return path.startsWith("META-INF/") || path.endsWith(".xml") || path.endsWith(".properties")
+           || path.endsWith(".sql");
+  }
+
+  /**
+   * annotated classes, enums, and super classes of them. every class is mapping candidate when xml mapping exists.
+   */
+  private static Set<String> findMappingClasses(Collection<ClassFileInfo> classes, boolean mappingXml) {
+    final Map<String, ClassFileInfo> byName = new HashMap<>();
+    for (ClassFileInfo info : classes) {
+      byName.put(info.getName(), info);
+    }
+    final Set<String> relevant = new HashSet<>();
+    for (ClassFileInfo info : classes) {
+      if (mappingXml || info.isAnnotated() || info.isEnum()) {
+        ClassFileInfo current = info;
+        while (current != null && relevant.add(current.getName())) {
+          current = byName.get(current.getSuperName());
+        }
+      }
+    }
+    return relevant;
+  }
+
+  /**
+   * classes named by mapping classes or properties which are not mapping classes themselves, and super classes of
+   * them.
+   */
+  private static Set<String> findReferencedClasses(Collection<ClassFileInfo> classes, Set<String> relevant,
+                                                   Set<String> propertyClasses) {
+    final Map<String, ClassFileInfo> byName = new HashMap<>();
+    for (ClassFileInfo info : classes) {
+      byName.put(info.getName(), info);
+    }
+    final Set<String> names = new HashSet<>(propertyClasses);
+    for (String name : relevant) {
+      names.addAll(byName.get(name).getReferences());
+    }
+    final Set<String> referenced = new HashSet<>();
+    for (String name : names) {
+      ClassFileInfo current = byName.get(name);
+      while (current != null && !relevant.contains(current.getName()) && referenced.add(current.getName())) {
+        current = byName.get(current.getSuperName());
+      }
+    }
+    return referenced;
+  }
+
+  private void addJar(File file) throws IOException {
+    add("jar", file.getName() + ":" + file.length());
+    try (ZipFile zip = new ZipFile(file)) {
+      final StringBuilder builder = new StringBuilder();
+      final Enumeration<? extends ZipEntry> entries = zip.entries();
+      while (entries.hasMoreElements()) {
+        final ZipEntry entry = entries.nextElement();
+        builder.append(entry.getName()).append(':').append(entry.getSize()).append(':')
+               .append(Long.toHexString(entry.getCrc())).append('\n');
+      }
+      update(builder.toString());
+    } catch (ZipException e) {
+      // not a zip, hash content
+      update(Files.readAllBytes(file.toPath()));
+    }
+  }
+
+  private void update(String s) {
+    update(s.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private void update(byte[] bytes) {
+    this.digest.update(bytes);
+  }
+
+  String toHex() {
+    final byte[] bytes = this.digest.digest();
+    final char[] chars = new char[bytes.length * 2];
+    for (int i = 0; i < bytes.length; i++) {
+      chars[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+      chars[i * 2 + 1] = HEX[bytes[i] & 0xf];
+    }
+    return new String(chars);
+  }
+
+  static String load(File manifest) {
+    if (manifest == null || !manifest.isFile()) {
+      return null;
+    }
+    final Properties properties = new Properties();
+    try (InputStream in = Files.newInputStream(manifest.toPath())) {
+      properties.load(in);
+    } catch (IOException e) {
+      return null;
+    }
+    return properties.getProperty(MANIFEST_KEY);
+  }
+
+  static void store(File manifest, String fingerprint) throws IOException {
+    final File parent = manifest.getParentFile();
+    if (parent != null && !parent.exists()) {
+      parent.mkdirs();
+    }
+    final Properties properties = new Properties();
+    properties.setProperty(MANIFEST_KEY, fingerprint);
+    try (OutputStream out = Files.newOutputStream(manifest.toPath())) {
+      properties.store(out, "jpa-schema-maven-plugin");
+    }
+  }
+}
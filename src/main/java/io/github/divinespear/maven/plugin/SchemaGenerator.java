@@ -0,0 +1,378 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.github.divinespear.maven.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.stream.Stream;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+import io.github.divinespear.maven.plugin.JpaSchemaGeneratorMojo.Vendor;
+
+/**
+ * Embeddable schema generation, same as {@code generate} goal, for tests and tools.
+ * <p>
+ * Entities and providers are loaded by given classloader, thread context classloader by default. Results are cached
+ * per classloader and configuration in this JVM, so a test suite pays for provider bootstrap once. Cache does not keep
+ * classloader alive.
+ *
+ * <pre>
+ * SchemaGenerator.Result schema = SchemaGenerator.builder()
+ *                                                .vendor(Vendor.hibernate)
+ *                                                .packageToScan("com.example.domain")
+ *                                                .databaseProductName("H2")
+ *                                                .build()
+ *                                                .generate();
+ * schema.getCreateStatements().forEach(statement::execute);
+ * </pre>
+ */
+public final class SchemaGenerator {
+
+  /* results by classloader, then by configuration */
+  private static final Map<ClassLoader, Map<String, FutureTask<Result>>> CACHE = new WeakHashMap<>();
+
+  private final Map<String, Object> fields;
+  private final ClassLoader classLoader;
+  private final boolean cache;
+
+  private SchemaGenerator(Builder builder) {
+    this.fields = new HashMap<>(builder.fields);
+    this.fields.put("packageToScan", new ArrayList<>(builder.packageToScan));
+    this.fields.put("properties", new HashMap<>(builder.properties));
+    this.classLoader = builder.classLoader != null ? builder.classLoader
+        : Thread.currentThread().getContextClassLoader();
+    this.cache = builder.cache;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * forget every cached result of this JVM.
+   */
+  public static void clearCache() {
+    synchronized (CACHE) {
+      CACHE.clear();
+    }
+  }
+
+  /**
+   * generate scripts, or cached result of same classloader and configuration.
+   *
+   * @throws IllegalStateException if generation is failed.
+   */
+  public Result generate() {
+    if (!this.cache) {
+      return this.doGenerate();
+    }
+    final String key = this.key();
+    final FutureTask<Result> task;
+    final boolean owner;
+    synchronized (CACHE) {
+      final Map<String, FutureTask<Result>> results = CACHE.computeIfAbsent(this.classLoader, k -> new HashMap<>());
+      final FutureTask<Result> cached = results.get(key);
+      owner = cached == null;
+      task = owner ? new FutureTask<>(this::doGenerate) : cached;
+      if (owner) {
+        results.put(key, task);
+      }
+    }
+    if (owner) {
+      task.run();
+    }
+    try {
+      return task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while generating schema", e);
+    } catch (ExecutionException e) {
+      // failure is not cached
+      synchronized (CACHE) {
+        final Map<String, FutureTask<Result>> results = CACHE.get(this.classLoader);
+        if (results != null) {
+          results.remove(key, task);
+        }
+      }
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  private String key() {
+    final SchemaFingerprint fingerprint = new SchemaFingerprint();
+    for (Map.Entry<String, Object> field : new TreeMap<>(this.fields).entrySet()) {
+      final Object value = field.getValue();
+      if (value instanceof File) {
+        final File file = (File) value;
+        fingerprint.add(field.getKey(), file.getAbsolutePath() + ":" + file.length() + ":" + file.lastModified());
+      } else if (value instanceof Map) {
+        fingerprint.add(field.getKey(), new TreeMap<>((Map<?, ?>) value));
+      } else {
+        fingerprint.add(field.getKey(), value);
+      }
+    }
+    return fingerprint.toHex();
+  }
+
+  private Result doGenerate() {
+    Path directory = null;
+    try {
+      directory = Files.createTempDirectory("jpa-schema");
+      final Map<String, Object> fields = new HashMap<>(this.fields);
+      fields.put("outputDirectory", directory.toFile());
+      fields.put("createOutputFileName", "create.sql");
+      fields.put("dropOutputFileName", "drop.sql");
+      fields.put("reportFileName", "");
+      final JpaSchemaGeneratorMojo mojo = JpaSchemaGeneratorMojo.create(fields);
+      mojo.executeWith(this.classLoader);
+      return new Result(read(directory.resolve("create.sql")), read(directory.resolve("drop.sql")));
+    } catch (MojoExecutionException e) {
+      throw new IllegalStateException(e.getMessage(), e.getCause() != null ? e.getCause() : e);
+    } catch (IOException | ReflectiveOperationException e) {
+      throw new IllegalStateException("Error while generating schema", e);
+    } finally {
+      delete(directory);
+    }
+  }
+
+  /**
+   * script file as written by file sink, in platform encoding. scripts restored from cache are files too, so they are
+   * read back instead of collected from sink.
+   */
+  private static String read(Path file) throws IOException {
+    return Files.isRegularFile(file) ? new String(Files.readAllBytes(file), Charset.defaultCharset()) : "";
+  }
+
+  private static void delete(Path directory) {
+    if (directory == null) {
+      return;
+    }
+    try (Stream<Path> stream = Files.walk(directory)) {
+      stream.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+    } catch (IOException e) {
+      // temporary files, best effort
+    }
+  }
+
+  /**
+   * configuration of {@link SchemaGenerator}, every option is same as parameter of {@code generate} goal.
+   */
+  public static final class Builder {
+
+    private final Map<String, Object> fields = new LinkedHashMap<>();
+    private final List<String> packageToScan = new ArrayList<>();
+    private final Map<String, String> properties = new LinkedHashMap<>();
+    private ClassLoader classLoader;
+    private boolean cache = true;
+
+    private Builder() {
+      this.fields.put("scriptAction", "drop-and-create");
+    }
+
+    private Builder set(String field, Object value) {
+      this.fields.put(field, value);
+      return this;
+    }
+
+    /**
+     * classloader of entities and providers, default is thread context classloader.
+     */
+    public Builder classLoader(ClassLoader classLoader) {
+      this.classLoader = classLoader;
+      return this;
+    }
+
+    /**
+     * reuse result of same classloader and configuration, default is {@code true}.
+     */
+    public Builder cache(boolean cache) {
+      this.cache = cache;
+      return this;
+    }
+
+    public Builder persistenceXml(String persistenceXml) {
+      return this.set("persistenceXml", persistenceXml);
+    }
+
+    public Builder persistenceUnitName(String persistenceUnitName) {
+      return this.set("persistenceUnitName", persistenceUnitName);
+    }
+
+    /**
+     * vendor for project without {@code persistence.xml}, with {@link #packageToScan(String...)}.
+     */
+    public Builder vendor(Vendor vendor) {
+      return this.set("vendor", vendor);
+    }
+
+    public Builder packageToScan(String... packages) {
+      this.packageToScan.addAll(Arrays.asList(packages));
+      return this;
+    }
+
+    /**
+     * script action, {@code create}, {@code drop} or {@code drop-and-create} (default).
+     */
+    public Builder scriptAction(String scriptAction) {
+      return this.set("scriptAction", scriptAction);
+    }
+
+    public Builder createSourceMode(String createSourceMode) {
+      return this.set("createSourceMode", createSourceMode);
+    }
+
+    public Builder createSourceFile(File createSourceFile) {
+      return this.set("createSourceFile", createSourceFile);
+    }
+
+    public Builder dropSourceMode(String dropSourceMode) {
+      return this.set("dropSourceMode", dropSourceMode);
+    }
+
+    public Builder dropSourceFile(File dropSourceFile) {
+      return this.set("dropSourceFile", dropSourceFile);
+    }
+
+    public Builder databaseProductName(String databaseProductName) {
+      return this.set("databaseProductName", databaseProductName);
+    }
+
+    public Builder databaseMajorVersion(Integer databaseMajorVersion) {
+      return this.set("databaseMajorVersion", databaseMajorVersion);
+    }
+
+    public Builder databaseMinorVersion(Integer databaseMinorVersion) {
+      return this.set("databaseMinorVersion", databaseMinorVersion);
+    }
+
+    public Builder jdbcDriver(String jdbcDriver) {
+      return this.set("jdbcDriver", jdbcDriver);
+    }
+
+    public Builder jdbcUrl(String jdbcUrl) {
+      return this.set("jdbcUrl", jdbcUrl);
+    }
+
+    public Builder jdbcUser(String jdbcUser) {
+      return this.set("jdbcUser", jdbcUser);
+    }
+
+    public Builder jdbcPassword(String jdbcPassword) {
+      return this.set("jdbcPassword", jdbcPassword);
+    }
+
+    /**
+     * line separator, {@code LF}, {@code CRLF} or {@code CR}.
+     */
+    public Builder lineSeparator(String lineSeparator) {
+      return this.set("lineSeparator", lineSeparator);
+    }
+
+    public Builder format(boolean format) {
+      return this.set("format", format);
+    }
+
+    /**
+     * JPA vendor specific property.
+     */
+    public Builder property(String key, String value) {
+      this.properties.put(key, value);
+      return this;
+    }
+
+    public Builder properties(Map<String, String> properties) {
+      this.properties.putAll(properties);
+      return this;
+    }
+
+    public SchemaGenerator build() {
+      return new SchemaGenerator(this);
+    }
+  }
+
+  /**
+   * post-processed scripts, same as files written by {@code generate} goal.
+   */
+  public static final class Result {
+
+    private final String createScript;
+    private final String dropScript;
+
+    private Result(String createScript, String dropScript) {
+      this.createScript = createScript;
+      this.dropScript = dropScript;
+    }
+
+    public String getCreateScript() {
+      return createScript;
+    }
+
+    public String getDropScript() {
+      return dropScript;
+    }
+
+    /**
+     * statements of create script, without terminating {@code ;}.
+     */
+    public List<String> getCreateStatements() {
+      return split(this.createScript);
+    }
+
+    /**
+     * statements of drop script, without terminating {@code ;}.
+     */
+    public List<String> getDropStatements() {
+      return split(this.dropScript);
+    }
+
+    private static List<String> split(String script) {
+      final List<String> statements = new ArrayList<>();
+      final StatementSplitter splitter = new StatementSplitter(new StringReader(script));
+      try {
+        String statement;
+        while ((statement = splitter.next()) != null) {
+          statements.add(statement);
+        }
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+      return Collections.unmodifiableList(statements);
+    }
+  }
+}
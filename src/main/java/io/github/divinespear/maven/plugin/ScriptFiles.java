@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.github.divinespear.maven.plugin;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Write-if-changed of script outputs.
+ * <p>
+ * Output with same content is left untouched, so its timestamp does not invalidate resource copying, packaging or
+ * image layers downstream. Changed output is replaced by atomic move, readers never see missing or partial script.
+ */
+final class ScriptFiles {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private ScriptFiles() {
+  }
+
+  static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not supported", e);
+    }
+  }
+
+  static byte[] digest(Path file) throws IOException {
+    final MessageDigest digest = newDigest();
+    final byte[] buffer = new byte[BUFFER_SIZE];
+    try (InputStream in = Files.newInputStream(file)) {
+      int len;
+      while ((len = in.read(buffer)) > 0) {
+        digest.update(buffer, 0, len);
+      }
+    }
+    return digest.digest();
+  }
+
+  /**
+   * {@code true} if target exists with same content, of given SHA-256 and size.
+   */
+  static boolean isSame(Path target, byte[] digest, long size) throws IOException {
+    return Files.isRegularFile(target) && Files.size(target) == size
+           && MessageDigest.isEqual(digest, digest(target));
+  }
+
+  /**
+   * replace target by temporary file, unless target has same content. temporary file is always consumed.
+   *
+   * @param digest SHA-256 of temporary file.
+   * @return {@code true} if target is replaced.
+   */
+  static boolean replace(Path temp, Path target, byte[] digest) throws IOException {
+    try {
+      if (isSame(target, digest, Files.size(temp))) {
+        return false;
+      }
+      move(temp, target);
+      return true;
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /**
+   * copy source to target, unless target has same content.
+   *
+   * @return {@code true} if target is replaced.
+   */
+  static boolean copy(Path source, Path target) throws IOException {
+    if (isSame(target, digest(source), Files.size(source))) {
+      return false;
+    }
+    final Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), "script", null);
+    try {
+      Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING);
+      move(temp, target);
+      return true;
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /**
+   * write content to target, unless target has same content.
+   *
+   * @param digest SHA-256 of content.
+   * @return {@code true} if target is replaced.
+   */
+  static boolean write(Path target, byte[] content, byte[] digest) throws IOException {
+    if (isSame(target, digest, content.length)) {
+      return false;
+    }
+    final Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), "script", null);
+    try {
+      Files.write(temp, content);
+      move(temp, target);
+      return true;
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  private static void move(Path source, Path target) throws IOException {
+    try {
+      Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+}
@@ -0,0 +1,261 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.github.divinespear.maven.plugin;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Script target of provider, given as {@link Writer} target of JPA 2.1 schema generation, post-processed while provider
+ * is still writing.
+ * <p>
+ * Provider output is passed in chunks through bounded queue to post-processing thread, which splits, formats and
+ * writes statements to {@link ScriptSink}. Provider blocks while queue is full, so memory is bounded regardless of
+ * script size. Post-processing thread is started by first use of target, unused target writes nothing, same as script
+ * file never created by provider. Closing pipe does not end the script, providers may close target when done; script
+ * ends by {@link #finish()}.
+ */
+final class ScriptPipe
+    extends Writer {
+
+  static final int CHUNK_SIZE = 16 * 1024;
+  static final int CAPACITY = 16;
+
+  private static final char[] END = new char[0];
+
+  private final ScriptPostProcessor processor;
+  private final ScriptSink sink;
+  private final BlockingQueue<char[]> queue = new ArrayBlockingQueue<>(CAPACITY);
+  private char[] chunk = new char[CHUNK_SIZE];
+  private int length;
+  private Thread consumer;
+  private volatile long statements;
+  private volatile Throwable failure;
+
+  ScriptPipe(ScriptPostProcessor processor, ScriptSink sink) {
+    this.processor = processor;
+    this.sink = sink;
+  }
+
+  @Override
+  public void write(char[] cbuf, int off, int len) throws IOException {
+    synchronized (this.lock) {
+      this.start();
+      while (len > 0) {
+        final int count = Math.min(len, CHUNK_SIZE - this.length);
+        System.arraycopy(cbuf, off, this.chunk, this.length, count);
+        this.length += count;
+        off += count;
+        len -= count;
+        if (this.length == CHUNK_SIZE) {
+          this.push();
+        }
+      }
+    }
+  }
+
+  @Override
+  public void write(String str, int off, int len) throws IOException {
+    synchronized (this.lock) {
+      this.start();
+      while (len > 0) {
+        final int count = Math.min(len, CHUNK_SIZE - this.length);
+        str.getChars(off, off + count, this.chunk, this.length);
+        this.length += count;
+        off += count;
+        len -= count;
+        if (this.length == CHUNK_SIZE) {
+          this.push();
+        }
+      }
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    synchronized (this.lock) {
+      this.start();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.flush();
+  }
+
+  /**
+   * {@code true} if provider used this target.
+   */
+  boolean isStarted() {
+    synchronized (this.lock) {
+      return this.consumer != null;
+    }
+  }
+
+  /**
+   * end of script, wait until post-processing is done and finish sink.
+   */
+  void finish() throws IOException {
+    final Thread thread;
+    synchronized (this.lock) {
+      thread = this.consumer;
+      if (thread == null) {
+        throw new IllegalStateException("target is not used by provider.");
+      }
+      if (this.length > 0) {
+        this.push();
+      }
+      this.put(END);
+    }
+    try {
+      thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      this.abort();
+      throw new InterruptedIOException("interrupted while post-processing script");
+    }
+    if (this.failure != null) {
+      this.sink.abort();
+      throw this.failure instanceof IOException ? (IOException) this.failure
+          : new IOException("Error while post-processing script", this.failure);
+    }
+    this.sink.finish();
+  }
+
+  /**
+   * count of post-processed statements, after {@link #finish()}.
+   */
+  long getStatements() {
+    return statements;
+  }
+
+  /**
+   * stop post-processing of failed generation, and discard its output.
+   */
+  void abort() {
+    final Thread thread;
+    synchronized (this.lock) {
+      thread = this.consumer;
+      if (thread == null) {
+        return;
+      }
+      if (this.failure == null) {
+        this.failure = new IOException("generation is aborted.");
+      }
+    }
+    thread.interrupt();
+    try {
+      thread.join(TimeUnit.SECONDS.toMillis(10));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    this.sink.abort();
+  }
+
+  private void start() throws IOException {
+    if (this.failure != null) {
+      throw new IOException("Error while post-processing script", this.failure);
+    }
+    if (this.consumer != null) {
+      return;
+    }
+    this.consumer = new Thread(this::consume, "jpa-schema-post-process");
+    this.consumer.setDaemon(true);
+    this.consumer.start();
+  }
+
+  private void push() throws IOException {
+    this.put(this.chunk);
+    this.chunk = new char[CHUNK_SIZE];
+    this.length = 0;
+  }
+
+  private void put(char[] chunk) throws IOException {
+    final char[] value = chunk == END || this.length == chunk.length ? chunk : copyOf(chunk, this.length);
+    try {
+      // failed consumer never takes again
+      while (!this.queue.offer(value, 100, TimeUnit.MILLISECONDS)) {
+        if (this.failure != null) {
+          throw new IOException("Error while post-processing script", this.failure);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("interrupted while writing script");
+    }
+  }
+
+  private static char[] copyOf(char[] chunk, int length) {
+    final char[] copy = new char[length];
+    System.arraycopy(chunk, 0, copy, 0, length);
+    return copy;
+  }
+
+  private void consume() {
+    try {
+      this.statements = this.processor.process(new QueueReader(), this.sink);
+    } catch (Throwable e) {
+      if (this.failure == null) {
+        this.failure = e;
+      }
+    }
+  }
+
+  /**
+   * chunks of queue as stream, until end of script.
+   */
+  private final class QueueReader
+      extends Reader {
+
+    private char[] current = new char[0];
+    private int position;
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      while (this.position == this.current.length) {
+        if (this.current == END) {
+          return -1;
+        }
+        try {
+          this.current = queue.take();
+        } catch (InterruptedException e) {
+          throw new InterruptedIOException("post-processing is aborted.");
+        }
+        this.position = 0;
+      }
+      final int count = Math.min(len, this.current.length - this.position);
+      System.arraycopy(this.current, this.position, cbuf, off, count);
+      this.position += count;
+      return count;
+    }
+
+    @Override
+    public void close() {
+      // queue is owned by pipe
+    }
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.github.divinespear.maven.plugin;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+/**
+ * Rewrites generated script as one statement per line (or per block if formatted), with given line separator.
+ */
+final class ScriptPostProcessor {
+
+  private final String lineSeparator;
+  private final boolean format;
+
+  ScriptPostProcessor(String lineSeparator, boolean format) {
+    this.lineSeparator = lineSeparator;
+    this.format = format;
+  }
+
+  private String format(String statement) {
+    // formatter leaves CRLF on statements it does not know
+    final String formatted = DdlFormatter.format(statement, lineSeparator);
+    int index = formatted.indexOf("\r\n");
+    if (index < 0 || "\r\n".equals(lineSeparator)) {
+      return formatted;
+    }
+    final StringBuilder builder = new StringBuilder(formatted.length());
+    int copied = 0;
+    while (index >= 0) {
+      builder.append(formatted, copied, index).append(lineSeparator);
+      copied = index + 2;
+      index = formatted.indexOf("\r\n", copied);
+    }
+    return builder.append(formatted, copied, formatted.length()).toString();
+  }
+
+  /**
+   * statement as written to script, with terminator and line separator.
+   */
+  private String render(String statement) {
+    final StringBuilder builder = new StringBuilder(format ? format(statement) : statement);
+    builder.append(';').append(lineSeparator);
+    if (format) {
+      builder.append(lineSeparator);
+    }
+    return builder.toString();
+  }
+
+  /**
+   * @return count of statements
+   */
+  long process(Reader reader, Writer writer) throws IOException {
+    final StatementSplitter splitter = new StatementSplitter(reader);
+    long count = 0;
+    String statement;
+    while ((statement = splitter.next()) != null) {
+      writer.write(render(statement));
+      count++;
+    }
+    writer.flush();
+    return count;
+  }
+
+  /**
+   * @return count of statements
+   */
+  long process(Reader reader, ScriptSink sink) throws IOException {
+    final StatementSplitter splitter = new StatementSplitter(reader);
+    long count = 0;
+    String statement;
+    while ((statement = splitter.next()) != null) {
+      sink.write(statement, render(statement));
+      count++;
+    }
+    return count;
+  }
+}
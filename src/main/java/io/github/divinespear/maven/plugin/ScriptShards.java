@@ -0,0 +1,354 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.github.divinespear.maven.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Post-processed statements of single script, written as one file per table with ordered manifest.
+ * <p>
+ * Statement goes to shard of its table: {@code create}, {@code alter} and {@code drop} of table, its indexes, comments
+ * and rows, and sequence named after table like {@code <table>_seq}. Other sequences have their own shard, and
+ * anything else goes to {@code _other}. Shards are listed in manifest by order of their first statement, moved after
+ * shards referenced by their foreign keys. Foreign keys of cyclic references cannot be added by any order of tables,
+ * so they are moved to {@code _constraints} listed last. Drop script has no references to order by, so every
+ * {@code drop constraint} is moved to {@code _constraints} listed first, and tables are dropped after every foreign key
+ * is gone. Applying shards in manifest order works same as single script.
+ * <p>
+ * Manifest lists SHA-256 and file name of each shard, same format as {@code sha256sum}. Shard with same content is
+ * left untouched, and shards listed in previous manifest but not generated anymore are deleted.
+ */
+final class ScriptShards {
+
+  static final String MANIFEST = "manifest.sha256";
+  static final String OTHER = "_other";
+  static final String CONSTRAINTS = "_constraints";
+
+  private static final String PART = "(?:\"[^\"]+\"|`[^`]+`|\\[[^\\]]+\\]|[\\w$#]+)";
+  private static final String NAME = "(" + PART + "(?:\\s*\\.\\s*" + PART + ")*)";
+  private static final String ANY_NAME = PART + "(?:\\s*\\.\\s*" + PART + ")*";
+
+  private static final Pattern TABLE = Pattern.compile(
+      "(?:create|alter|drop)\\s+(?:(?:global|local)\\s+)?(?:(?:temporary|temp|cached|memory|unlogged)\\s+)?table\\s+"
+      + "(?:if\\s+(?:not\\s+)?exists\\s+)?(?:only\\s+)?" + NAME, Pattern.CASE_INSENSITIVE);
+  private static final Pattern INDEX = Pattern.compile(
+      "(?:create\\s+(?:unique\\s+)?(?:(?:clustered|nonclustered|bitmap)\\s+)?|drop\\s+)index\\s+"
+      + "(?:if\\s+(?:not\\s+)?exists\\s+)?" + ANY_NAME + "\\s+on\\s+" + NAME, Pattern.CASE_INSENSITIVE);
+  private static final Pattern COMMENT = Pattern.compile(
+      "comment\\s+on\\s+(table|column)\\s+" + NAME, Pattern.CASE_INSENSITIVE);
+  private static final Pattern ROWS = Pattern.compile(
+      "(?:insert\\s+into|delete\\s+from|update)\\s+" + NAME, Pattern.CASE_INSENSITIVE);
+  private static final Pattern SEQUENCE = Pattern.compile(
+      "(?:create|alter|drop)\\s+sequence\\s+(?:if\\s+(?:not\\s+)?exists\\s+)?" + NAME, Pattern.CASE_INSENSITIVE);
+  private static final Pattern REFERENCES = Pattern.compile(
+      "\\breferences\\s+" + NAME, Pattern.CASE_INSENSITIVE);
+  private static final Pattern DROP_CONSTRAINT = Pattern.compile(
+      "\\bdrop\\s+(?:constraint|foreign\\s+key)\\b", Pattern.CASE_INSENSITIVE);
+
+  private final List<Entry> entries = new ArrayList<>();
+  private List<Shard> shards;
+
+  /**
+   * add statement, in order of script.
+   *
+   * @param statement statement without terminator, to find its table.
+   * @param text post-processed statement as written to script.
+   */
+  void add(String statement, String text) {
+    this.shards = null;
+    final String trimmed = statement.trim();
+    final Entry entry = new Entry(text);
+    Matcher matcher;
+    if ((matcher = TABLE.matcher(trimmed)).lookingAt()) {
+      entry.table = key(matcher.group(1));
+      entry.alter = trimmed.regionMatches(true, 0, "alter", 0, 5);
+      entry.dropConstraint = entry.alter && DROP_CONSTRAINT.matcher(trimmed).find();
+    } else if ((matcher = INDEX.matcher(trimmed)).lookingAt() || (matcher = ROWS.matcher(trimmed)).lookingAt()) {
+      entry.table = key(matcher.group(1));
+    } else if ((matcher = COMMENT.matcher(trimmed)).lookingAt()) {
+      final String name = key(matcher.group(2));
+      final int dot = name.lastIndexOf('.');
+      entry.table = "column".equalsIgnoreCase(matcher.group(1)) && dot > 0 ? name.substring(0, dot) : name;
+    } else if ((matcher = SEQUENCE.matcher(trimmed)).lookingAt()) {
+      entry.sequence = key(matcher.group(1));
+    }
+    matcher = REFERENCES.matcher(trimmed);
+    while (matcher.find()) {
+      entry.references.add(key(matcher.group(1)));
+    }
+    this.entries.add(entry);
+  }
+
+  /**
+   * count of shards.
+   */
+  int size() {
+    return this.shards().size();
+  }
+
+  /**
+   * write shards and manifest into directory.
+   *
+   * @return count of shards written, unchanged shards are not counted.
+   */
+  int write(File directory) throws IOException {
+    final Path path = directory.toPath();
+    Files.createDirectories(path);
+    final Set<String> previous = readManifest(path.resolve(MANIFEST));
+
+    // output is encoded with platform encoding, same as single script
+    final Charset charset = Charset.defaultCharset();
+    final StringBuilder manifest = new StringBuilder();
+    final Set<String> files = new HashSet<>();
+    int written = 0;
+    for (Shard shard : this.shards()) {
+      final String file = fileName(shard.key, files);
+      final byte[] content = shard.content().getBytes(charset);
+      final byte[] digest = ScriptFiles.newDigest().digest(content);
+      if (ScriptFiles.write(path.resolve(file), content, digest)) {
+        written++;
+      }
+      manifest.append(toHex(digest)).append("  ").append(file).append('\n');
+    }
+    for (String file : previous) {
+      if (!files.contains(file)) {
+        Files.deleteIfExists(path.resolve(file));
+      }
+    }
+    final byte[] content = manifest.toString().getBytes(StandardCharsets.UTF_8);
+    ScriptFiles.write(path.resolve(MANIFEST), content, ScriptFiles.newDigest().digest(content));
+    return written;
+  }
+
+  /**
+   * shards in order to apply, {@code drop constraint} of every table first.
+   */
+  private List<Shard> shards() {
+    if (this.shards == null) {
+      final List<Shard> shards = this.order(this.group());
+      final Shard dropped = new Shard(CONSTRAINTS);
+      for (Entry entry : this.entries) {
+        if (entry.dropConstraint) {
+          dropped.entries.add(entry);
+        }
+      }
+      if (!dropped.entries.isEmpty()) {
+        shards.add(0, dropped);
+      }
+      this.shards = shards;
+    }
+    return this.shards;
+  }
+
+  /**
+   * shards by order of first statement, sequence named after table is part of table. {@code drop constraint} is not
+   * part of any table.
+   */
+  private Map<String, Shard> group() {
+    final Set<String> tables = new HashSet<>();
+    for (Entry entry : this.entries) {
+      if (entry.table != null) {
+        tables.add(entry.table);
+      }
+    }
+    final Map<String, Shard> shards = new LinkedHashMap<>();
+    for (Entry entry : this.entries) {
+      if (entry.dropConstraint) {
+        continue;
+      }
+      final String key = entry.table != null ? entry.table
+          : entry.sequence != null ? ownerOf(entry.sequence, tables)
+          : OTHER;
+      final Shard shard = shards.computeIfAbsent(key, Shard::new);
+      shard.entries.add(entry);
+      shard.references.addAll(entry.references);
+    }
+    return shards;
+  }
+
+  private static String ownerOf(String sequence, Set<String> tables) {
+    final int dot = sequence.lastIndexOf('.');
+    final String schema = sequence.substring(0, dot + 1);
+    final String name = sequence.substring(dot + 1);
+    for (String candidate : new String[] {
+        name.endsWith("_seq") ? name.substring(0, name.length() - 4) : null,
+        name.endsWith("_sequence") ? name.substring(0, name.length() - 9) : null,
+        name.startsWith("seq_") ? name.substring(4) : null }) {
+      if (candidate != null && tables.contains(schema + candidate)) {
+        return schema + candidate;
+      }
+    }
+    return sequence;
+  }
+
+  /**
+   * order of first statement, except shard is moved after shards it references. shards of cycle are left in order of
+   * first statement, and their {@code alter table} referencing later shard is moved to constraints shard listed last.
+   */
+  private List<Shard> order(Map<String, Shard> shards) {
+    final List<Shard> remaining = new ArrayList<>(shards.values());
+    final List<Shard> ordered = new ArrayList<>(remaining.size());
+    final Set<String> done = new HashSet<>();
+    while (!remaining.isEmpty()) {
+      int next = 0;
+      for (int i = 0; i < remaining.size(); i++) {
+        if (isReady(remaining.get(i), shards, done)) {
+          next = i;
+          break;
+        }
+      }
+      final Shard shard = remaining.remove(next);
+      ordered.add(shard);
+      done.add(shard.key);
+    }
+
+    final Shard constraints = new Shard(CONSTRAINTS);
+    final Set<String> created = new HashSet<>();
+    for (Shard shard : ordered) {
+      created.add(shard.key);
+      for (Iterator<Entry> iterator = shard.entries.iterator(); iterator.hasNext(); ) {
+        final Entry entry = iterator.next();
+        if (entry.alter && isForward(entry, shards, created)) {
+          iterator.remove();
+          constraints.entries.add(entry);
+        }
+      }
+    }
+    if (!constraints.entries.isEmpty()) {
+      ordered.add(constraints);
+    }
+    return ordered;
+  }
+
+  /**
+   * {@code true} if statement references shard not applied yet.
+   */
+  private static boolean isForward(Entry entry, Map<String, Shard> shards, Set<String> created) {
+    for (String reference : entry.references) {
+      if (shards.containsKey(reference) && !created.contains(reference)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isReady(Shard shard, Map<String, Shard> shards, Set<String> done) {
+    for (String reference : shard.references) {
+      if (!reference.equals(shard.key) && shards.containsKey(reference) && !done.contains(reference)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * identifier without quotes, in lower case.
+   */
+  private static String key(String name) {
+    final StringBuilder builder = new StringBuilder(name.length());
+    for (char c : name.toCharArray()) {
+      if (c != '"' && c != '`' && c != '[' && c != ']' && !Character.isWhitespace(c)) {
+        builder.append(c);
+      }
+    }
+    return builder.toString().toLowerCase(Locale.ROOT);
+  }
+
+  private static String fileName(String key, Set<String> files) {
+    final String base = key.replaceAll("[^a-z0-9_.-]", "_");
+    String file = base + ".sql";
+    for (int i = 2; !files.add(file); i++) {
+      file = base + "-" + i + ".sql";
+    }
+    return file;
+  }
+
+  private static Set<String> readManifest(Path manifest) throws IOException {
+    final Set<String> files = new LinkedHashSet<>();
+    if (!Files.isRegularFile(manifest)) {
+      return files;
+    }
+    for (String line : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+      final int index = line.indexOf("  ");
+      // never delete outside of directory
+      final String file = index > 0 ? line.substring(index + 2) : "";
+      if (!file.isEmpty() && !file.startsWith(".") && file.indexOf('/') < 0 && file.indexOf('\\') < 0) {
+        files.add(file);
+      }
+    }
+    return files;
+  }
+
+  private static String toHex(byte[] bytes) {
+    final StringBuilder builder = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      builder.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+    }
+    return builder.toString();
+  }
+
+  private static final class Entry {
+
+    private final String text;
+    private final Set<String> references = new HashSet<>();
+    private String table;
+    private String sequence;
+    private boolean alter;
+    private boolean dropConstraint;
+
+    Entry(String text) {
+      this.text = text;
+    }
+  }
+
+  private static final class Shard {
+
+    private final String key;
+    private final List<Entry> entries = new ArrayList<>();
+    private final Set<String> references = new HashSet<>();
+
+    Shard(String key) {
+      this.key = key;
+    }
+
+    String content() {
+      final StringBuilder builder = new StringBuilder();
+      for (Entry entry : this.entries) {
+        builder.append(entry.text);
+      }
+      return builder.toString();
+    }
+  }
+}
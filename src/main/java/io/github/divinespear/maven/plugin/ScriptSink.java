@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.github.divinespear.maven.plugin;
+
+import java.io.IOException;
+
+/**
+ * Destination of post-processed statements of single script.
+ * <p>
+ * Statements are written by post-processing thread in order of script. Sink is finished, or aborted if generation is
+ * failed, by generation thread after post-processing is done.
+ */
+interface ScriptSink {
+
+  /**
+   * @param statement statement without terminator, as executed by database.
+   * @param text post-processed statement with terminator and line separator, as written to script.
+   */
+  void write(String statement, String text) throws IOException;
+
+  /**
+   * end of script, make output visible.
+   */
+  void finish() throws IOException;
+
+  /**
+   * discard partial output, also called after {@link #finish()} when another script is failed.
+   */
+  void abort();
+}
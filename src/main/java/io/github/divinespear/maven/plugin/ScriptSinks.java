@@ -0,0 +1,497 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.github.divinespear.maven.plugin;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.lang.NullArgumentException;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Built-in {@link ScriptSink}s, selected by name for each execution.
+ * <ul>
+ * <li>{@code file}: output file, or shards of output if {@code shardByTable} is set</li>
+ * <li>{@code gzip}: output file compressed, with {@code .gz} extension</li>
+ * <li>{@code stdout}: standard output, for piping into database client</li>
+ * <li>{@code jdbc}: statements executed on {@code jdbcUrl} while generating</li>
+ * </ul>
+ * Scripts of same database or standard output are written in order of generation, so drop script never runs after
+ * create script. Script started later is buffered in memory until earlier one is finished.
+ */
+final class ScriptSinks {
+
+  static final String FILE = "file";
+  static final String GZIP = "gzip";
+  static final String STDOUT = "stdout";
+  static final String JDBC = "jdbc";
+  static final List<String> NAMES = Collections.unmodifiableList(Arrays.asList(FILE, GZIP, STDOUT, JDBC));
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  /* standard output is shared by every execution of this JVM */
+  private static final Sequence STANDARD_OUTPUT = new Sequence();
+
+  /**
+   * connection to database of task, for {@code jdbc} sink.
+   */
+  interface Connector {
+
+    Connection connect(GenerationTask task) throws SQLException;
+  }
+
+  private final Log log;
+  private final BuildReport report;
+  private final Connector connector;
+  private final Map<GenerationTask, Sequence> databases = new HashMap<>();
+
+  ScriptSinks(Log log, BuildReport report, Connector connector) {
+    this.log = log;
+    this.report = report;
+    this.connector = connector;
+  }
+
+  /**
+   * sinks of task, in lower case, {@code file} if none is selected.
+   */
+  static List<String> namesOf(GenerationTask task) {
+    final List<String> names = new ArrayList<>();
+    for (String name : task.getSinks()) {
+      if (name != null && !name.trim().isEmpty()) {
+        names.add(name.trim().toLowerCase(Locale.ROOT));
+      }
+    }
+    return names.isEmpty() ? Collections.singletonList(FILE) : names;
+  }
+
+  /**
+   * sink of create or drop script of task.
+   *
+   * @throws IllegalArgumentException if sink is unknown.
+   */
+  ScriptSink create(GenerationTask task, boolean drop) {
+    final List<ScriptSink> sinks = new ArrayList<>();
+    for (String name : namesOf(task)) {
+      sinks.add(this.create(name, task, drop));
+    }
+    return sinks.size() == 1 ? sinks.get(0) : new Tee(sinks);
+  }
+
+  private ScriptSink create(String name, GenerationTask task, boolean drop) {
+    switch (name) {
+      case FILE:
+      case GZIP:
+        if (task.getOutputDirectory() == null) {
+          throw new NullArgumentException("outputDirectory is required for script generation.");
+        }
+        if (FILE.equals(name) && task.isShardByTable()) {
+          return new ShardSink(drop ? task.getDropShardDirectory() : task.getCreateShardDirectory());
+        }
+        final File output = drop ? task.getDropOutputFile() : task.getCreateOutputFile();
+        return GZIP.equals(name) ? new FileSink(new File(output.getParentFile(), output.getName() + ".gz"), true)
+            : new FileSink(output, false);
+      case STDOUT:
+        return new StandardOutputSink(STANDARD_OUTPUT, System.out);
+      case JDBC:
+        synchronized (this.databases) {
+          return new JdbcSink(this.databases.computeIfAbsent(task, k -> new Sequence()), task, drop);
+        }
+      default:
+        throw new IllegalArgumentException("unknown sink " + name + ", expected one of " + NAMES);
+    }
+  }
+
+  /**
+   * post-processed file, replaced only if its content is changed.
+   */
+  private final class FileSink
+      implements ScriptSink {
+
+    private final File output;
+    private final boolean compress;
+    private final MessageDigest digest = ScriptFiles.newDigest();
+    private File temp;
+    private Writer writer;
+
+    FileSink(File output, boolean compress) {
+      this.output = output;
+      this.compress = compress;
+    }
+
+    @Override
+    public void write(String statement, String text) throws IOException {
+      this.open().write(text);
+    }
+
+    private Writer open() throws IOException {
+      if (this.writer != null) {
+        return this.writer;
+      }
+      this.temp = File.createTempFile("script", null, this.output.getAbsoluteFile().getParentFile());
+      // output is encoded with platform encoding, same as scripts written by provider itself
+      OutputStream out = new DigestOutputStream(Channels.newOutputStream(FileChannel.open(
+          this.temp.toPath(), StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)), this.digest);
+      if (this.compress) {
+        out = new GZIPOutputStream(out, BUFFER_SIZE);
+      }
+      this.writer = new BufferedWriter(new OutputStreamWriter(
+          out, Charset.defaultCharset().newEncoder()
+                      .onMalformedInput(CodingErrorAction.REPLACE)
+                      .onUnmappableCharacter(CodingErrorAction.REPLACE)), BUFFER_SIZE);
+      return this.writer;
+    }
+
+    @Override
+    public void finish() throws IOException {
+      // empty script is still written
+      this.open().close();
+      final long length = this.temp.length();
+      // unchanged output keeps its timestamp, changed one is replaced at once.
+      if (ScriptFiles.replace(this.temp.toPath(), this.output.toPath(), this.digest.digest())) {
+        report.add("bytes-written", length);
+      } else {
+        log.info(this.output.getName() + " is not changed.");
+        report.add("unchanged-outputs", 1);
+      }
+    }
+
+    @Override
+    public void abort() {
+      if (this.writer != null) {
+        try {
+          this.writer.close();
+        } catch (IOException e) {
+          // discarded
+        }
+      }
+      if (this.temp != null) {
+        this.temp.delete();
+      }
+    }
+  }
+
+  /**
+   * one file per table, see {@link ScriptShards}.
+   */
+  private final class ShardSink
+      implements ScriptSink {
+
+    private final File directory;
+    private final ScriptShards shards = new ScriptShards();
+
+    ShardSink(File directory) {
+      this.directory = directory;
+    }
+
+    @Override
+    public void write(String statement, String text) {
+      this.shards.add(statement, text);
+    }
+
+    @Override
+    public void finish() throws IOException {
+      final int written = this.shards.write(this.directory);
+      log.info(written + " of " + this.shards.size() + " shards of " + this.directory.getName() + " are changed.");
+      report.add("shards", this.shards.size());
+      report.add("shards-written", written);
+    }
+
+    @Override
+    public void abort() {
+      // nothing is written until finished
+    }
+  }
+
+  /**
+   * several sinks of same script.
+   */
+  private static final class Tee
+      implements ScriptSink {
+
+    private final List<ScriptSink> sinks;
+
+    Tee(List<ScriptSink> sinks) {
+      this.sinks = sinks;
+    }
+
+    @Override
+    public void write(String statement, String text) throws IOException {
+      for (ScriptSink sink : this.sinks) {
+        sink.write(statement, text);
+      }
+    }
+
+    @Override
+    public void finish() throws IOException {
+      IOException failure = null;
+      for (ScriptSink sink : this.sinks) {
+        try {
+          sink.finish();
+        } catch (IOException e) {
+          if (failure == null) {
+            failure = e;
+          } else {
+            failure.addSuppressed(e);
+          }
+        }
+      }
+      if (failure != null) {
+        throw failure;
+      }
+    }
+
+    @Override
+    public void abort() {
+      for (ScriptSink sink : this.sinks) {
+        sink.abort();
+      }
+    }
+  }
+
+  /**
+   * destination shared by several scripts, owned by one script at a time.
+   */
+  private static final class Sequence {
+
+    /* scripts started while destination is owned, in order of their first statement */
+    private final List<SerialSink> waiting = new ArrayList<>();
+    private SerialSink owner;
+  }
+
+  /**
+   * sink of shared destination, statements of script not owning destination are kept until earlier one is done.
+   */
+  private abstract static class SerialSink
+      implements ScriptSink {
+
+    private final Sequence sequence;
+    private final List<String[]> pending = new ArrayList<>();
+    private boolean finished;
+
+    SerialSink(Sequence sequence) {
+      this.sequence = sequence;
+    }
+
+    abstract void deliver(String statement, String text) throws IOException;
+
+    /**
+     * end of this script on destination.
+     */
+    abstract void close() throws IOException;
+
+    abstract void discard();
+
+    @Override
+    public final void write(String statement, String text) throws IOException {
+      synchronized (this.sequence) {
+        if (this.claim()) {
+          this.deliver(statement, text);
+          return;
+        }
+        if (!this.sequence.waiting.contains(this)) {
+          this.sequence.waiting.add(this);
+        }
+        this.pending.add(new String[] { statement, text });
+      }
+    }
+
+    /**
+     * own destination if it is free and this is next script, with delivering pending statements.
+     */
+    private boolean claim() throws IOException {
+      if (this.sequence.owner == this) {
+        return true;
+      }
+      final List<SerialSink> waiting = this.sequence.waiting;
+      if (this.sequence.owner != null || !(waiting.isEmpty() || waiting.get(0) == this)) {
+        return false;
+      }
+      waiting.remove(this);
+      this.sequence.owner = this;
+      for (String[] statement : this.pending) {
+        this.deliver(statement[0], statement[1]);
+      }
+      this.pending.clear();
+      return true;
+    }
+
+    @Override
+    public final void finish() throws IOException {
+      synchronized (this.sequence) {
+        this.finished = true;
+        if (!this.claim()) {
+          // delivered when earlier script is finished
+          return;
+        }
+        try {
+          this.close();
+        } finally {
+          this.sequence.owner = null;
+        }
+        // scripts finished while waiting are done at once, next unfinished one owns destination
+        while (!this.sequence.waiting.isEmpty()) {
+          final SerialSink next = this.sequence.waiting.get(0);
+          next.claim();
+          if (!next.finished) {
+            break;
+          }
+          try {
+            next.close();
+          } finally {
+            this.sequence.owner = null;
+          }
+        }
+      }
+    }
+
+    @Override
+    public final void abort() {
+      synchronized (this.sequence) {
+        this.finished = true;
+        this.pending.clear();
+        this.sequence.waiting.remove(this);
+        if (this.sequence.owner == this) {
+          this.sequence.owner = null;
+        }
+        this.discard();
+      }
+    }
+  }
+
+  /**
+   * post-processed script to standard output.
+   */
+  private static final class StandardOutputSink
+      extends SerialSink {
+
+    private final PrintStream out;
+
+    StandardOutputSink(Sequence sequence, PrintStream out) {
+      super(sequence);
+      this.out = out;
+    }
+
+    @Override
+    void deliver(String statement, String text) {
+      this.out.print(text);
+    }
+
+    @Override
+    void close() throws IOException {
+      this.out.flush();
+      if (this.out.checkError()) {
+        throw new IOException("Error while writing script to standard output");
+      }
+    }
+
+    @Override
+    void discard() {
+      this.out.flush();
+    }
+  }
+
+  /**
+   * statements executed on database of task, each statement is committed as executed.
+   * <p>
+   * failed statement of drop script is warned and skipped, objects to drop may not exist yet.
+   */
+  private final class JdbcSink
+      extends SerialSink {
+
+    private final GenerationTask task;
+    private final boolean drop;
+    private Connection connection;
+    private long executed;
+    private long failed;
+
+    JdbcSink(Sequence sequence, GenerationTask task, boolean drop) {
+      super(sequence);
+      this.task = task;
+      this.drop = drop;
+    }
+
+    @Override
+    void deliver(String statement, String text) throws IOException {
+      try {
+        if (this.connection == null) {
+          this.connection = connector.connect(this.task);
+          this.connection.setAutoCommit(true);
+        }
+      } catch (SQLException e) {
+        throw new IOException("Error while connecting to " + this.task.getJdbcUrl(), e);
+      }
+      try (Statement jdbc = this.connection.createStatement()) {
+        jdbc.execute(statement);
+        this.executed++;
+      } catch (SQLException e) {
+        if (!this.drop) {
+          throw new IOException("Error while executing statement: " + statement, e);
+        }
+        log.warn("drop statement failed, ignored: " + statement + " (" + e.getMessage() + ")");
+        this.failed++;
+      }
+    }
+
+    @Override
+    void close() throws IOException {
+      report.add("executed-statements", this.executed);
+      if (this.failed > 0) {
+        report.add("ignored-drop-statements", this.failed);
+      }
+      this.discard();
+    }
+
+    @Override
+    void discard() {
+      if (this.connection == null) {
+        return;
+      }
+      try {
+        this.connection.close();
+      } catch (SQLException e) {
+        log.debug("cannot close connection", e);
+      } finally {
+        this.connection = null;
+      }
+    }
+  }
+}
@@ -0,0 +1,346 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.github.divinespear.maven.plugin;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Streaming splitter of SQL script, reads script once and keeps only current statement in memory.
+ * <p>
+ * Statement is ended by {@code ;}, by line break outside of parentheses, or before {@code create}, {@code drop} or
+ * {@code alter} of {@code table}, {@code view} and {@code sequence}, like providers write scripts. Quoted literals and
+ * identifiers, and dollar-quoted strings are copied as-is. Comments are not a part of statement.
+ */
+final class StatementSplitter {
+
+  private static final int BUFFER_SIZE = 8192;
+  private static final int EOF = -1;
+
+  private final Reader reader;
+  private final char[] buffer = new char[BUFFER_SIZE];
+  private int position;
+  private int limit;
+  private int pushback = EOF;
+
+  private final StringBuilder statement = new StringBuilder(256);
+  private final StringBuilder tag = new StringBuilder();
+  private int depth;
+  /* skip whitespaces after line break or comment */
+  private boolean collapse;
+  /* last word of statement outside of parentheses, followed by whitespaces only. -1 if none. */
+  private int lastWordStart = -1;
+  private int lastWordEnd = -1;
+
+  StatementSplitter(Reader reader) {
+    this.reader = reader;
+  }
+
+  private int read() throws IOException {
+    if (pushback != EOF) {
+      final int c = pushback;
+      pushback = EOF;
+      return c;
+    }
+    if (position == limit) {
+      limit = reader.read(buffer, 0, BUFFER_SIZE);
+      position = 0;
+      if (limit <= 0) {
+        limit = 0;
+        return EOF;
+      }
+    }
+    return buffer[position++];
+  }
+
+  private void unread(int c) {
+    pushback = c;
+  }
+
+  /**
+   * consume next character if it is expected one.
+   */
+  private boolean peek(char expected) throws IOException {
+    final int c = read();
+    if (c == expected) {
+      return true;
+    }
+    unread(c);
+    return false;
+  }
+
+  private static boolean isIdentifierPart(int c) {
+    return c == '_' || c == '$' || Character.isLetterOrDigit(c);
+  }
+
+  private static boolean isLineBreak(int c) {
+    return c == '\n' || c == '\r';
+  }
+
+  private boolean endsWithIdentifierPart() {
+    return statement.length() > 0 && isIdentifierPart(statement.charAt(statement.length() - 1));
+  }
+
+  private void appendSpace() {
+    collapse = true;
+    final int length = statement.length();
+    if (length > 0 && !Character.isWhitespace(statement.charAt(length - 1))) {
+      statement.append(' ');
+    }
+  }
+
+  /**
+   * next statement without terminator, or {@code null} if no more statement.
+   */
+  String next() throws IOException {
+    int c;
+    while ((c = read()) != EOF) {
+      if (collapse) {
+        if (c == ' ' || c == '\t') {
+          continue;
+        }
+        collapse = false;
+      }
+      if (isIdentifierPart(c) && c != '$' && !endsWithIdentifierPart()) {
+        final String split = word(c);
+        if (split != null) {
+          return split;
+        }
+        continue;
+      }
+      switch (c) {
+        case ';':
+          if (!isBlank()) {
+            return take();
+          }
+          reset();
+          break;
+        case '\n':
+        case '\r':
+          if (depth == 0) {
+            if (!isBlank()) {
+              return take();
+            }
+            reset();
+          } else {
+            appendSpace();
+          }
+          break;
+        case '(':
+          depth++;
+          statement.append((char) c);
+          break;
+        case ')':
+          depth = Math.max(0, depth - 1);
+          statement.append((char) c);
+          break;
+        case '\'':
+        case '"':
+        case '`':
+          quoted((char) c);
+          break;
+        case '$':
+          dollar();
+          break;
+        case '-':
+          if (peek('-')) {
+            lineComment();
+          } else {
+            statement.append('-');
+          }
+          break;
+        case '/':
+          if (peek('*')) {
+            blockComment();
+          } else {
+            statement.append('/');
+          }
+          break;
+        default:
+          statement.append((char) c);
+      }
+      if (!Character.isWhitespace(c)) {
+        // only whitespaces are allowed between words of keyword
+        lastWordStart = -1;
+      }
+    }
+    if (!isBlank()) {
+      return take();
+    }
+    return null;
+  }
+
+  /**
+   * read word, and split statement if word completes keyword of new statement.
+   */
+  private String word(int first) throws IOException {
+    final int keywordStart = lastWordStart;
+    final int keywordEnd = lastWordEnd;
+    final int start = statement.length();
+    statement.append((char) first);
+    int c;
+    while ((c = read()) != EOF && isIdentifierPart(c)) {
+      statement.append((char) c);
+    }
+    unread(c);
+    final int end = statement.length();
+    if (depth == 0 && keywordStart > 0 && isObjectKeyword(start, end) && isStatementKeyword(keywordStart, keywordEnd)
+        && !isBlank(0, keywordStart)) {
+      final String split = statement.substring(0, keywordStart).trim();
+      statement.delete(0, keywordStart);
+      lastWordStart = start - keywordStart;
+      lastWordEnd = end - keywordStart;
+      return split;
+    }
+    lastWordStart = depth == 0 ? start : -1;
+    lastWordEnd = end;
+    return null;
+  }
+
+  private boolean isStatementKeyword(int start, int end) {
+    return matches(start, end, "create") || matches(start, end, "drop") || matches(start, end, "alter");
+  }
+
+  private boolean isObjectKeyword(int start, int end) {
+    return matches(start, end, "table") || matches(start, end, "view") || matches(start, end, "sequence");
+  }
+
+  private boolean matches(int start, int end, String keyword) {
+    if (end - start != keyword.length()) {
+      return false;
+    }
+    for (int i = 0; i < keyword.length(); i++) {
+      if (Character.toLowerCase(statement.charAt(start + i)) != keyword.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void quoted(char quote) throws IOException {
+    statement.append(quote);
+    int c;
+    while ((c = read()) != EOF) {
+      statement.append((char) c);
+      if (c == quote) {
+        final int escaped = read();
+        if (escaped != quote) {
+          unread(escaped);
+          return;
+        }
+        statement.append(quote);
+      }
+    }
+  }
+
+  /**
+   * dollar-quoted string like {@code $body$ ... $body$}, or just a {@code $}.
+   */
+  private void dollar() throws IOException {
+    if (endsWithIdentifierPart()) {
+      statement.append('$');
+      return;
+    }
+    tag.setLength(0);
+    tag.append('$');
+    int c;
+    while ((c = read()) != EOF && isIdentifierPart(c) && c != '$') {
+      tag.append((char) c);
+    }
+    if (c != '$' || (tag.length() > 1 && Character.isDigit(tag.charAt(1)))) {
+      // not a dollar-quote, positional parameter or identifier
+      unread(c);
+      statement.append(tag);
+      return;
+    }
+    tag.append('$');
+    statement.append(tag);
+    int matched = 0;
+    while ((c = read()) != EOF) {
+      statement.append((char) c);
+      if (c == tag.charAt(matched)) {
+        if (++matched == tag.length()) {
+          return;
+        }
+      } else {
+        matched = c == '$' ? 1 : 0;
+      }
+    }
+  }
+
+  private void lineComment() throws IOException {
+    int c;
+    while ((c = read()) != EOF && !isLineBreak(c)) {
+      // skip
+    }
+    appendSpace();
+    unread(c);
+  }
+
+  private void blockComment() throws IOException {
+    int nested = 1;
+    int previous = EOF;
+    int c;
+    while (nested > 0 && (c = read()) != EOF) {
+      if (previous == '*' && c == '/') {
+        nested--;
+        c = EOF;
+      } else if (previous == '/' && c == '*') {
+        nested++;
+        c = EOF;
+      }
+      previous = c;
+    }
+    appendSpace();
+  }
+
+  private boolean isBlank() {
+    return isBlank(0, statement.length());
+  }
+
+  private boolean isBlank(int start, int end) {
+    for (int i = start; i < end; i++) {
+      if (!Character.isWhitespace(statement.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private String take() {
+    final String result = statement.toString().trim();
+    reset();
+    return result;
+  }
+
+  private void reset() {
+    statement.setLength(0);
+    depth = 0;
+    lastWordStart = -1;
+    lastWordEnd = -1;
+    collapse = false;
+  }
+
+  /**
+   * capacity of statement buffer, for testing memory usage.
+   */
+  int capacity() {
+    return statement.capacity();
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.github.divinespear.maven.plugin;
+
+import java.io.File;
+import java.io.Serializable;
+
+/**
+ * Database to generate scripts for, configured as element of {@code targets}.
+ * <p>
+ * Every target shares classpath and scanned entity model of persistence unit, only database emulation options and
+ * outputs are different. Every property is optional except {@link #name}.
+ */
+public class Target
+    implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * name of target, used as output directory name.
+   */
+  private String name;
+
+  /**
+   * output directory for generated ddl scripts.
+   * <p>
+   * default is {@code name} under output directory of persistence unit.
+   */
+  private File outputDirectory;
+
+  /**
+   * generated create script name
+   */
+  private String createOutputFileName;
+
+  /**
+   * generated drop script name
+   */
+  private String dropOutputFileName;
+
+  /**
+   * database product name for emulate database connection.
+   */
+  private String databaseProductName;
+
+  /**
+   * database major version for emulate database connection.
+   */
+  private Integer databaseMajorVersion;
+
+  /**
+   * database minor version for emulate database connection.
+   */
+  private Integer databaseMinorVersion;
+
+  /**
+   * Hibernate dialect class name.
+   * <p>
+   * resolved from database product name and versions if not set.
+   */
+  private String dialect;
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public File getOutputDirectory() {
+    return outputDirectory;
+  }
+
+  public void setOutputDirectory(File outputDirectory) {
+    this.outputDirectory = outputDirectory;
+  }
+
+  public String getCreateOutputFileName() {
+    return createOutputFileName;
+  }
+
+  public void setCreateOutputFileName(String createOutputFileName) {
+    this.createOutputFileName = createOutputFileName;
+  }
+
+  public String getDropOutputFileName() {
+    return dropOutputFileName;
+  }
+
+  public void setDropOutputFileName(String dropOutputFileName) {
+    this.dropOutputFileName = dropOutputFileName;
+  }
+
+  public String getDatabaseProductName() {
+    return databaseProductName;
+  }
+
+  public void setDatabaseProductName(String databaseProductName) {
+    this.databaseProductName = databaseProductName;
+  }
+
+  public Integer getDatabaseMajorVersion() {
+    return databaseMajorVersion;
+  }
+
+  public void setDatabaseMajorVersion(Integer databaseMajorVersion) {
+    this.databaseMajorVersion = databaseMajorVersion;
+  }
+
+  public Integer getDatabaseMinorVersion() {
+    return databaseMinorVersion;
+  }
+
+  public void setDatabaseMinorVersion(Integer databaseMinorVersion) {
+    this.databaseMinorVersion = databaseMinorVersion;
+  }
+
+  public String getDialect() {
+    return dialect;
+  }
+
+  public void setDialect(String dialect) {
+    this.dialect = dialect;
+  }
+}
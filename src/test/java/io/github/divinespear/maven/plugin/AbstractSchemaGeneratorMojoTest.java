@@ -56,9 +56,13 @@ abstract class AbstractSchemaGeneratorMojoTest
     }
 
     protected JpaSchemaGeneratorMojo executeSchemaGeneration(File pomfile) throws Exception {
-        String parent = pomfile.getParent().toString();
         // create mojo
-        JpaSchemaGeneratorMojo mojo = getGenerateMojo(pomfile);
+        return this.executeSchemaGeneration(pomfile, getGenerateMojo(pomfile));
+    }
+
+    protected JpaSchemaGeneratorMojo executeSchemaGeneration(File pomfile,
+                                                             JpaSchemaGeneratorMojo mojo) throws Exception {
+        String parent = pomfile.getParent().toString();
         assertThat(mojo, notNullValue(JpaSchemaGeneratorMojo.class));
         // configure project mock
         MavenProject projectMock = mock(MavenProject.class);
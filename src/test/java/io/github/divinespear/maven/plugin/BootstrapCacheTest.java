@@ -0,0 +1,71 @@
+package io.github.divinespear.maven.plugin;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class BootstrapCacheTest {
+
+    @Test
+    public void testShouldReuseBootstrapOfSameJarsAndProperties() throws Exception {
+        File jar = Files.createTempFile("bootstrap-cache", ".jar").toFile();
+        try {
+            List<URL> jars = Collections.singletonList(jar.toURI().toURL());
+            ClassLoader parent = BootstrapCacheTest.class.getClassLoader();
+            Map<String, Object> properties = new HashMap<>();
+            properties.put("vendor", "hibernate");
+
+            String key = BootstrapCache.key(jars, parent, properties);
+            BootstrapCache.Bootstrap first = BootstrapCache.get(key, jars, parent);
+            BootstrapCache.Bootstrap second = BootstrapCache.get(BootstrapCache.key(jars, parent, properties), jars,
+                                                                 parent);
+            assertThat(second == first, is(true));
+            assertThat(second.getHits() > 0, is(true));
+
+            // another properties, another plugin or changed jar is another bootstrap
+            properties.put("vendor", "eclipselink");
+            assertThat(BootstrapCache.key(jars, parent, properties), is(not(key)));
+            properties.put("vendor", "hibernate");
+            try (URLClassLoader otherParent = new URLClassLoader(new URL[0], parent)) {
+                assertThat(BootstrapCache.key(jars, otherParent, properties), is(not(key)));
+            }
+            Files.write(jar.toPath(), new byte[] {1, 2, 3});
+            assertThat(BootstrapCache.key(jars, parent, properties), is(not(key)));
+
+            assertThat(BootstrapCache.create(ClassLoaderLayers.isolatedDependencyLayer(jars, parent)) == first,
+                       is(false));
+        } finally {
+            jar.delete();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package io.github.divinespear.maven.plugin;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class BuildReportTest {
+
+    @Test
+    public void testShouldAccumulatePhasesAndCounters() throws Exception {
+        BuildReport report = new BuildReport();
+        for (int i = 0; i < 2; i++) {
+            try (BuildReport.Timer timer = report.time("generate")) {
+                Thread.sleep(5);
+            }
+        }
+        try (BuildReport.Timer timer = report.time("post-process")) {
+            report.add("statements", 3);
+        }
+        report.add("statements", 4);
+        report.add("bytes-written", 128);
+        report.finish();
+
+        String json = report.toJson();
+        assertThat(json, containsString("\"generate\": {\"count\": 2, \"wallMillis\": "));
+        assertThat(json, containsString("\"post-process\": {\"count\": 1, "));
+        assertThat(json, containsString("\"statements\": 7"));
+        assertThat(json, containsString("\"bytes-written\": 128\n"));
+        assertThat(json.startsWith("{\n  \"startedAt\": \""), is(true));
+
+        String summary = report.summary();
+        assertThat(summary, containsString("(generate "));
+        assertThat(summary, containsString(", statements 7, bytes-written 128"));
+        assertThat(summary.contains("\n"), is(false));
+    }
+}
@@ -0,0 +1,93 @@
+package io.github.divinespear.maven.plugin;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class CdsArchiveTest {
+
+    private static final String JAVA = System.getProperty("java.home") + "/bin/java";
+
+    @Test
+    public void testShouldDumpFirstAndUsePublishedArchive() throws Exception {
+        File directory = Files.createTempDirectory("cds-archive").toFile();
+        File jar = new File(directory, "plugin.jar");
+        Files.write(jar.toPath(), new byte[] { 1 });
+        List<String> classpath = Collections.singletonList(jar.getPath());
+
+        CdsArchive archive = CdsArchive.of(directory, JAVA, Collections.<String>emptyList(), classpath);
+        assertThat(archive.exists(), is(false));
+        List<String> args = archive.getJvmArgs();
+        assertThat(args.size(), is(1));
+        assertThat(args.get(0), containsString("-XX:ArchiveClassesAtExit="));
+
+        // worker dumped archive on exit
+        File dumped = new File(args.get(0).substring(args.get(0).indexOf('=') + 1));
+        Files.write(dumped.toPath(), new byte[] { 1, 2, 3 });
+        archive.setBaselineStartupNanos(42);
+        archive.publish();
+        assertThat(dumped.exists(), is(false));
+
+        CdsArchive next = CdsArchive.of(directory, JAVA, Collections.<String>emptyList(), classpath);
+        assertThat(next.exists(), is(true));
+        assertThat(next.getJvmArgs().get(0), is("-XX:SharedArchiveFile=" + next.getFile().getAbsolutePath()));
+        assertThat(next.getBaselineStartupNanos(), is(42L));
+    }
+
+    @Test
+    public void testShouldKeyByArgsAndClasspath() throws Exception {
+        File directory = Files.createTempDirectory("cds-archive").toFile();
+        File jar = new File(directory, "plugin.jar");
+        Files.write(jar.toPath(), new byte[] { 1 });
+        List<String> classpath = Collections.singletonList(jar.getPath());
+
+        File file = CdsArchive.of(directory, JAVA, Collections.<String>emptyList(), classpath).getFile();
+        assertThat(CdsArchive.of(directory, JAVA, Collections.<String>emptyList(), classpath).getFile(), is(file));
+        assertThat(CdsArchive.of(directory, JAVA, Arrays.asList("-Xmx1g"), classpath).getFile(), is(not(file)));
+
+        Files.write(jar.toPath(), new byte[] { 1, 2 });
+        assertThat(CdsArchive.of(directory, JAVA, Collections.<String>emptyList(), classpath).getFile(),
+                   is(not(file)));
+
+        // classes of directory are never archived
+        assertThat(CdsArchive.of(directory, JAVA, Collections.<String>emptyList(),
+                                 Arrays.asList(jar.getPath(), directory.getPath())), is(nullValue()));
+    }
+
+    @Test
+    public void testShouldSupportJdk13OrLater() {
+        assertThat(CdsArchive.isSupported("1.8"), is(false));
+        assertThat(CdsArchive.isSupported("11"), is(false));
+        assertThat(CdsArchive.isSupported("13"), is(true));
+        assertThat(CdsArchive.isSupported("17"), is(true));
+    }
+}
@@ -0,0 +1,97 @@
+package io.github.divinespear.maven.plugin;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+import org.junit.Test;
+
+public class ClassFileInfoTest {
+
+    @Entity
+    static class SampleEntity {
+
+        @Id
+        private Long id;
+
+        @Column(name = "DISPLAY_NAME", length = 64)
+        private String name;
+
+        public String describe() {
+            return "sample " + id + " " + name;
+        }
+    }
+
+    static class PlainService {
+
+        private String value;
+
+        @Deprecated
+        public String value() {
+            return value;
+        }
+    }
+
+    private static byte[] readClass(Class<?> type) throws IOException {
+        String resource = "/" + type.getName().replace('.', '/') + ".class";
+        try (InputStream in = ClassFileInfoTest.class.getResourceAsStream(resource)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[4096];
+            int len;
+            while ((len = in.read(buf)) > 0) {
+                out.write(buf, 0, len);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    @Test
+    public void testShouldReadMappingStructure() throws Exception {
+        ClassFileInfo info = ClassFileInfo.read(readClass(SampleEntity.class));
+
+        assertThat(info.getClassName(), is(SampleEntity.class.getName()));
+        assertThat(info.isAnnotated(), is(true));
+        assertThat(info.getClassAnnotations().contains("Ljavax/persistence/Entity;"), is(true));
+        assertThat(info.getStructure(), containsString("name=DISPLAY_NAME"));
+        assertThat(info.getStructure(), containsString("length=64"));
+        assertThat(info.getStructure(), containsString("describe()Ljava/lang/String;"));
+        // method body is not a part of structure
+        assertThat(info.getStructure(), not(containsString("sample ")));
+    }
+
+    @Test
+    public void testShouldIgnoreNonMappingAnnotations() throws Exception {
+        ClassFileInfo info = ClassFileInfo.read(readClass(PlainService.class));
+
+        assertThat(info.isAnnotated(), is(false));
+        assertThat(info.getStructure(), not(containsString("Deprecated")));
+    }
+}
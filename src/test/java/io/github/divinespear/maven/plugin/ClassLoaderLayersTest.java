@@ -0,0 +1,135 @@
+package io.github.divinespear.maven.plugin;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ClassLoaderLayersTest {
+
+    @Test
+    public void testShouldShareDependencyLayerWhileJarsAreNotChanged() throws Exception {
+        File jar = Files.createTempFile("layer", ".jar").toFile();
+        File classes = Files.createTempDirectory("layer-classes").toFile();
+        try {
+            List<URL> jars = Collections.singletonList(jar.toURI().toURL());
+            ClassLoader parent = ClassLoaderLayersTest.class.getClassLoader();
+
+            ClassLoaderLayers.DependencyLayer layer = ClassLoaderLayers.dependencyLayer(jars, parent);
+            assertThat(ClassLoaderLayers.dependencyLayer(jars, parent) == layer, is(true));
+            assertThat(layer.getReuses() > 0, is(true));
+            assertThat(ClassLoaderLayers.isolatedDependencyLayer(jars, parent) == layer, is(false));
+
+            // project layer is always new, on top of dependency layer
+            try (URLClassLoader first = ClassLoaderLayers.projectLayer(
+                    Collections.singletonList(classes.toURI().toURL()), layer);
+                 URLClassLoader second = ClassLoaderLayers.projectLayer(
+                         Collections.singletonList(classes.toURI().toURL()), layer)) {
+                assertThat(first == second, is(false));
+                assertThat(first.getParent() == layer, is(true));
+            }
+
+            // rebuilt jar is new layer
+            Files.write(jar.toPath(), new byte[] {1, 2, 3});
+            assertThat(ClassLoaderLayers.dependencyLayer(jars, parent) == layer, is(false));
+        } finally {
+            jar.delete();
+            classes.delete();
+        }
+    }
+
+    @Test
+    public void testShouldCloseEvictedLayerWhenReleased() throws Exception {
+        ClassLoader parent = ClassLoaderLayersTest.class.getClassLoader();
+        List<File> jars = new ArrayList<>();
+        try {
+            for (int i = 0; i < 12; i++) {
+                jars.add(Files.createTempFile("layer", ".jar").toFile());
+            }
+            ClassLoaderLayers.DependencyLayer used =
+                    ClassLoaderLayers.dependencyLayer(Collections.singletonList(jars.get(0).toURI().toURL()), parent);
+            ClassLoaderLayers.DependencyLayer unused =
+                    ClassLoaderLayers.dependencyLayer(Collections.singletonList(jars.get(1).toURI().toURL()), parent);
+            ClassLoaderLayers.release(unused);
+
+            // evict both by other layers
+            for (File other : jars.subList(2, jars.size())) {
+                ClassLoaderLayers.release(
+                        ClassLoaderLayers.dependencyLayer(Collections.singletonList(other.toURI().toURL()), parent));
+            }
+            assertThat("evicted layer no one uses should be closed.", unused.isClosed(), is(true));
+            assertThat("evicted layer in use should not be closed.", used.isClosed(), is(false));
+            assertThat(ClassLoaderLayers.acquire(unused), is(false));
+
+            ClassLoaderLayers.release(used);
+            assertThat(used.isClosed(), is(true));
+        } finally {
+            for (File jar : jars) {
+                jar.delete();
+            }
+        }
+    }
+
+    @Test
+    public void testShouldReleaseDriverRegisteredByLayer() throws Exception {
+        URL h2 = Class.forName("org.h2.Driver").getProtectionDomain().getCodeSource().getLocation();
+        // platform classes only, so driver is loaded by layer itself
+        ClassLoader parent = ClassLoader.getSystemClassLoader().getParent();
+
+        ClassLoaderLayers.DependencyLayer layer =
+                ClassLoaderLayers.isolatedDependencyLayer(Collections.singletonList(h2), parent);
+        // driver registers itself to DriverManager when initialized
+        Class.forName("org.h2.Driver", true, layer);
+        assertThat(ClassLoaderLayers.release(layer), is(1));
+
+        WeakReference<ClassLoader> reference = new WeakReference<>(layer);
+        layer = null;
+        for (int i = 0; i < 20 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        assertThat("released layer should be collected.", reference.get() == null, is(true));
+    }
+
+    @Test
+    public void testShouldKeepDriverOfSharedLayerRegistered() throws Exception {
+        URL h2 = Class.forName("org.h2.Driver").getProtectionDomain().getCodeSource().getLocation();
+        ClassLoader parent = ClassLoader.getSystemClassLoader().getParent();
+
+        ClassLoaderLayers.DependencyLayer layer =
+                ClassLoaderLayers.dependencyLayer(Collections.singletonList(h2), parent);
+        Class.forName("org.h2.Driver", true, layer);
+        // driver is initialized once per layer, so it never registers again for next execution
+        assertThat(ClassLoaderLayers.release(layer), is(0));
+        assertThat(ClassLoaderLayers.dependencyLayer(Collections.singletonList(h2), parent) == layer, is(true));
+        assertThat(ClassLoaderLayers.release(layer), is(0));
+    }
+}
@@ -0,0 +1,127 @@
+package io.github.divinespear.maven.plugin;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * many executions in one JVM, like modules of large reactor.
+ */
+public class ClassLoaderLeakTest
+        extends AbstractSchemaGeneratorMojoTest {
+
+    private static final int EXECUTIONS = 10;
+
+    @Before
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+    }
+
+    @After
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+    private void execute(File pomfile) throws Exception {
+        JpaSchemaGeneratorMojo mojo = this.getGenerateMojo(pomfile);
+        // every execution loads provider again, as worst case of reactor
+        setVariableValueToObject(mojo, "reuseDependencyClassLoader", false);
+        mojo = this.executeSchemaGeneration(pomfile, mojo);
+        assertThat(mojo.getCreateOutputFile().exists(), is(true));
+    }
+
+    private static void collect() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+    }
+
+    @Test
+    public void testRetainedClassesAndHeapShouldBeBounded() throws Exception {
+        final File pomfile = this.getPomFile("target/test-classes/unit/hibernate-simple-database-test");
+        this.compileJpaModelSources(pomfile);
+
+        final ClassLoadingMXBean classes = ManagementFactory.getClassLoadingMXBean();
+        final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+        // warm up, classes of plugin and JDK are loaded once
+        this.execute(pomfile);
+        collect();
+        final long baseClasses = classes.getLoadedClassCount();
+        final long baseHeap = memory.getHeapMemoryUsage().getUsed();
+
+        this.execute(pomfile);
+        final long classesPerExecution = classes.getLoadedClassCount() - baseClasses;
+
+        for (int i = 2; i < EXECUTIONS; i++) {
+            this.execute(pomfile);
+        }
+        collect();
+
+        // leaking every execution keeps classes of provider, so it grows by classes of whole execution each time
+        final long retainedClasses = classes.getLoadedClassCount() - baseClasses;
+        assertThat("retained " + retainedClasses + " class(es), " + classesPerExecution + " per execution.",
+                   retainedClasses < classesPerExecution * 2, is(true));
+        final long retainedHeap = memory.getHeapMemoryUsage().getUsed() - baseHeap;
+        assertThat("retained " + retainedHeap + " byte(s) of heap.", retainedHeap < 64L * 1024 * 1024, is(true));
+    }
+
+    /**
+     * drivers of shared dependency layer are kept registered, so following executions can still connect.
+     */
+    @Test
+    public void testRepeatedExecutionShouldConnectOnSharedDependencyLayer() throws Exception {
+        final File pomfile = this.getPomFile("target/test-classes/unit/eclipselink-simple-database-test");
+        this.compileJpaModelSources(pomfile);
+
+        for (int i = 0; i < 3; i++) {
+            for (String name : new String[] { "test.h2.db", "test.mv.db" }) {
+                new File(pomfile.getParentFile(), "target/" + name).delete();
+            }
+            // default configuration, dependency layer is shared by every execution
+            JpaSchemaGeneratorMojo mojo = this.executeSchemaGeneration(pomfile);
+
+            try (Connection connection = DriverManager.getConnection(mojo.getJdbcUrl(), mojo.getJdbcUser(),
+                                                                     mojo.getJdbcPassword());
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery("SELECT * FROM KEY_VALUE_STORE")) {
+                assertThat("execution " + i + " should create table.", resultSet.getMetaData().getColumnCount(),
+                           is(3));
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package io.github.divinespear.maven.plugin;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * executions of parallel build ({@code mvn -T}) in same JVM.
+ */
+public class ConcurrentExecutionTest
+        extends AbstractSchemaGeneratorMojoTest {
+
+    private static final int EXECUTIONS = 8;
+
+    private static final String[] PROJECTS = {
+            "hibernate-simple-script-test",
+            "eclipselink-simple-script-test",
+    };
+
+    @Before
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+    }
+
+    @After
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+    @Test
+    public void testConcurrentExecutions() throws Exception {
+        final List<File> pomfiles = new ArrayList<>();
+        for (String project : PROJECTS) {
+            final File pomfile = this.getPomFile("target/test-classes/unit/" + project);
+            this.compileJpaModelSources(pomfile);
+            pomfiles.add(pomfile);
+        }
+
+        // every execution has own output directory, and starts at same time
+        final List<JpaSchemaGeneratorMojo> mojos = new ArrayList<>();
+        for (int i = 0; i < EXECUTIONS; i++) {
+            final File pomfile = pomfiles.get(i % pomfiles.size());
+            final JpaSchemaGeneratorMojo mojo = this.getGenerateMojo(pomfile);
+            setVariableValueToObject(mojo, "outputDirectory",
+                                     new File(mojo.getOutputDirectory().getParentFile(), "concurrent-schema-" + i));
+            mojos.add(mojo);
+        }
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(EXECUTIONS);
+        final List<Future<JpaSchemaGeneratorMojo>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < EXECUTIONS; i++) {
+                final File pomfile = pomfiles.get(i % pomfiles.size());
+                final JpaSchemaGeneratorMojo mojo = mojos.get(i);
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return this.executeSchemaGeneration(pomfile, mojo);
+                }));
+            }
+            start.countDown();
+            for (int i = 0; i < EXECUTIONS; i++) {
+                final String project = PROJECTS[i % PROJECTS.length];
+                final JpaSchemaGeneratorMojo mojo = results.get(i).get(5, TimeUnit.MINUTES);
+
+                final String expectCreate = readResourceAsString("/unit/" + project + "/expected-create.txt");
+                assertThat(this.readFileAsString(mojo.getCreateOutputFile()), is(expectCreate));
+
+                final String expectDrop = readResourceAsString("/unit/" + project + "/expected-drop.txt");
+                assertThat(this.readFileAsString(mojo.getDropOutputFile()), is(expectDrop));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package io.github.divinespear.maven.plugin;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+/**
+ * Formatted script fixtures are golden files of formatter, generated from unformatted script fixtures.
+ */
+public class DdlFormatterTest {
+
+    private static String readResource(String name) throws IOException {
+        try (InputStream stream = DdlFormatterTest.class.getResourceAsStream(name)) {
+            StringBuilder builder = new StringBuilder();
+            InputStreamReader reader = new InputStreamReader(stream);
+            char[] buf = new char[4096];
+            int len;
+            while ((len = reader.read(buf)) > 0) {
+                builder.append(buf, 0, len);
+            }
+            return builder.toString();
+        }
+    }
+
+    private static void assertGolden(String vendor,
+                                     String script) throws IOException {
+        String source = readResource("/unit/" + vendor + "-simple-script-test/expected-" + script + ".txt");
+        String expected = readResource("/unit/" + vendor + "-formatted-script-test/expected-" + script + ".txt");
+
+        StringWriter writer = new StringWriter();
+        new ScriptPostProcessor("\n", true).process(new StringReader(source), writer);
+        assertThat(writer.toString(), is(expected));
+
+        // same layout with other line separator
+        writer = new StringWriter();
+        new ScriptPostProcessor("\r\n", true).process(new StringReader(source), writer);
+        assertThat(writer.toString(), is(expected.replace("\n", "\r\n")));
+    }
+
+    @Test
+    public void testShouldMatchEclipselinkGoldenFiles() throws Exception {
+        assertGolden("eclipselink", "create");
+        assertGolden("eclipselink", "drop");
+    }
+
+    @Test
+    public void testShouldMatchHibernateGoldenFiles() throws Exception {
+        assertGolden("hibernate", "create");
+        assertGolden("hibernate", "drop");
+    }
+
+    @Test
+    public void testShouldKeepUnknownStatement() {
+        assertThat(DdlFormatter.format("  DROP TABLE A  ", "\n"), is("DROP TABLE A"));
+        assertThat(DdlFormatter.format("create sequence S start with 1", "\n"), is("create sequence S start with 1"));
+    }
+}
@@ -19,9 +19,12 @@ package io.github.divinespear.maven.plugin;
  * under the License.
  */
 
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.Matchers.anyOf;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
 
 import java.io.File;
 import java.sql.Connection;
@@ -29,7 +32,9 @@ import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.Statement;
+import java.util.Arrays;
 
+import org.apache.maven.project.MavenProject;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -77,6 +82,34 @@ public class EclipselinkNoXmlMojoTest
         assertThat(this.readFileAsString(dropScriptFile), anyOf(is(expectDrop1), is(expectDrop2)));
     }
 
+    /**
+     * Schema generation test from entity index, default {@code META-INF/orm.xml} should be applied same as scanning
+     *
+     * @throws Exception
+     *             if any exception raises
+     */
+    @Test
+    public void testGenerateScriptFromEntityIndexWithOrmXml() throws Exception {
+        final File pomfile = this.getPomFile("target/test-classes/unit/entity-index-test");
+
+        this.compileJpaModelSources(pomfile);
+        EntityIndexMojo indexMojo = (EntityIndexMojo) lookupMojo("index", pomfile);
+        MavenProject projectMock = mock(MavenProject.class);
+        doReturn(Arrays.asList(pomfile.getParent() + "/target/classes")).when(projectMock)
+                                                                       .getCompileClasspathElements();
+        setVariableValueToObject(indexMojo, "project", projectMock);
+        indexMojo.execute();
+        assertThat("entity index should be written.", indexMojo.getEntityIndexFile().exists(), is(true));
+
+        JpaSchemaGeneratorMojo mojo = this.executeSchemaGeneration(pomfile);
+
+        File createScriptFile = mojo.getCreateOutputFile();
+        assertThat("create script should be generated.", createScriptFile.exists(), is(true));
+        final String create = this.readFileAsString(createScriptFile);
+        assertThat(create, containsString("KEY_VALUE_FROM_ORM_XML"));
+        assertThat(create, containsString("MANY_COLUMN_TABLE"));
+    }
+
     /**
      * Simple schema generation test for database using EclipseLink
      * 
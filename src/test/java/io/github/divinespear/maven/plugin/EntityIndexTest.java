@@ -0,0 +1,155 @@
+package io.github.divinespear.maven.plugin;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.Converter;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.MappedSuperclass;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EntityIndexTest {
+
+    private static final String PACKAGE = EntityIndexTest.class.getPackage().getName();
+
+    @MappedSuperclass
+    static class SampleBase {
+
+        @Id
+        private Long id;
+    }
+
+    @Entity
+    static class SampleEntity
+            extends SampleBase {
+
+        private String name;
+    }
+
+    @Converter
+    static class SampleConverter {
+    }
+
+    static class PlainService {
+    }
+
+    private Path root;
+    private File indexFile;
+
+    @Before
+    public void setUp() throws Exception {
+        root = Files.createTempDirectory("entity-index");
+        indexFile = root.resolveSibling(root.getFileName() + ".properties").toFile();
+        for (Class<?> type : Arrays.asList(SampleBase.class, SampleEntity.class, SampleConverter.class,
+                                           PlainService.class)) {
+            copyClass(type);
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        indexFile.delete();
+        try (Stream<Path> stream = Files.walk(root)) {
+            stream.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    private Path copyClass(Class<?> type) throws IOException {
+        String resource = type.getName().replace('.', '/') + ".class";
+        Path target = root.resolve(resource);
+        Files.createDirectories(target.getParent());
+        try (InputStream in = EntityIndexTest.class.getResourceAsStream("/" + resource)) {
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return target;
+    }
+
+    private List<File> roots() {
+        return Collections.singletonList(root.toFile());
+    }
+
+    @Test
+    public void testShouldIndexManagedClassesOnly() throws Exception {
+        EntityIndex.build(roots()).store(indexFile);
+
+        EntityIndex index = EntityIndex.load(indexFile, roots());
+        assertThat(index, is(notNullValue()));
+
+        List<String> names = index.getManagedClassNames(Collections.singletonList(PACKAGE));
+        assertThat(names.contains(SampleEntity.class.getName()), is(true));
+        assertThat(names.contains(SampleBase.class.getName()), is(true));
+        assertThat(names.contains(SampleConverter.class.getName()), is(true));
+        assertThat(names.contains(PlainService.class.getName()), is(false));
+
+        // sub packages are scanned, parent or sibling packages are not
+        assertThat(index.getManagedClassNames(Collections.singletonList("io.github")).size(), is(3));
+        assertThat(index.getManagedClassNames(Collections.singletonList(PACKAGE + ".other")).isEmpty(), is(true));
+        assertThat(index.getManagedClassNames(Collections.singletonList("io.github.divine")).isEmpty(), is(true));
+    }
+
+    @Test
+    public void testShouldIgnoreMissingOrStaleIndex() throws Exception {
+        assertThat(EntityIndex.load(indexFile, roots()), is(nullValue()));
+
+        EntityIndex.build(roots()).store(indexFile);
+        Path changed = copyClass(PlainService.class);
+        changed.toFile().setLastModified(changed.toFile().lastModified() - 10000L);
+        assertThat(EntityIndex.load(indexFile, roots()), is(nullValue()));
+
+        EntityIndex.build(roots()).store(indexFile);
+        Files.delete(changed);
+        assertThat(EntityIndex.load(indexFile, roots()), is(nullValue()));
+    }
+
+    @Test
+    public void testShouldNotCoverPackageOutsideOfIndexedDirectories() throws Exception {
+        EntityIndex index = EntityIndex.build(roots());
+        try (URLClassLoader loader = new URLClassLoader(new URL[] {root.toUri().toURL()}, null)) {
+            assertThat(index.covers(Collections.singletonList(PACKAGE), loader), is(true));
+        }
+        // same package is also in test classes directory
+        try (URLClassLoader loader = new URLClassLoader(new URL[] {root.toUri().toURL()},
+                                                        EntityIndexTest.class.getClassLoader())) {
+            assertThat(index.covers(Collections.singletonList(PACKAGE), loader), is(false));
+        }
+    }
+}
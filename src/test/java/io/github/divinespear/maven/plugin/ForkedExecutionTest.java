@@ -0,0 +1,78 @@
+package io.github.divinespear.maven.plugin;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ForkedExecutionTest
+        extends AbstractSchemaGeneratorMojoTest {
+
+    @Before
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+    }
+
+    @After
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+    @Test
+    public void testGenerateScriptOnReusedWorker() throws Exception {
+        final File pomfile = this.getPomFile("target/test-classes/unit/hibernate-simple-script-test");
+
+        this.compileJpaModelSources(pomfile);
+        final String expectCreate = readResourceAsString("/unit/hibernate-simple-script-test/expected-create.txt");
+        final String expectDrop = readResourceAsString("/unit/hibernate-simple-script-test/expected-drop.txt");
+
+        // second execution is done by same worker
+        JpaSchemaGeneratorMojo mojo = null;
+        for (int i = 0; i < 2; i++) {
+            mojo = this.getGenerateMojo(pomfile);
+            setVariableValueToObject(mojo, "fork", true);
+            setVariableValueToObject(mojo, "forkJvmArgs", "-Xmx256m -Dfile.encoding=UTF-8");
+            mojo = this.executeSchemaGeneration(pomfile, mojo);
+
+            File createScriptFile = mojo.getCreateOutputFile();
+            assertThat("create script should be generated.", createScriptFile.exists(), is(true));
+            assertThat(this.readFileAsString(createScriptFile), is(expectCreate));
+
+            File dropScriptFile = mojo.getDropOutputFile();
+            assertThat("drop script should be generated.", dropScriptFile.exists(), is(true));
+            assertThat(this.readFileAsString(dropScriptFile), is(expectDrop));
+
+            createScriptFile.delete();
+            dropScriptFile.delete();
+        }
+
+        final File report = new File(mojo.getOutputDirectory(), "jpa-schema-report.json");
+        assertThat(this.readFileAsString(report), containsString("\"fork-reuses\": 1"));
+    }
+}
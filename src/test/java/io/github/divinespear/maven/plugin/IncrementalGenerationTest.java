@@ -0,0 +1,109 @@
+package io.github.divinespear.maven.plugin;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class IncrementalGenerationTest
+        extends AbstractSchemaGeneratorMojoTest {
+
+    private static final long PAST = 1000000000000L;
+
+    @Before
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+    }
+
+    @After
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+    @Test
+    public void testShouldSkipGenerationWhenNothingChanged() throws Exception {
+        final File pomfile = this.getPomFile("target/test-classes/unit/incremental-test");
+
+        this.compileJpaModelSources(pomfile);
+        JpaSchemaGeneratorMojo mojo = this.executeSchemaGeneration(pomfile);
+
+        File createScriptFile = mojo.getCreateOutputFile();
+        assertThat("create script should be generated.", createScriptFile.exists(), is(true));
+        assertThat("fingerprint should be written.", mojo.getFingerprintFile().exists(), is(true));
+
+        final String expectCreate = readResourceAsString("/unit/eclipselink-simple-script-test/expected-create.txt");
+        assertThat(this.readFileAsString(createScriptFile), is(expectCreate));
+
+        // second run must not touch outputs
+        createScriptFile.setLastModified(PAST);
+        mojo = this.executeSchemaGeneration(pomfile);
+        assertThat(mojo.getCreateOutputFile().lastModified(), is(PAST));
+
+        // missing output must be generated again, unchanged output is left untouched
+        mojo.getDropOutputFile().delete();
+        mojo = this.executeSchemaGeneration(pomfile);
+        assertThat("drop script should be generated.", mojo.getDropOutputFile().exists(), is(true));
+        final String expectDrop = readResourceAsString("/unit/eclipselink-simple-script-test/expected-drop.txt");
+        assertThat(this.readFileAsString(mojo.getDropOutputFile()), is(expectDrop));
+        assertThat(mojo.getCreateOutputFile().lastModified(), is(PAST));
+    }
+
+    @Test
+    public void testShouldGenerateWhenConfigurationChanged() throws Exception {
+        final File pomfile = this.getPomFile("target/test-classes/unit/incremental-test");
+
+        this.compileJpaModelSources(pomfile);
+        JpaSchemaGeneratorMojo mojo = this.executeSchemaGeneration(pomfile);
+        mojo.getCreateOutputFile().setLastModified(PAST);
+
+        mojo = this.getGenerateMojo(pomfile);
+        setVariableValueToObject(mojo, "format", true);
+        mojo = this.executeSchemaGeneration(pomfile, mojo);
+
+        assertThat(mojo.getCreateOutputFile().lastModified(), not(PAST));
+        final String expectCreate = readResourceAsString("/unit/eclipselink-formatted-script-test/expected-create.txt");
+        assertThat(this.readFileAsString(mojo.getCreateOutputFile()), is(expectCreate));
+    }
+
+    @Test
+    public void testShouldGenerateWhenDatabaseVersionChanged() throws Exception {
+        final File pomfile = this.getPomFile("target/test-classes/unit/incremental-test");
+
+        this.compileJpaModelSources(pomfile);
+        this.executeSchemaGeneration(pomfile);
+
+        JpaSchemaGeneratorMojo mojo = this.getGenerateMojo(pomfile);
+        setVariableValueToObject(mojo, "databaseMajorVersion", 2);
+        mojo = this.executeSchemaGeneration(pomfile, mojo);
+
+        final File report = new File(mojo.getOutputDirectory(), "jpa-schema-report.json");
+        assertThat(this.readFileAsString(report), not(containsString("\"up-to-date\"")));
+    }
+}
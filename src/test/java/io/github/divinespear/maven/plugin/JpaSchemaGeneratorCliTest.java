@@ -0,0 +1,170 @@
+package io.github.divinespear.maven.plugin;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JpaSchemaGeneratorCliTest
+        extends AbstractSchemaGeneratorMojoTest {
+
+    @Before
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+    }
+
+    @After
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+    @Test
+    public void testShouldConfigureMojoFromOptions() throws Exception {
+        File classes = Files.createTempDirectory("cli-classes").toFile();
+        File jar = Files.createTempFile("cli", ".jar").toFile();
+        List<URL> classpath = new ArrayList<>();
+        JpaSchemaGeneratorMojo mojo = JpaSchemaGeneratorCli.configure(new String[] {
+                "--classpath", classes.getPath() + File.pathSeparator + jar.getPath(),
+                "--vendor", "hibernate",
+                "--script-action=drop-and-create",
+                "--format",
+                "--threads", "2",
+                "--package-to-scan", "a.b, c.d",
+                "--properties", "hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--output-directory", "target/cli"
+        }, classpath);
+
+        assertThat(classpath.size(), is(2));
+        assertThat(mojo.getVendor(), is(JpaSchemaGeneratorMojo.Vendor.hibernate));
+        assertThat(mojo.getScriptAction(), is("drop-and-create"));
+        assertThat(mojo.isFormat(), is(true));
+        assertThat(mojo.getThreads(), is(2));
+        assertThat(mojo.getPackageToScan(), is(Arrays.asList("a.b", "c.d")));
+        assertThat(mojo.getProperties().get("hibernate.dialect"), is("org.hibernate.dialect.H2Dialect"));
+        assertThat(mojo.getOutputDirectory(), is(new File("target/cli").getAbsoluteFile()));
+
+        assertThat(JpaSchemaGeneratorCli.configure(new String[] { "--help" }, classpath), is(nullValue()));
+    }
+
+    @Test
+    public void testShouldReplaceDefaultOfListOption() throws Exception {
+        File classes = Files.createTempDirectory("cli-classes").toFile();
+        List<URL> classpath = new ArrayList<>();
+        JpaSchemaGeneratorMojo mojo = JpaSchemaGeneratorCli.configure(new String[] {
+                "-cp", classes.getPath()
+        }, classpath);
+        assertThat(mojo.getSinks(), is(Collections.singletonList(ScriptSinks.FILE)));
+
+        mojo = JpaSchemaGeneratorCli.configure(new String[] {
+                "-cp", classes.getPath(),
+                "--sinks", "stdout"
+        }, classpath);
+        assertThat(mojo.getSinks(), is(Collections.singletonList(ScriptSinks.STDOUT)));
+
+        // repeated option is still appended
+        mojo = JpaSchemaGeneratorCli.configure(new String[] {
+                "-cp", classes.getPath(),
+                "--sinks", "stdout",
+                "--sinks", "gzip"
+        }, classpath);
+        assertThat(mojo.getSinks(), is(Arrays.asList(ScriptSinks.STDOUT, ScriptSinks.GZIP)));
+    }
+
+    @Test
+    public void testShouldRejectInvalidArguments() throws Exception {
+        PrintStream err = new PrintStream(new ByteArrayOutputStream());
+        assertThat(JpaSchemaGeneratorCli.run(new String[] { "--vendor", "hibernate" }, err),
+                   is(JpaSchemaGeneratorCli.USAGE));
+        assertThat(JpaSchemaGeneratorCli.run(new String[] { "-cp", System.getProperty("java.io.tmpdir"), "--vendor", "toplink" }, err),
+                   is(JpaSchemaGeneratorCli.USAGE));
+        assertThat(JpaSchemaGeneratorCli.run(new String[] { "-cp", System.getProperty("java.io.tmpdir"), "--fork" }, err),
+                   is(JpaSchemaGeneratorCli.USAGE));
+        assertThat(JpaSchemaGeneratorCli.run(new String[] { "-cp", "no-such-dir" }, err),
+                   is(JpaSchemaGeneratorCli.USAGE));
+    }
+
+    @Test
+    public void testGenerateScriptFromClasspath() throws Exception {
+        final File pomfile = this.getPomFile("target/test-classes/unit/hibernate-simple-script-test");
+        this.compileJpaModelSources(pomfile);
+
+        final File outputDirectory = new File(pomfile.getParentFile(), "target/cli-schema");
+        int code = JpaSchemaGeneratorCli.run(new String[] {
+                "-cp", new File(pomfile.getParentFile(), "target/classes").getPath(),
+                "--script-action", "drop-and-create",
+                "--database-product-name", "H2",
+                "--database-major-version", "1",
+                "--database-minor-version", "3",
+                "--output-directory", outputDirectory.getPath()
+        }, System.err);
+        assertThat(code, is(JpaSchemaGeneratorCli.OK));
+
+        final String expectCreate = readResourceAsString("/unit/hibernate-simple-script-test/expected-create.txt");
+        assertThat(this.readFileAsString(new File(outputDirectory, "create.sql")), is(expectCreate));
+        final String expectDrop = readResourceAsString("/unit/hibernate-simple-script-test/expected-drop.txt");
+        assertThat(this.readFileAsString(new File(outputDirectory, "drop.sql")), is(expectDrop));
+    }
+
+    @Test
+    public void testGenerateScriptToStandardOutput() throws Exception {
+        final File pomfile = this.getPomFile("target/test-classes/unit/hibernate-simple-script-test");
+        this.compileJpaModelSources(pomfile);
+
+        final PrintStream out = System.out;
+        final ByteArrayOutputStream stdout = new ByteArrayOutputStream();
+        int code;
+        System.setOut(new PrintStream(stdout, true));
+        try {
+            code = JpaSchemaGeneratorCli.run(new String[] {
+                    "-cp", new File(pomfile.getParentFile(), "target/classes").getPath(),
+                    "--script-action", "create",
+                    "--database-product-name", "H2",
+                    "--database-major-version", "1",
+                    "--database-minor-version", "3",
+                    "--output-directory", new File(pomfile.getParentFile(), "target/cli-stdout-schema").getPath(),
+                    "--sinks", "stdout"
+            }, System.err);
+        } finally {
+            System.setOut(out);
+        }
+        assertThat(code, is(JpaSchemaGeneratorCli.OK));
+
+        // stdout has script only, logs go to stderr
+        final String expectCreate = readResourceAsString("/unit/hibernate-simple-script-test/expected-create.txt");
+        assertThat(stdout.toString(), is(expectCreate));
+    }
+}
@@ -0,0 +1,79 @@
+package io.github.divinespear.maven.plugin;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class MemoryProfileTest {
+
+    @Test
+    public void testShouldProfileOnlyInsideOfScopes() throws Exception {
+        MemoryProfile profile = new MemoryProfile(null);
+        assertThat(profile.toJson(), is("{}\n"));
+
+        List<byte[]> retained = new ArrayList<>();
+        try (MemoryProfile.Scope scope = profile.enter()) {
+            for (int i = 0; i < 16; i++) {
+                retained.add(new byte[1024 * 1024]);
+            }
+        }
+        profile.finish();
+
+        String json = profile.toJson();
+        assertThat(json, containsString("\"peakHeapBytes\": "));
+        assertThat(json, containsString("\"metaspaceGrowthBytes\": "));
+        assertThat(json, containsString("\"gcPauses\": "));
+        assertThat(json, containsString("\"jfr\": null"));
+        assertThat(profile.summary(), containsString("peak heap "));
+        if (!json.contains("\"allocatedBytes\": -1")) {
+            long allocated = Long.parseLong(json.replaceAll("(?s).*\"allocatedBytes\": (\\d+).*", "$1"));
+            assertThat("allocation should be counted, was " + allocated, allocated >= 16L * 1024 * 1024, is(true));
+        }
+        assertThat(retained.size(), is(16));
+    }
+
+    private static long gcPauses(MemoryProfile profile) {
+        return Long.parseLong(profile.toJson().replaceAll("(?s).*\"gcPauses\": (\\d+).*", "$1"));
+    }
+
+    @Test
+    public void testShouldNotCountGarbageCollectionOutsideOfScopes() throws Exception {
+        MemoryProfile profile = new MemoryProfile(null);
+        try (MemoryProfile.Scope scope = profile.enter()) {
+            assertThat(scope != null, is(true));
+        }
+        long pauses = gcPauses(profile);
+
+        // like post-processing and caching after generation
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        profile.finish();
+        assertThat(gcPauses(profile), is(pauses));
+    }
+}
@@ -0,0 +1,67 @@
+package io.github.divinespear.maven.plugin;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MultiPersistenceUnitTest
+        extends AbstractSchemaGeneratorMojoTest {
+
+    @Before
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+    }
+
+    @After
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+    @Test
+    public void testShouldGenerateEveryPersistenceUnit() throws Exception {
+        final File pomfile = this.getPomFile("target/test-classes/unit/multi-unit-test");
+
+        this.compileJpaModelSources(pomfile);
+        JpaSchemaGeneratorMojo mojo = this.executeSchemaGeneration(pomfile);
+
+        final String expectCreate = readResourceAsString("/unit/eclipselink-simple-script-test/expected-create.txt");
+        final String expectDrop = readResourceAsString("/unit/eclipselink-simple-script-test/expected-drop.txt");
+
+        final File first = new File(mojo.getOutputDirectory(), "first");
+        assertThat(this.readFileAsString(new File(first, mojo.getCreateOutputFileName())), is(expectCreate));
+        assertThat(this.readFileAsString(new File(first, mojo.getDropOutputFileName())), is(expectDrop));
+
+        final File second = new File(mojo.getOutputDirectory(), "second");
+        assertThat(this.readFileAsString(new File(second, "second-create.sql")), is(expectCreate));
+        assertThat(this.readFileAsString(new File(second, "second-drop.sql")), is(expectDrop));
+
+        // staging files of provider are replaced
+        assertThat(new File(first, "." + mojo.getCreateOutputFileName() + ".raw").exists(), is(false));
+    }
+}
@@ -0,0 +1,89 @@
+package io.github.divinespear.maven.plugin;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SchemaCacheTest
+        extends AbstractSchemaGeneratorMojoTest {
+
+    @Before
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+    }
+
+    @After
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+    @Test
+    public void testShouldRestoreScriptsFromCache() throws Exception {
+        final File pomfile = this.getPomFile("target/test-classes/unit/cache-test");
+
+        this.compileJpaModelSources(pomfile);
+        JpaSchemaGeneratorMojo mojo = this.executeSchemaGeneration(pomfile);
+        assertThat("cache should be created.", mojo.getCacheDirectory().isDirectory(), is(true));
+
+        // another checkout of same model
+        mojo = this.getGenerateMojo(pomfile);
+        File otherOutputDirectory = new File(mojo.getOutputDirectory().getParentFile(), "other-schema");
+        setVariableValueToObject(mojo, "outputDirectory", otherOutputDirectory);
+        mojo = this.executeSchemaGeneration(pomfile, mojo);
+
+        final File report = new File(otherOutputDirectory, "jpa-schema-report.json");
+        assertThat(this.readFileAsString(report), containsString("\"cache-hits\": 1"));
+
+        final String expectCreate = readResourceAsString("/unit/eclipselink-simple-script-test/expected-create.txt");
+        assertThat(this.readFileAsString(mojo.getCreateOutputFile()), is(expectCreate));
+
+        final String expectDrop = readResourceAsString("/unit/eclipselink-simple-script-test/expected-drop.txt");
+        assertThat(this.readFileAsString(mojo.getDropOutputFile()), is(expectDrop));
+    }
+
+    @Test
+    public void testShouldNotRestoreScriptsOfOtherDatabaseVersion() throws Exception {
+        final File pomfile = this.getPomFile("target/test-classes/unit/cache-test");
+
+        this.compileJpaModelSources(pomfile);
+        this.executeSchemaGeneration(pomfile);
+
+        // same model for another version of database
+        JpaSchemaGeneratorMojo mojo = this.getGenerateMojo(pomfile);
+        File otherOutputDirectory = new File(mojo.getOutputDirectory().getParentFile(), "other-version-schema");
+        setVariableValueToObject(mojo, "outputDirectory", otherOutputDirectory);
+        setVariableValueToObject(mojo, "databaseMinorVersion", 3);
+        mojo = this.executeSchemaGeneration(pomfile, mojo);
+
+        final File report = new File(otherOutputDirectory, "jpa-schema-report.json");
+        assertThat(this.readFileAsString(report), not(containsString("\"cache-hits\"")));
+    }
+}
@@ -0,0 +1,176 @@
+package io.github.divinespear.maven.plugin;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertThat;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+public class SchemaFingerprintTest {
+
+    private Path root;
+
+    @Before
+    public void setUp() throws Exception {
+        root = Files.createTempDirectory("fingerprint");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        try (Stream<Path> stream = Files.walk(root)) {
+            stream.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    /**
+     * class with single method returns given value.
+     */
+    private void writeClass(String name, int value) throws Exception {
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null);
+        MethodVisitor method = writer.visitMethod(Opcodes.ACC_PUBLIC, "value", "()I", null, null);
+        method.visitCode();
+        method.visitLdcInsn(value);
+        method.visitInsn(Opcodes.IRETURN);
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+        writer.visitEnd();
+        write(name, writer.toByteArray());
+    }
+
+    /**
+     * entity with field of given type.
+     */
+    private void writeEntity(String name, String fieldType) throws Exception {
+        ClassWriter writer = new ClassWriter(0);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null);
+        writer.visitAnnotation("Ljavax/persistence/Entity;", true).visitEnd();
+        FieldVisitor field = writer.visitField(Opcodes.ACC_PRIVATE, "amount", "L" + fieldType + ";", null, null);
+        field.visitEnd();
+        writer.visitEnd();
+        write(name, writer.toByteArray());
+    }
+
+    private void write(String name, byte[] bytes) throws Exception {
+        Path file = root.resolve(name + ".class");
+        Files.createDirectories(file.getParent());
+        Files.write(file, bytes);
+    }
+
+    private String classpathFingerprint() throws Exception {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("hibernate.dialect", "sample.CustomDialect");
+        return new SchemaFingerprint().addProperties(properties)
+                                      .addClasspath(Collections.singletonList(root.toUri().toURL()))
+                                      .toHex();
+    }
+
+    private static String fingerprint(Optional<String> majorVersion) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(Constants.JAVAX_SCHEMA_DATABASE_PRODUCT_NAME, "H2");
+        properties.put(Constants.JAVAX_SCHEMA_DATABASE_MAJOR_VERSION, majorVersion);
+        return new SchemaFingerprint().addProperties(properties).toHex();
+    }
+
+    @Test
+    public void testShouldChangeByDatabaseVersion() throws Exception {
+        assertThat(fingerprint(Optional.of("1")), is(fingerprint(Optional.of("1"))));
+        assertThat(fingerprint(Optional.of("1")), not(fingerprint(Optional.of("2"))));
+        assertThat(fingerprint(Optional.of("1")), not(fingerprint(Optional.<String>empty())));
+    }
+
+    @Test
+    public void testShouldChangeByCodeOfClassesMappingDependsOn() throws Exception {
+        writeEntity("sample/Order", "sample/Money");
+        writeClass("sample/Money", 1);
+        writeClass("sample/CustomDialect", 1);
+        writeClass("sample/Service", 1);
+        String fingerprint = classpathFingerprint();
+
+        // type of property
+        writeClass("sample/Money", 2);
+        assertThat(classpathFingerprint(), not(fingerprint));
+        fingerprint = classpathFingerprint();
+
+        // class named in properties
+        writeClass("sample/CustomDialect", 2);
+        assertThat(classpathFingerprint(), not(fingerprint));
+        fingerprint = classpathFingerprint();
+
+        // unrelated class
+        writeClass("sample/Service", 2);
+        assertThat(classpathFingerprint(), is(fingerprint));
+    }
+
+    private String jarFingerprint(String content) throws Exception {
+        Path jar = root.resolve("mapping-1.0.jar");
+        try (OutputStream out = Files.newOutputStream(jar);
+             ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry("META-INF/orm.xml"));
+            zip.write(content.getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        return new SchemaFingerprint().addClasspath(Collections.singletonList(jar.toUri().toURL())).toHex();
+    }
+
+    @Test
+    public void testShouldChangeByContentOfRebuiltJar() throws Exception {
+        assertThat(jarFingerprint("<table name=\"A\"/>"), is(jarFingerprint("<table name=\"A\"/>")));
+        // same version and same size
+        assertThat(jarFingerprint("<table name=\"A\"/>"), not(jarFingerprint("<table name=\"B\"/>")));
+    }
+
+    @Test
+    public void testShouldChangeByDescriptionOfPropertyValue() throws Exception {
+        Map<String, Object> first = new HashMap<>();
+        first.put("eclipselink.target-database", Collections.singletonList("MySQL"));
+        Map<String, Object> second = new HashMap<>(first);
+        second.put("eclipselink.target-database", Collections.singletonList("Oracle"));
+
+        assertThat(new SchemaFingerprint().addProperties(first).toHex(),
+                   not(new SchemaFingerprint().addProperties(second).toHex()));
+        // value without own toString is identified by type, so it is still stable
+        first.put("listener", new Object());
+        String fingerprint = new SchemaFingerprint().addProperties(first).toHex();
+        first.put("listener", new Object());
+        assertThat(new SchemaFingerprint().addProperties(first).toHex(), is(fingerprint));
+    }
+}
@@ -0,0 +1,87 @@
+package io.github.divinespear.maven.plugin;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SchemaGeneratorTest
+        extends AbstractSchemaGeneratorMojoTest {
+
+    @Before
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        SchemaGenerator.clearCache();
+    }
+
+    @After
+    @Override
+    protected void tearDown() throws Exception {
+        SchemaGenerator.clearCache();
+        super.tearDown();
+    }
+
+    private SchemaGenerator.Builder builder(ClassLoader classLoader) {
+        return SchemaGenerator.builder()
+                              .classLoader(classLoader)
+                              .databaseProductName("H2")
+                              .databaseMajorVersion(1)
+                              .databaseMinorVersion(3);
+    }
+
+    @Test
+    public void testShouldGenerateOncePerClassLoaderAndConfiguration() throws Exception {
+        final File pomfile = this.getPomFile("target/test-classes/unit/hibernate-simple-script-test");
+        this.compileJpaModelSources(pomfile);
+        final URL classes = new File(pomfile.getParentFile(), "target/classes").toURI().toURL();
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[] { classes }, this.getClass().getClassLoader())) {
+            SchemaGenerator.Result result = this.builder(classLoader).build().generate();
+
+            final String expectCreate = readResourceAsString("/unit/hibernate-simple-script-test/expected-create.txt");
+            assertThat(result.getCreateScript(), is(expectCreate));
+            final String expectDrop = readResourceAsString("/unit/hibernate-simple-script-test/expected-drop.txt");
+            assertThat(result.getDropScript(), is(expectDrop));
+            assertThat(result.getCreateStatements().isEmpty(), is(false));
+
+            // same classloader and configuration
+            assertThat(this.builder(classLoader).build().generate() == result, is(true));
+            // another configuration, or cache disabled
+            assertThat(this.builder(classLoader).format(true).build().generate() == result, is(false));
+            assertThat(this.builder(classLoader).cache(false).build().generate() == result, is(false));
+
+            try (URLClassLoader another = new URLClassLoader(new URL[] { classes },
+                                                             this.getClass().getClassLoader())) {
+                SchemaGenerator.Result other = this.builder(another).build().generate();
+                assertThat(other == result, is(false));
+                assertThat(other.getCreateScript(), is(expectCreate));
+            }
+        }
+    }
+}
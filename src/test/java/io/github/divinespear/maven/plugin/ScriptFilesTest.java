@@ -0,0 +1,105 @@
+package io.github.divinespear.maven.plugin;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ScriptFilesTest {
+
+    private static final FileTime OLD = FileTime.fromMillis(1000000000000L);
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("script-files");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        File[] files = directory.toFile().listFiles();
+        for (File file : files == null ? new File[0] : files) {
+            file.delete();
+        }
+        Files.delete(directory);
+    }
+
+    private Path write(String name,
+                       String content) throws Exception {
+        Path file = directory.resolve(name);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    @Test
+    public void testShouldKeepUnchangedOutput() throws Exception {
+        Path output = write("create.sql", "create table A (id bigint);\n");
+        Files.setLastModifiedTime(output, OLD);
+        Path temp = write("script.tmp", "create table A (id bigint);\n");
+
+        assertThat(ScriptFiles.replace(temp, output, ScriptFiles.digest(temp)), is(false));
+        assertThat(Files.getLastModifiedTime(output), is(OLD));
+        assertThat(Files.exists(temp), is(false));
+    }
+
+    @Test
+    public void testShouldReplaceChangedOutput() throws Exception {
+        Path output = write("create.sql", "create table A (id bigint);\n");
+        Files.setLastModifiedTime(output, OLD);
+        Path temp = write("script.tmp", "create table B (id bigint);\n");
+
+        assertThat(ScriptFiles.replace(temp, output, ScriptFiles.digest(temp)), is(true));
+        assertThat(new String(Files.readAllBytes(output), StandardCharsets.UTF_8), is("create table B (id bigint);\n"));
+        assertThat(Files.exists(temp), is(false));
+
+        // missing output is written
+        Files.delete(output);
+        temp = write("script.tmp", "create table C (id bigint);\n");
+        assertThat(ScriptFiles.replace(temp, output, ScriptFiles.digest(temp)), is(true));
+        assertThat(Files.exists(output), is(true));
+    }
+
+    @Test
+    public void testShouldCopyOnlyChangedContent() throws Exception {
+        Path source = write("cached.sql", "create table A (id bigint);\n");
+        Path output = write("create.sql", "create table A (id bigint);\n");
+        Files.setLastModifiedTime(output, OLD);
+
+        assertThat(ScriptFiles.copy(source, output), is(false));
+        assertThat(Files.getLastModifiedTime(output), is(OLD));
+
+        write("cached.sql", "create table B (id bigint);\n");
+        assertThat(ScriptFiles.copy(source, output), is(true));
+        assertThat(new String(Files.readAllBytes(output), StandardCharsets.UTF_8), is("create table B (id bigint);\n"));
+        // only source and output are left
+        assertThat(directory.toFile().list().length, is(2));
+    }
+}
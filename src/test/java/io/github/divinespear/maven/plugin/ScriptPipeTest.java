@@ -0,0 +1,187 @@
+package io.github.divinespear.maven.plugin;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ScriptPipeTest {
+
+    private File directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("pipe").toFile();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        File[] files = directory.listFiles();
+        for (File file : files == null ? new File[0] : files) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    /**
+     * script like provider writes, statement by statement.
+     */
+    private static void writeScript(Writer writer,
+                                    int tables) throws IOException {
+        for (int table = 0; table < tables; table++) {
+            StringBuilder builder = new StringBuilder();
+            builder.append(String.format(Locale.ROOT, "create table MANY_COLUMNS_%d (ID bigint not null", table));
+            for (int i = 0; i < 20; i++) {
+                builder.append(String.format(Locale.ROOT, ", COLUMN_%d varchar(%d) default 'a;b'", i, 255));
+            }
+            builder.append(", primary key (ID))");
+            writer.write(builder.toString());
+            writer.write(";\n");
+        }
+    }
+
+    /**
+     * file sink of create script in test directory.
+     */
+    private ScriptSink fileSink() {
+        GenerationTask task = new GenerationTask();
+        task.setOutputDirectory(directory);
+        task.setCreateOutputFileName("create.sql");
+        task.setDropOutputFileName("drop.sql");
+        return new ScriptSinks(new SystemStreamLog(), new BuildReport(), null).create(task, false);
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), Charset.defaultCharset());
+    }
+
+    @Test
+    public void testShouldPostProcessWhileWriting() throws Exception {
+        ScriptPostProcessor processor = new ScriptPostProcessor("\r\n", true);
+
+        StringWriter source = new StringWriter();
+        writeScript(source, 2000);
+        StringWriter expected = new StringWriter();
+        processor.process(new StringReader(source.toString()), expected);
+
+        ScriptPipe pipe = new ScriptPipe(processor, fileSink());
+        assertThat(pipe.isStarted(), is(false));
+        writeScript(pipe, 2000);
+        // provider may close target, script is ended by finish
+        pipe.close();
+        assertThat(pipe.isStarted(), is(true));
+
+        pipe.finish();
+        assertThat(pipe.getStatements(), is(2000L));
+        assertThat(read(new File(directory, "create.sql")), is(expected.toString()));
+        // temporary file is moved to output
+        assertThat(Arrays.asList(directory.list()), is(Arrays.asList("create.sql")));
+    }
+
+    @Test
+    public void testShouldDeleteOutputOfAbortedGeneration() throws Exception {
+        ScriptPipe pipe = new ScriptPipe(new ScriptPostProcessor("\n", false), fileSink());
+        writeScript(pipe, 10);
+        pipe.abort();
+
+        assertThat(directory.list().length, is(0));
+        try {
+            pipe.write("drop table A;");
+            fail("aborted pipe should not accept script.");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testShouldBlockProviderWhileQueueIsFull() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<String> statements = Collections.synchronizedList(new ArrayList<>());
+        final ScriptPipe pipe = new ScriptPipe(new ScriptPostProcessor("\n", false), new ScriptSink() {
+            @Override
+            public void write(String statement,
+                              String text) throws IOException {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+                statements.add(statement);
+            }
+
+            @Override
+            public void finish() {
+            }
+
+            @Override
+            public void abort() {
+            }
+        });
+
+        // more than queue, chunk of consumer and chunk of provider
+        final int tables = (ScriptPipe.CAPACITY + 3) * ScriptPipe.CHUNK_SIZE / 20;
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread provider = new Thread(() -> {
+            try {
+                for (int i = 0; i < tables; i++) {
+                    pipe.write(String.format(Locale.ROOT, "drop table T%08d;\n", i));
+                }
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        provider.start();
+        provider.join(500);
+        assertThat("provider should be blocked by full queue.", provider.isAlive(), is(true));
+
+        release.countDown();
+        provider.join(10000);
+        assertThat(provider.isAlive(), is(false));
+        assertThat(failure.get(), is(nullValue()));
+        pipe.finish();
+        assertThat(pipe.getStatements(), is((long) tables));
+        // statements are delivered in order of script
+        assertThat(statements.get(0), is("drop table T00000000"));
+        assertThat(statements.get(tables - 1), is(String.format(Locale.ROOT, "drop table T%08d", tables - 1)));
+    }
+}
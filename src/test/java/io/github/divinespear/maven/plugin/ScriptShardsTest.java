@@ -0,0 +1,206 @@
+package io.github.divinespear.maven.plugin;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ScriptShardsTest {
+
+    private static final FileTime OLD = FileTime.fromMillis(1000000000000L);
+
+    private static final String SCRIPT = "create sequence B_SEQ start with 1 increment by 50;\n"
+                                         + "create table A (ID bigint not null, B_ID bigint, primary key (ID));\n"
+                                         + "create table B (ID bigint not null, primary key (ID));\n"
+                                         + "create sequence GLOBAL_SEQ start with 1 increment by 1;\n"
+                                         + "create index IDX_A_B on A (B_ID);\n"
+                                         + "alter table A add constraint FK_A_B foreign key (B_ID) references B;\n";
+
+    private File directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("shards").toFile();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        File[] files = directory.listFiles();
+        for (File file : files == null ? new File[0] : files) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    private static ScriptShards shard(String script) throws IOException {
+        final ScriptShards shards = new ScriptShards();
+        new ScriptPostProcessor("\n", false).process(new StringReader(script), new ScriptSink() {
+            @Override
+            public void write(String statement,
+                              String text) {
+                shards.add(statement, text);
+            }
+
+            @Override
+            public void finish() {
+            }
+
+            @Override
+            public void abort() {
+            }
+        });
+        return shards;
+    }
+
+    private String read(String name) throws IOException {
+        return new String(Files.readAllBytes(new File(directory, name).toPath()), Charset.defaultCharset());
+    }
+
+    private List<String> manifest() throws IOException {
+        List<String> files = new ArrayList<>();
+        for (String line : Files.readAllLines(new File(directory, ScriptShards.MANIFEST).toPath(),
+                                              StandardCharsets.UTF_8)) {
+            files.add(line.substring(line.indexOf("  ") + 2));
+        }
+        return files;
+    }
+
+    @Test
+    public void testShouldWriteShardPerTable() throws Exception {
+        ScriptShards shards = shard(SCRIPT);
+
+        assertThat(shards.write(directory), is(3));
+        assertThat(read("a.sql"), is("create table A (ID bigint not null, B_ID bigint, primary key (ID));\n"
+                                     + "create index IDX_A_B on A (B_ID);\n"
+                                     + "alter table A add constraint FK_A_B foreign key (B_ID) references B;\n"));
+        assertThat(read("b.sql"), is("create sequence B_SEQ start with 1 increment by 50;\n"
+                                     + "create table B (ID bigint not null, primary key (ID));\n"));
+        assertThat(read("global_seq.sql"), is("create sequence GLOBAL_SEQ start with 1 increment by 1;\n"));
+        // A references B, so B comes first
+        assertThat(manifest(), is(Arrays.asList("b.sql", "a.sql", "global_seq.sql")));
+    }
+
+    @Test
+    public void testShouldMoveCyclicForeignKeysToConstraints() throws Exception {
+        ScriptShards shards = shard("create table DEPARTMENT (ID bigint not null, HEAD_ID bigint, primary key (ID));\n"
+                                    + "create table EMPLOYEE (ID bigint not null, DEPARTMENT_ID bigint, "
+                                    + "primary key (ID));\n"
+                                    + "alter table DEPARTMENT add constraint FK_HEAD foreign key (HEAD_ID) "
+                                    + "references EMPLOYEE;\n"
+                                    + "alter table EMPLOYEE add constraint FK_DEPT foreign key (DEPARTMENT_ID) "
+                                    + "references DEPARTMENT;\n");
+
+        assertThat(shards.write(directory), is(3));
+        assertThat(read("department.sql"),
+                   is("create table DEPARTMENT (ID bigint not null, HEAD_ID bigint, primary key (ID));\n"));
+        // DEPARTMENT exists before EMPLOYEE, so its foreign key is kept
+        assertThat(read("employee.sql"),
+                   is("create table EMPLOYEE (ID bigint not null, DEPARTMENT_ID bigint, primary key (ID));\n"
+                      + "alter table EMPLOYEE add constraint FK_DEPT foreign key (DEPARTMENT_ID) "
+                      + "references DEPARTMENT;\n"));
+        assertThat(read(ScriptShards.CONSTRAINTS + ".sql"),
+                   is("alter table DEPARTMENT add constraint FK_HEAD foreign key (HEAD_ID) references EMPLOYEE;\n"));
+        assertThat(manifest(), is(Arrays.asList("department.sql", "employee.sql", ScriptShards.CONSTRAINTS + ".sql")));
+    }
+
+    @Test
+    public void testShouldManifestHaveDigestOfShard() throws Exception {
+        shard(SCRIPT).write(directory);
+
+        for (String line : Files.readAllLines(new File(directory, ScriptShards.MANIFEST).toPath(),
+                                              StandardCharsets.UTF_8)) {
+            String file = line.substring(line.indexOf("  ") + 2);
+            String digest = line.substring(0, line.indexOf("  "));
+            StringBuilder expected = new StringBuilder();
+            for (byte b : ScriptFiles.digest(new File(directory, file).toPath())) {
+                expected.append(String.format("%02x", b));
+            }
+            assertThat(digest, is(expected.toString()));
+        }
+    }
+
+    @Test
+    public void testShouldRewriteOnlyChangedShards() throws Exception {
+        shard(SCRIPT).write(directory);
+        for (String name : Arrays.asList("a.sql", "b.sql", "global_seq.sql")) {
+            Files.setLastModifiedTime(new File(directory, name).toPath(), OLD);
+        }
+
+        String changed = SCRIPT.replace("create table B (ID bigint not null", "create table B (ID integer not null")
+                               .replace("create sequence GLOBAL_SEQ start with 1 increment by 1;\n", "");
+        assertThat(shard(changed).write(directory), is(1));
+        assertThat(Files.getLastModifiedTime(new File(directory, "a.sql").toPath()), is(OLD));
+        assertThat(read("b.sql").contains("ID integer"), is(true));
+        // shard not generated anymore is deleted
+        assertThat(new File(directory, "global_seq.sql").exists(), is(false));
+        assertThat(manifest(), is(Arrays.asList("b.sql", "a.sql")));
+    }
+
+    @Test
+    public void testShouldShardDropScript() throws Exception {
+        ScriptShards shards = shard("alter table A drop constraint FK_A_B;\n"
+                                    + "drop table A if exists;\n"
+                                    + "drop table if exists \"B\" cascade;\n"
+                                    + "drop sequence if exists B_SEQ;\n"
+                                    + "drop index IDX_LOOSE;\n");
+
+        shards.write(directory);
+        assertThat(read(ScriptShards.CONSTRAINTS + ".sql"), is("alter table A drop constraint FK_A_B;\n"));
+        assertThat(read("a.sql"), is("drop table A if exists;\n"));
+        assertThat(read("b.sql"), is("drop table if exists \"B\" cascade;\ndrop sequence if exists B_SEQ;\n"));
+        assertThat(read(ScriptShards.OTHER + ".sql"), is("drop index IDX_LOOSE;\n"));
+        assertThat(manifest(), is(Arrays.asList(ScriptShards.CONSTRAINTS + ".sql", "a.sql", "b.sql",
+                                                ScriptShards.OTHER + ".sql")));
+    }
+
+    @Test
+    public void testShouldDropForeignKeysOfChainBeforeTables() throws Exception {
+        // C references B, B references A
+        ScriptShards shards = shard("alter table B drop constraint FK_B_A;\n"
+                                    + "alter table C drop constraint FK_C_B;\n"
+                                    + "drop table A if exists;\n"
+                                    + "drop table B if exists;\n"
+                                    + "drop table C if exists;\n");
+
+        assertThat(shards.write(directory), is(4));
+        assertThat(read(ScriptShards.CONSTRAINTS + ".sql"),
+                   is("alter table B drop constraint FK_B_A;\nalter table C drop constraint FK_C_B;\n"));
+        assertThat(read("a.sql"), is("drop table A if exists;\n"));
+        assertThat(read("b.sql"), is("drop table B if exists;\n"));
+        assertThat(read("c.sql"), is("drop table C if exists;\n"));
+        // every foreign key is dropped before any table
+        assertThat(manifest(), is(Arrays.asList(ScriptShards.CONSTRAINTS + ".sql", "a.sql", "b.sql", "c.sql")));
+    }
+}
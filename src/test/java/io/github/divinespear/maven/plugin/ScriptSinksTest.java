@@ -0,0 +1,246 @@
+package io.github.divinespear.maven.plugin;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.codehaus.plexus.util.IOUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ScriptSinksTest {
+
+    private static final FileTime OLD = FileTime.fromMillis(1000000000000L);
+
+    private File directory;
+    private BuildReport report;
+    private List<String> executed;
+    private int connections;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("sinks").toFile();
+        report = new BuildReport();
+        executed = Collections.synchronizedList(new ArrayList<String>());
+        connections = 0;
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        File[] files = directory.listFiles();
+        for (File file : files == null ? new File[0] : files) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    private GenerationTask task(String... sinks) {
+        GenerationTask task = new GenerationTask();
+        task.setOutputDirectory(directory);
+        task.setCreateOutputFileName("create.sql");
+        task.setDropOutputFileName("drop.sql");
+        task.setJdbcUrl("jdbc:test");
+        task.setSinks(Arrays.asList(sinks));
+        return task;
+    }
+
+    /**
+     * connection recording executed statements.
+     */
+    private Connection connect(GenerationTask task) {
+        connections++;
+        final Statement statement = (Statement) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[] { Statement.class }, (proxy, method, args) -> {
+                    if ("execute".equals(method.getName())) {
+                        executed.add((String) args[0]);
+                        return false;
+                    }
+                    return null;
+                });
+        return (Connection) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+                    return "createStatement".equals(method.getName()) ? statement : null;
+                });
+    }
+
+    private ScriptSinks sinks() {
+        return new ScriptSinks(new SystemStreamLog(), report, this::connect);
+    }
+
+    private static void write(ScriptSink sink,
+                              String... statements) throws IOException {
+        for (String statement : statements) {
+            sink.write(statement, statement + ";\n");
+        }
+    }
+
+    private static String gunzip(File file) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file.toPath()))) {
+            return IOUtil.toString(in, Charset.defaultCharset().name());
+        }
+    }
+
+    @Test
+    public void testShouldWriteFileAndGzipOfSameScript() throws Exception {
+        ScriptSink sink = sinks().create(task("file", "GZIP"), false);
+        write(sink, "create table A (ID bigint)", "create table B (ID bigint)");
+        sink.finish();
+
+        String expected = "create table A (ID bigint);\ncreate table B (ID bigint);\n";
+        assertThat(new String(Files.readAllBytes(new File(directory, "create.sql").toPath()),
+                              Charset.defaultCharset()), is(expected));
+        assertThat(gunzip(new File(directory, "create.sql.gz")), is(expected));
+        assertThat(directory.list().length, is(2));
+    }
+
+    @Test
+    public void testShouldKeepUnchangedGzip() throws Exception {
+        ScriptSink sink = sinks().create(task("gzip"), true);
+        write(sink, "drop table A");
+        sink.finish();
+        File output = new File(directory, "drop.sql.gz");
+        Files.setLastModifiedTime(output.toPath(), OLD);
+
+        // gzip of same script is same bytes
+        sink = sinks().create(task("gzip"), true);
+        write(sink, "drop table A");
+        sink.finish();
+        assertThat(Files.getLastModifiedTime(output.toPath()), is(OLD));
+        assertThat(report.getCounters().get("unchanged-outputs"), is(1L));
+    }
+
+    @Test
+    public void testShouldExecuteScriptsOfTaskInOrder() throws Exception {
+        ScriptSinks sinks = sinks();
+        GenerationTask task = task("jdbc");
+        ScriptSink drop = sinks.create(task, true);
+        ScriptSink create = sinks.create(task, false);
+
+        write(drop, "drop table A");
+        // create script is kept until drop script is done
+        write(create, "create table A (ID bigint)");
+        write(drop, "drop table B");
+        assertThat(executed, is(Arrays.asList("drop table A", "drop table B")));
+
+        create.finish();
+        assertThat(executed.size(), is(2));
+        drop.finish();
+        assertThat(executed, is(Arrays.asList("drop table A", "drop table B", "create table A (ID bigint)")));
+        assertThat(report.getCounters().get("executed-statements"), is(3L));
+        // file is not touched
+        assertThat(directory.list().length, is(0));
+    }
+
+    @Test
+    public void testShouldNotExecuteAbortedScript() throws Exception {
+        ScriptSinks sinks = sinks();
+        GenerationTask task = task("jdbc");
+        ScriptSink drop = sinks.create(task, true);
+        ScriptSink create = sinks.create(task, false);
+
+        write(drop, "drop table A");
+        write(create, "create table A (ID bigint)");
+        create.abort();
+        drop.finish();
+        assertThat(executed, is(Arrays.asList("drop table A")));
+    }
+
+    @Test
+    public void testShouldCreateOnEmptyDatabaseThroughFailingDropScript() throws Exception {
+        final String url = "jdbc:h2:mem:sinks;DB_CLOSE_DELAY=-1";
+        ScriptSinks sinks = new ScriptSinks(new SystemStreamLog(), report, t -> DriverManager.getConnection(url));
+        GenerationTask task = task("jdbc");
+        ScriptSink drop = sinks.create(task, true);
+        ScriptSink create = sinks.create(task, false);
+
+        // nothing to drop on empty database
+        write(drop, "alter table B drop constraint FK_B_A", "drop table B", "drop table A");
+        write(create, "create table A (ID bigint primary key)",
+              "create table B (ID bigint primary key, A_ID bigint)",
+              "alter table B add constraint FK_B_A foreign key (A_ID) references A");
+        drop.finish();
+        create.finish();
+
+        try (Connection connection = DriverManager.getConnection(url);
+             Statement statement = connection.createStatement()) {
+            statement.execute("insert into A (ID) values (1)");
+            statement.execute("insert into B (ID, A_ID) values (1, 1)");
+            statement.execute("drop table B");
+            statement.execute("drop table A");
+        }
+        assertThat(report.getCounters().get("ignored-drop-statements"), is(3L));
+        assertThat(report.getCounters().get("executed-statements"), is(3L));
+    }
+
+    @Test
+    public void testShouldPrintToStandardOutput() throws Exception {
+        PrintStream stdout = System.out;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ScriptSink drop;
+        ScriptSink create;
+        System.setOut(new PrintStream(out, true));
+        try {
+            ScriptSinks sinks = sinks();
+            drop = sinks.create(task("stdout"), true);
+            create = sinks.create(task("stdout"), false);
+        } finally {
+            System.setOut(stdout);
+        }
+
+        write(drop, "drop table A");
+        write(create, "create table A (ID bigint)");
+        drop.finish();
+        create.finish();
+        assertThat(out.toString(), is("drop table A;\ncreate table A (ID bigint);\n"));
+    }
+
+    @Test
+    public void testShouldRejectUnknownSink() throws Exception {
+        try {
+            sinks().create(task("ftp"), false);
+            fail("unknown sink should be rejected.");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("ftp"));
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package io.github.divinespear.maven.plugin;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class StatementSplitterTest {
+
+    private static List<String> split(String script) throws IOException {
+        StatementSplitter splitter = new StatementSplitter(new StringReader(script));
+        List<String> statements = new ArrayList<>();
+        String statement;
+        while ((statement = splitter.next()) != null) {
+            statements.add(statement);
+        }
+        return statements;
+    }
+
+    @Test
+    public void testShouldSplitLikeProviderScripts() throws Exception {
+        List<String> statements = split("CREATE TABLE A (ID BIGINT, PRIMARY KEY (ID))\r\n"
+                                        + "drop table b if exists;drop sequence s;\n"
+                                        + "ALTER TABLE A DROP CONSTRAINT FK_A DROP TABLE A\n\n");
+
+        assertThat(statements.size(), is(5));
+        assertThat(statements.get(0), is("CREATE TABLE A (ID BIGINT, PRIMARY KEY (ID))"));
+        assertThat(statements.get(1), is("drop table b if exists"));
+        assertThat(statements.get(2), is("drop sequence s"));
+        assertThat(statements.get(3), is("ALTER TABLE A DROP CONSTRAINT FK_A"));
+        assertThat(statements.get(4), is("DROP TABLE A"));
+    }
+
+    @Test
+    public void testShouldKeepQuotedSemicolons() throws Exception {
+        List<String> statements = split("create table \"A;B\" (c varchar(8) check (c <> ';'), `d;` int);\n"
+                                        + "insert into t values ('it''s; create table x')");
+
+        assertThat(statements.size(), is(2));
+        assertThat(statements.get(0), is("create table \"A;B\" (c varchar(8) check (c <> ';'), `d;` int)"));
+        assertThat(statements.get(1), is("insert into t values ('it''s; create table x')"));
+    }
+
+    @Test
+    public void testShouldKeepDollarQuotedBody() throws Exception {
+        List<String> statements = split("create function f() returns int as $body$ begin; return 1; end $body$"
+                                        + " language plpgsql;\nselect $$a;b$$, x$y");
+
+        assertThat(statements.size(), is(2));
+        assertThat(statements.get(0),
+                   is("create function f() returns int as $body$ begin; return 1; end $body$ language plpgsql"));
+        assertThat(statements.get(1), is("select $$a;b$$, x$y"));
+    }
+
+    @Test
+    public void testShouldSkipComments() throws Exception {
+        List<String> statements = split("-- header; comment\n"
+                                        + "create table a (\n  id int, -- key; column\n  name /* ; */ varchar(8)\n)\n"
+                                        + "/* create table b */");
+
+        assertThat(statements.size(), is(1));
+        assertThat(statements.get(0), is("create table a ( id int, name varchar(8) )"));
+    }
+
+    @Test
+    public void testShouldReturnNullOnEmptyScript() throws Exception {
+        assertThat(split(" \n;\r\n").isEmpty(), is(true));
+        assertThat(new StatementSplitter(new StringReader("")).next(), nullValue());
+    }
+
+    /**
+     * synthetic script like ManyColumns entity, generated while reading.
+     */
+    private static final class SyntheticScript
+            extends Reader {
+
+        private final int tables;
+        private int table;
+        private String current = "";
+        private int position;
+
+        SyntheticScript(int tables) {
+            this.tables = tables;
+        }
+
+        @Override
+        public int read(char[] buf,
+                        int off,
+                        int len) {
+            if (position == current.length()) {
+                if (table == tables) {
+                    return -1;
+                }
+                StringBuilder builder = new StringBuilder("CREATE TABLE MANY_COLUMNS_").append(table)
+                                                                                      .append(" (ID BIGINT NOT NULL");
+                for (int i = 0; i < 20; i++) {
+                    builder.append(", COLUMN_").append(i).append(" VARCHAR(255) DEFAULT 'a;b'");
+                }
+                builder.append(", PRIMARY KEY (ID))\n");
+                current = builder.toString();
+                position = 0;
+                table++;
+            }
+            int count = Math.min(len, current.length() - position);
+            current.getChars(position, position + count, buf, off);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test
+    public void testShouldKeepOnlyCurrentStatementInMemory() throws Exception {
+        StatementSplitter splitter = new StatementSplitter(new SyntheticScript(50000));
+        int count = 0;
+        int maxLength = 0;
+        String statement;
+        while ((statement = splitter.next()) != null) {
+            maxLength = Math.max(maxLength, statement.length());
+            count++;
+        }
+        assertThat(count, is(50000));
+        assertTrue("buffer grows over single statement", splitter.capacity() <= maxLength * 2 + 2);
+    }
+}
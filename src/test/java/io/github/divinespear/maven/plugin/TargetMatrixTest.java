@@ -0,0 +1,62 @@
+package io.github.divinespear.maven.plugin;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TargetMatrixTest
+        extends AbstractSchemaGeneratorMojoTest {
+
+    @Before
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+    }
+
+    @After
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+    @Test
+    public void testShouldGenerateEveryTarget() throws Exception {
+        final File pomfile = this.getPomFile("target/test-classes/unit/target-matrix-test");
+
+        this.compileJpaModelSources(pomfile);
+        JpaSchemaGeneratorMojo mojo = this.executeSchemaGeneration(pomfile);
+
+        final String expectCreate = readResourceAsString("/unit/hibernate-simple-script-test/expected-create.txt");
+        final String expectDrop = readResourceAsString("/unit/hibernate-simple-script-test/expected-drop.txt");
+
+        for (String target : new String[]{"h2", "h2-dialect"}) {
+            final File directory = new File(mojo.getOutputDirectory(), target);
+            assertThat(this.readFileAsString(new File(directory, mojo.getCreateOutputFileName())), is(expectCreate));
+            assertThat(this.readFileAsString(new File(directory, mojo.getDropOutputFileName())), is(expectDrop));
+        }
+    }
+}